@@ -0,0 +1,130 @@
+package com.loserico.common.lang.benchmark;
+
+import com.loserico.common.lang.utils.BeanUtils;
+import lombok.Data;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BeanUtils.copyProperties单个对象、列表的吞吐量
+ * <p>
+ * Copyright: (C), 2020/5/14 16:40
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BeanUtilsBenchmark {
+
+	private static final int LIST_SIZE = 100;
+
+	private UserEntity source;
+
+	private List<UserEntity> sources;
+
+	@Setup
+	public void setup() {
+		source = user(1L);
+		sources = new ArrayList<>(LIST_SIZE);
+		for (int i = 0; i < LIST_SIZE; i++) {
+			sources.add(user(i));
+		}
+	}
+
+	@Benchmark
+	public UserVO copyToClass() {
+		return BeanUtils.copyProperties(source, UserVO.class);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public UserVO copyToClassThreads4() {
+		return BeanUtils.copyProperties(source, UserVO.class);
+	}
+
+	@Benchmark
+	public UserVO copyToInstance() {
+		UserVO target = new UserVO();
+		BeanUtils.copyProperties(source, target);
+		return target;
+	}
+
+	@Benchmark
+	public UserVO copyIgnoreNull() {
+		return BeanUtils.copyProperties(source, UserVO.class, true, "password");
+	}
+
+	@Benchmark
+	public List<UserVO> copyList() {
+		return BeanUtils.copyProperties(sources, UserVO.class);
+	}
+
+	private static UserEntity user(long id) {
+		UserEntity user = new UserEntity();
+		user.setId(id);
+		user.setUsername("rico" + id);
+		user.setPassword("123456");
+		user.setAge(18);
+		user.setEmail("ricoyu520@gmail.com");
+		user.setCreateTime(LocalDateTime.of(2020, 5, 12, 8, 0));
+		return user;
+	}
+
+	@Data
+	public static class UserEntity {
+
+		private Long id;
+
+		private String username;
+
+		private String password;
+
+		private int age;
+
+		private String email;
+
+		private String remark;
+
+		private LocalDateTime createTime;
+	}
+
+	@Data
+	public static class UserVO {
+
+		private Long id;
+
+		private String username;
+
+		private String password;
+
+		private int age;
+
+		private String email;
+
+		private String remark;
+
+		private LocalDateTime createTime;
+	}
+}
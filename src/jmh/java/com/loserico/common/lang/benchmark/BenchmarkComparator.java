@@ -0,0 +1,543 @@
+package com.loserico.common.lang.benchmark;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * 拿一次JMH跑出来的JSON结果和提交在仓库里的基线比对, 生成回归报告, 有回归就抛异常让构建失败
+ * <p>
+ * 用法: BenchmarkComparator &lt;baseline.json&gt; &lt;result.json&gt; [tolerance.properties] [report.txt]
+ * <p>
+ * 容差配置是properties文件, 按"类名.方法名"、"类名"、"default"的顺序找, 值是允许变差的比例, 比如0.1表示允许慢10%;
+ * 吞吐量模式下分数变低算变差, 其他模式分数变高算变差。跑了GC profiler的话每次操作分配的字节数也按同样的容差比对,
+ * 另外多给{@link #ALLOC_SLACK_BYTES}个字节的余量, 防止从0到几个字节这种抖动被当成回归
+ * <p>
+ * 基线为空、基线里有的这次没跑出来(MISSING)、分数不是有限正数(INVALID)也算失败, 免得什么都没比就通过了;
+ * 第一次建基线时加-D{@value #BOOTSTRAP_PROPERTY}=true跳过前两条, 跑完把结果文件拷成基线提交
+ * <p>
+ * Copyright: (C), 2020/5/15 10:10
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+public class BenchmarkComparator {
+
+	/**
+	 * 容差配置里没有配的时候用这个
+	 */
+	public static final double DEFAULT_TOLERANCE = 0.10;
+
+	/**
+	 * 每次操作分配字节数的绝对余量
+	 */
+	public static final double ALLOC_SLACK_BYTES = 16;
+
+	/**
+	 * 设成true时基线为空、有MISSING的不算失败
+	 */
+	public static final String BOOTSTRAP_PROPERTY = "jmh.bootstrap";
+
+	private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			throw new IllegalArgumentException(
+					"Usage: BenchmarkComparator <baseline.json> <result.json> [tolerance.properties] [report.txt]");
+		}
+		Path baselineFile = Paths.get(args[0]);
+		Path resultFile = Paths.get(args[1]);
+		Properties tolerances = new Properties();
+		if (args.length > 2 && Files.exists(Paths.get(args[2]))) {
+			try (Reader reader = Files.newBufferedReader(Paths.get(args[2]), StandardCharsets.UTF_8)) {
+				tolerances.load(reader);
+			}
+		}
+
+		Map<String, Result> baseline = load(baselineFile);
+		List<Row> rows = compare(baseline, load(resultFile), tolerances);
+		String report = render(baselineFile, resultFile, rows);
+		System.out.println(report);
+		if (args.length > 3) {
+			Path reportFile = Paths.get(args[3]);
+			if (reportFile.getParent() != null) {
+				Files.createDirectories(reportFile.getParent());
+			}
+			Files.write(reportFile, report.getBytes(StandardCharsets.UTF_8));
+		}
+
+		List<String> failures = failures(baseline, rows, Boolean.getBoolean(BOOTSTRAP_PROPERTY));
+		if (!failures.isEmpty()) {
+			throw new IllegalStateException(String.join("; ", failures) + ", see report above");
+		}
+	}
+
+	/**
+	 * 构建该失败的原因, 没有的话返回空List
+	 *
+	 * @param baseline
+	 * @param rows
+	 * @param bootstrap 是不是在建基线, 是的话基线为空、有MISSING的不算失败
+	 * @return List<String>
+	 */
+	public static List<String> failures(Map<String, Result> baseline, List<Row> rows, boolean bootstrap) {
+		int[] counts = new int[Status.values().length];
+		for (Row row : rows) {
+			counts[row.status.ordinal()]++;
+		}
+		List<String> failures = new ArrayList<>();
+		if (baseline.isEmpty() && !bootstrap) {
+			failures.add("Baseline is empty, nothing was compared; run with -D" + BOOTSTRAP_PROPERTY
+					+ "=true and commit the result as the baseline");
+		}
+		if (counts[Status.REGRESSION.ordinal()] > 0) {
+			failures.add(counts[Status.REGRESSION.ordinal()] + " benchmark(s) regressed beyond tolerance");
+		}
+		if (counts[Status.INVALID.ordinal()] > 0) {
+			failures.add(counts[Status.INVALID.ordinal()] + " benchmark(s) have a non-finite or non-positive score");
+		}
+		if (counts[Status.MISSING.ordinal()] > 0 && !bootstrap) {
+			failures.add(counts[Status.MISSING.ordinal()] + " baseline benchmark(s) missing from the result");
+		}
+		return failures;
+	}
+
+	/**
+	 * 读JMH的JSON结果, key是"类名.方法名", 带@Param的话后面跟上参数
+	 *
+	 * @param file
+	 * @return Map<String, Result>
+	 * @throws IOException
+	 */
+	public static Map<String, Result> load(Path file) throws IOException {
+		return parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * 解析JMH的JSON结果, 见{@link #load(Path)}
+	 *
+	 * @param json
+	 * @return Map<String, Result>
+	 */
+	@SuppressWarnings("unchecked")
+	public static Map<String, Result> parse(String json) {
+		Map<String, Result> results = new LinkedHashMap<>();
+		if (json.trim().isEmpty()) {
+			return results;
+		}
+		for (Object element : (List<Object>) new JsonReader(json).read()) {
+			Map<String, Object> benchmark = (Map<String, Object>) element;
+			Map<String, Object> primary = (Map<String, Object>) benchmark.get("primaryMetric");
+			Result result = new Result();
+			result.name = simpleName((String) benchmark.get("benchmark"));
+			result.mode = (String) benchmark.get("mode");
+			result.score = toDouble(primary.get("score"));
+			result.unit = (String) primary.get("scoreUnit");
+			result.alloc = Double.NaN;
+			Map<String, Object> secondaries = (Map<String, Object>) benchmark.get("secondaryMetrics");
+			if (secondaries != null) {
+				for (Map.Entry<String, Object> entry : secondaries.entrySet()) {
+					if (entry.getKey().endsWith(ALLOC_METRIC)) {
+						result.alloc = toDouble(((Map<String, Object>) entry.getValue()).get("score"));
+					}
+				}
+			}
+			Map<String, Object> params = (Map<String, Object>) benchmark.get("params");
+			String key = params == null || params.isEmpty() ? result.name : result.name + params;
+			results.put(key, result);
+		}
+		return results;
+	}
+
+	/**
+	 * 逐个比对, 基线和本次结果任一边有的都会出现在结果里
+	 *
+	 * @param baseline
+	 * @param current
+	 * @param tolerances
+	 * @return List<Row>
+	 */
+	public static List<Row> compare(Map<String, Result> baseline, Map<String, Result> current, Properties tolerances) {
+		TreeSet<String> keys = new TreeSet<>(baseline.keySet());
+		keys.addAll(current.keySet());
+		List<Row> rows = new ArrayList<>(keys.size());
+		for (String key : keys) {
+			Row row = new Row();
+			row.key = key;
+			row.baseline = baseline.get(key);
+			row.current = current.get(key);
+			Result any = row.current != null ? row.current : row.baseline;
+			row.tolerance = tolerance(tolerances, any.name);
+			if (row.baseline == null) {
+				row.status = Status.NEW;
+			} else if (row.current == null) {
+				row.status = Status.MISSING;
+			} else {
+				row.status = judge(row.baseline, row.current, row.tolerance);
+			}
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	static Status judge(Result baseline, Result current, double tolerance) {
+		if (!isPositive(baseline.score) || !isPositive(current.score)) {
+			return Status.INVALID;
+		}
+		boolean higherIsBetter = "thrpt".equals(current.mode);
+		double ratio = current.score / baseline.score;
+		double worse = higherIsBetter ? 1 - ratio : ratio - 1;
+		boolean allocRegressed = !Double.isNaN(baseline.alloc) && !Double.isNaN(current.alloc)
+				&& current.alloc > baseline.alloc * (1 + tolerance) + ALLOC_SLACK_BYTES;
+		if (worse > tolerance || allocRegressed) {
+			return Status.REGRESSION;
+		}
+		if (-worse > tolerance) {
+			return Status.IMPROVED;
+		}
+		return Status.OK;
+	}
+
+	private static boolean isPositive(double score) {
+		return score > 0 && !Double.isInfinite(score);
+	}
+
+	static double tolerance(Properties tolerances, String name) {
+		String value = tolerances.getProperty(name);
+		if (value == null) {
+			int dot = name.indexOf('.');
+			value = tolerances.getProperty(dot < 0 ? name : name.substring(0, dot));
+		}
+		if (value == null) {
+			value = tolerances.getProperty("default");
+		}
+		return value == null ? DEFAULT_TOLERANCE : Double.parseDouble(value.trim());
+	}
+
+	private static String render(Path baselineFile, Path resultFile, List<Row> rows) {
+		StringBuilder report = new StringBuilder(256 + rows.size() * 128);
+		report.append("JMH regression report\n")
+				.append("baseline: ").append(baselineFile).append('\n')
+				.append("result:   ").append(resultFile).append("\n\n")
+				.append(String.format(Locale.ROOT, "%-10s %-55s %-6s %14s %14s %9s %6s %22s%n",
+						"STATUS", "BENCHMARK", "MODE", "BASELINE", "CURRENT", "CHANGE", "TOL", "ALLOC B/op"));
+		int[] counts = new int[Status.values().length];
+		for (Row row : rows) {
+			counts[row.status.ordinal()]++;
+			Result any = row.current != null ? row.current : row.baseline;
+			String change = row.baseline != null && row.current != null ?
+					String.format(Locale.ROOT, "%+.1f%%", (row.current.score / row.baseline.score - 1) * 100) : "";
+			report.append(String.format(Locale.ROOT, "%-10s %-55s %-6s %14s %14s %9s %5.0f%% %22s%n",
+					row.status, row.key, any.mode,
+					row.baseline == null ? "" : String.format(Locale.ROOT, "%.3f", row.baseline.score),
+					row.current == null ? "" : String.format(Locale.ROOT, "%.3f", row.current.score),
+					change, row.tolerance * 100, alloc(row)));
+		}
+		report.append('\n');
+		for (Status status : Status.values()) {
+			report.append(status).append(": ").append(counts[status.ordinal()]).append("  ");
+		}
+		return report.append('\n').toString();
+	}
+
+	private static String alloc(Row row) {
+		double baseline = row.baseline == null ? Double.NaN : row.baseline.alloc;
+		double current = row.current == null ? Double.NaN : row.current.alloc;
+		if (Double.isNaN(baseline) && Double.isNaN(current)) {
+			return "";
+		}
+		return String.format(Locale.ROOT, "%s -> %s",
+				Double.isNaN(baseline) ? "?" : String.format(Locale.ROOT, "%.1f", baseline),
+				Double.isNaN(current) ? "?" : String.format(Locale.ROOT, "%.1f", current));
+	}
+
+	/**
+	 * com.loserico.common.lang.benchmark.DateUtilsBenchmark.parse -> DateUtilsBenchmark.parse
+	 */
+	private static String simpleName(String benchmark) {
+		int method = benchmark.lastIndexOf('.');
+		int clazz = method <= 0 ? -1 : benchmark.lastIndexOf('.', method - 1);
+		return benchmark.substring(clazz + 1);
+	}
+
+	private static double toDouble(Object value) {
+		if (value instanceof Number) {
+			return ((Number) value).doubleValue();
+		}
+		return value == null ? Double.NaN : Double.parseDouble(value.toString());
+	}
+
+	public enum Status {
+		REGRESSION,
+		IMPROVED,
+		OK,
+		NEW,
+		MISSING,
+		/** 基线或这次的分数是NaN、Infinity、0或负数, 没法比 */
+		INVALID
+	}
+
+	public static class Result {
+
+		private String name;
+
+		private String mode;
+
+		private double score;
+
+		private String unit;
+
+		/** 每次操作分配的字节数, 没跑GC profiler是NaN */
+		private double alloc;
+
+		public String getName() {
+			return name;
+		}
+
+		public String getMode() {
+			return mode;
+		}
+
+		public double getScore() {
+			return score;
+		}
+
+		public String getUnit() {
+			return unit;
+		}
+
+		public double getAlloc() {
+			return alloc;
+		}
+	}
+
+	public static class Row {
+
+		private String key;
+
+		private Result baseline;
+
+		private Result current;
+
+		private double tolerance;
+
+		private Status status;
+
+		public String getKey() {
+			return key;
+		}
+
+		public Result getBaseline() {
+			return baseline;
+		}
+
+		public Result getCurrent() {
+			return current;
+		}
+
+		public double getTolerance() {
+			return tolerance;
+		}
+
+		public Status getStatus() {
+			return status;
+		}
+	}
+
+	/**
+	 * 只够读JMH结果文件的JSON解析: 对象读成LinkedHashMap, 数组读成ArrayList, 数字读成Double;
+	 * 兼容JMH偶尔写出来的不带引号的NaN、Infinity
+	 */
+	private static final class JsonReader {
+
+		private final String json;
+
+		private int pos;
+
+		private JsonReader(String json) {
+			this.json = json;
+		}
+
+		private Object read() {
+			Object value = readValue();
+			skipWhitespace();
+			if (pos != json.length()) {
+				throw error("Unexpected trailing content");
+			}
+			return value;
+		}
+
+		private Object readValue() {
+			skipWhitespace();
+			if (pos >= json.length()) {
+				throw error("Unexpected end of JSON");
+			}
+			char c = json.charAt(pos);
+			switch (c) {
+				case '{':
+					return readObject();
+				case '[':
+					return readArray();
+				case '"':
+					return readString();
+				case 't':
+					expect("true");
+					return Boolean.TRUE;
+				case 'f':
+					expect("false");
+					return Boolean.FALSE;
+				case 'n':
+					expect("null");
+					return null;
+				default:
+					return readNumber();
+			}
+		}
+
+		private Map<String, Object> readObject() {
+			Map<String, Object> object = new LinkedHashMap<>();
+			pos++;
+			skipWhitespace();
+			if (peek() == '}') {
+				pos++;
+				return object;
+			}
+			while (true) {
+				skipWhitespace();
+				String key = readString();
+				skipWhitespace();
+				consume(':');
+				object.put(key, readValue());
+				skipWhitespace();
+				if (peek() == ',') {
+					pos++;
+					continue;
+				}
+				consume('}');
+				return object;
+			}
+		}
+
+		private List<Object> readArray() {
+			List<Object> array = new ArrayList<>();
+			pos++;
+			skipWhitespace();
+			if (peek() == ']') {
+				pos++;
+				return array;
+			}
+			while (true) {
+				array.add(readValue());
+				skipWhitespace();
+				if (peek() == ',') {
+					pos++;
+					continue;
+				}
+				consume(']');
+				return array;
+			}
+		}
+
+		private String readString() {
+			consume('"');
+			StringBuilder sb = new StringBuilder();
+			while (pos < json.length()) {
+				char c = json.charAt(pos++);
+				if (c == '"') {
+					return sb.toString();
+				}
+				if (c != '\\') {
+					sb.append(c);
+					continue;
+				}
+				if (pos >= json.length()) {
+					break;
+				}
+				char escaped = json.charAt(pos++);
+				switch (escaped) {
+					case 'b':
+						sb.append('\b');
+						break;
+					case 'f':
+						sb.append('\f');
+						break;
+					case 'n':
+						sb.append('\n');
+						break;
+					case 'r':
+						sb.append('\r');
+						break;
+					case 't':
+						sb.append('\t');
+						break;
+					case 'u':
+						if (pos + 4 > json.length()) {
+							throw error("Bad unicode escape");
+						}
+						sb.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+						pos += 4;
+						break;
+					default:
+						sb.append(escaped);
+				}
+			}
+			throw error("Unterminated string");
+		}
+
+		private Double readNumber() {
+			int start = pos;
+			while (pos < json.length() && "+-0123456789.eEaNIinfty".indexOf(json.charAt(pos)) >= 0) {
+				pos++;
+			}
+			if (start == pos) {
+				throw error("Unexpected character '" + json.charAt(pos) + "'");
+			}
+			try {
+				return Double.valueOf(json.substring(start, pos));
+			} catch (NumberFormatException e) {
+				throw error("Bad number " + json.substring(start, pos));
+			}
+		}
+
+		private void expect(String literal) {
+			if (!json.startsWith(literal, pos)) {
+				throw error("Expected " + literal);
+			}
+			pos += literal.length();
+		}
+
+		private void consume(char c) {
+			if (peek() != c) {
+				throw error("Expected '" + c + "'");
+			}
+			pos++;
+		}
+
+		private char peek() {
+			return pos < json.length() ? json.charAt(pos) : '\0';
+		}
+
+		private void skipWhitespace() {
+			while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+				pos++;
+			}
+		}
+
+		private IllegalArgumentException error(String message) {
+			return new IllegalArgumentException(message + " at position " + pos);
+		}
+	}
+}
@@ -0,0 +1,168 @@
+package com.loserico.common.lang.benchmark;
+
+import com.loserico.common.lang.benchmark.BenchmarkComparator.Result;
+import com.loserico.common.lang.benchmark.BenchmarkComparator.Row;
+import com.loserico.common.lang.benchmark.BenchmarkComparator.Status;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static com.loserico.common.lang.benchmark.BenchmarkComparator.DEFAULT_TOLERANCE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 只有打开benchmark profile才编译、才跑: mvn -P benchmark test -Dtest=BenchmarkComparatorTest
+ * <p>
+ * Copyright: (C), 2020/5/15 14:30
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+public class BenchmarkComparatorTest {
+
+	@Test
+	public void testParse() {
+		Map<String, Result> results = BenchmarkComparator.parse("[" +
+				benchmark("DateUtilsBenchmark.parse", "thrpt", "1234.5", "24.0") + ",\n" +
+				"{\"benchmark\": \"com.loserico.common.lang.benchmark.StringUtilsBenchmark.join\", \"mode\": \"avgt\", " +
+				"\"params\": {\"size\": \"10\"}, " +
+				"\"primaryMetric\": {\"score\": NaN, \"scoreUnit\": \"ns/op\", \"scoreConfidence\": [-Infinity, Infinity]}, " +
+				"\"secondaryMetrics\": {}}]");
+		assertEquals(2, results.size());
+		Result parse = results.get("DateUtilsBenchmark.parse");
+		assertEquals("thrpt", parse.getMode());
+		assertEquals(1234.5, parse.getScore(), 0);
+		assertEquals("ops/ms", parse.getUnit());
+		assertEquals(24.0, parse.getAlloc(), 0);
+		Result join = results.get("StringUtilsBenchmark.join{size=10}");
+		assertEquals("StringUtilsBenchmark.join", join.getName());
+		assertTrue(Double.isNaN(join.getScore()));
+		assertTrue(Double.isNaN(join.getAlloc()));
+
+		assertTrue(BenchmarkComparator.parse("  ").isEmpty());
+		assertTrue(BenchmarkComparator.parse("[]").isEmpty());
+	}
+
+	@Test
+	public void testDirection() {
+		//吞吐量越高越好
+		assertEquals(Status.REGRESSION, judge("thrpt", 100, 85));
+		assertEquals(Status.OK, judge("thrpt", 100, 95));
+		assertEquals(Status.OK, judge("thrpt", 100, 105));
+		assertEquals(Status.IMPROVED, judge("thrpt", 100, 120));
+		//平均时间越低越好
+		assertEquals(Status.REGRESSION, judge("avgt", 100, 115));
+		assertEquals(Status.OK, judge("avgt", 100, 95));
+		assertEquals(Status.IMPROVED, judge("avgt", 100, 85));
+		assertEquals(Status.REGRESSION, judge("sample", 100, 115));
+	}
+
+	@Test
+	public void testAllocSlack() {
+		//从0到十几个字节在余量以内
+		assertEquals(Status.OK, judgeAlloc("0.0", "16.0"));
+		assertEquals(Status.REGRESSION, judgeAlloc("0.0", "24.0"));
+		//100 * 1.1 + 16 = 126
+		assertEquals(Status.OK, judgeAlloc("100.0", "126.0"));
+		assertEquals(Status.REGRESSION, judgeAlloc("100.0", "127.0"));
+		//有一边没跑GC profiler就不比分配
+		assertEquals(Status.OK, judgeAlloc(null, "1000.0"));
+		assertEquals(Status.OK, judgeAlloc("0.0", null));
+	}
+
+	@Test
+	public void testToleranceLookupOrder() {
+		Properties tolerances = new Properties();
+		assertEquals(DEFAULT_TOLERANCE, BenchmarkComparator.tolerance(tolerances, "A.m"), 0);
+		tolerances.setProperty("default", "0.05");
+		assertEquals(0.05, BenchmarkComparator.tolerance(tolerances, "A.m"), 0);
+		tolerances.setProperty("A", "0.2");
+		assertEquals(0.2, BenchmarkComparator.tolerance(tolerances, "A.m"), 0);
+		assertEquals(0.05, BenchmarkComparator.tolerance(tolerances, "B.m"), 0);
+		tolerances.setProperty("A.m", " 0.3 ");
+		assertEquals(0.3, BenchmarkComparator.tolerance(tolerances, "A.m"), 0);
+		assertEquals(0.2, BenchmarkComparator.tolerance(tolerances, "A.n"), 0);
+
+		//compare()用的就是这个容差
+		Map<String, Result> baseline = BenchmarkComparator.parse("[" + benchmark("A.m", "thrpt", "100", null) + "]");
+		Map<String, Result> current = BenchmarkComparator.parse("[" + benchmark("A.m", "thrpt", "75", null) + "]");
+		Row row = BenchmarkComparator.compare(baseline, current, tolerances).get(0);
+		assertEquals(0.3, row.getTolerance(), 0);
+		assertEquals(Status.OK, row.getStatus());
+	}
+
+	@Test
+	public void testNonFiniteScores() {
+		assertEquals(Status.INVALID, judge("thrpt", 100, Double.NaN));
+		assertEquals(Status.INVALID, judge("avgt", 100, Double.POSITIVE_INFINITY));
+		assertEquals(Status.INVALID, judge("avgt", Double.NaN, 100));
+		assertEquals(Status.INVALID, judge("thrpt", 0, 100));
+
+		Map<String, Result> baseline = BenchmarkComparator.parse("[" + benchmark("A.m", "thrpt", "100", null) + "]");
+		Map<String, Result> current = BenchmarkComparator.parse("[" + benchmark("A.m", "thrpt", "\"NaN\"", null) + "]");
+		List<Row> rows = BenchmarkComparator.compare(baseline, current, new Properties());
+		assertEquals(1, BenchmarkComparator.failures(baseline, rows, false).size());
+		assertEquals(1, BenchmarkComparator.failures(baseline, rows, true).size());
+	}
+
+	@Test
+	public void testFailures() {
+		Map<String, Result> baseline = BenchmarkComparator.parse("[" +
+				benchmark("A.m", "thrpt", "100", null) + "," + benchmark("A.n", "thrpt", "100", null) + "]");
+		Map<String, Result> current = BenchmarkComparator.parse("[" +
+				benchmark("A.m", "thrpt", "101", null) + "," + benchmark("B.m", "thrpt", "100", null) + "]");
+		List<Row> rows = BenchmarkComparator.compare(baseline, current, new Properties());
+		assertEquals(Status.OK, rows.get(0).getStatus());
+		assertEquals(Status.MISSING, rows.get(1).getStatus());
+		assertEquals(Status.NEW, rows.get(2).getStatus());
+		//MISSING算失败, NEW不算
+		List<String> failures = BenchmarkComparator.failures(baseline, rows, false);
+		assertEquals(1, failures.size());
+		assertTrue(failures.get(0).contains("missing"));
+		assertTrue(BenchmarkComparator.failures(baseline, rows, true).isEmpty());
+
+		//基线为空什么都没比, 也算失败
+		Map<String, Result> empty = Collections.emptyMap();
+		rows = BenchmarkComparator.compare(empty, current, new Properties());
+		assertEquals(Status.NEW, rows.get(0).getStatus());
+		assertEquals(1, BenchmarkComparator.failures(empty, rows, false).size());
+		assertTrue(BenchmarkComparator.failures(empty, rows, true).isEmpty());
+
+		//这次什么都没跑出来
+		rows = BenchmarkComparator.compare(baseline, empty, new Properties());
+		assertEquals(1, BenchmarkComparator.failures(baseline, rows, false).size());
+	}
+
+	private static Status judge(String mode, double baseline, double current) {
+		return BenchmarkComparator.judge(result(mode, Double.toString(baseline), null),
+				result(mode, Double.toString(current), null), 0.10);
+	}
+
+	private static Status judgeAlloc(String baseline, String current) {
+		return BenchmarkComparator.judge(result("avgt", "100", baseline), result("avgt", "100", current), 0.10);
+	}
+
+	private static Result result(String mode, String score, String alloc) {
+		return BenchmarkComparator.parse("[" + benchmark("A.m", mode, score, alloc) + "]").get("A.m");
+	}
+
+	/**
+	 * JMH -rf json输出里的一个元素, score、alloc原样写进JSON, 可以是NaN、Infinity
+	 */
+	private static String benchmark(String name, String mode, String score, String alloc) {
+		String secondaries = alloc == null ? "{}" :
+				"{\"·gc.alloc.rate.norm\": {\"score\": " + alloc + ", \"scoreUnit\": \"B/op\"}}";
+		return "{\"jmhVersion\": \"1.23\", \"benchmark\": \"com.loserico.common.lang.benchmark." + name + "\", " +
+				"\"mode\": \"" + mode + "\", \"threads\": 1, \"forks\": 1, " +
+				"\"primaryMetric\": {\"score\": " + score + ", \"scoreError\": 1.5, " +
+				"\"scoreUnit\": \"" + ("thrpt".equals(mode) ? "ops/ms" : "ns/op") + "\"}, " +
+				"\"secondaryMetrics\": " + secondaries + "}";
+	}
+}
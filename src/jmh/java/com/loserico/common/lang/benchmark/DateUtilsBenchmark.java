@@ -0,0 +1,130 @@
+package com.loserico.common.lang.benchmark;
+
+import com.loserico.common.lang.utils.DateUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import static com.loserico.common.lang.constants.DateConstants.DTF_ISO_DATETIME;
+import static com.loserico.common.lang.constants.DateConstants.FMT_ISO_DATETIME;
+
+/**
+ * DateUtils解析、格式化、时区换算的吞吐量; convertWithFormatters是时区换算走DateTimeFormatter来回解析、格式化的写法,
+ * 用来和convert2TargetTimezone对比
+ * <p>
+ * Copyright: (C), 2020/5/14 16:30
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateUtilsBenchmark {
+
+	private static final int COLUMN_SIZE = 1024;
+
+	private String source;
+
+	private String slashSource;
+
+	private LocalDateTime localDateTime;
+
+	private TimeZone shanghai;
+
+	private TimeZone newYork;
+
+	private DateTimeFormatter formatter;
+
+	private String[] column;
+
+	@Setup
+	public void setup() {
+		source = "2020-05-12 08:00:00";
+		slashSource = "2020/05/12 08:00:00";
+		localDateTime = LocalDateTime.of(2020, 5, 12, 8, 0, 0);
+		shanghai = TimeZone.getTimeZone("Asia/Shanghai");
+		newYork = TimeZone.getTimeZone("America/New_York");
+		formatter = DTF_ISO_DATETIME;
+		column = new String[COLUMN_SIZE];
+		for (int i = 0; i < COLUMN_SIZE; i++) {
+			column[i] = localDateTime.plusSeconds(i * 37L).format(DTF_ISO_DATETIME);
+		}
+	}
+
+	@Benchmark
+	public Date parse() {
+		return DateUtils.parse(source);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Date parseThreads4() {
+		return DateUtils.parse(source);
+	}
+
+	@Benchmark
+	public Date parseSlash() {
+		return DateUtils.parse(slashSource);
+	}
+
+	@Benchmark
+	public Date parseWithFormat() {
+		return DateUtils.parse(source, FMT_ISO_DATETIME);
+	}
+
+	@Benchmark
+	public long parseEpochMillis() {
+		return DateUtils.parseEpochMillis(source, ZoneOffset.UTC);
+	}
+
+	@Benchmark
+	public String format() {
+		return DateUtils.format(localDateTime);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public String formatThreads4() {
+		return DateUtils.format(localDateTime);
+	}
+
+	@Benchmark
+	public long[] toEpochMilisColumn() {
+		return DateUtils.toEpochMilis(column, ZoneOffset.UTC);
+	}
+
+	@Benchmark
+	public String convert2TargetTimezone() {
+		return DateUtils.convert2TargetTimezone(source, shanghai, newYork);
+	}
+
+	@Benchmark
+	public String convertWithFormatters() {
+		ZoneId srcZone = shanghai.toZoneId();
+		ZoneId destZone = newYork.toZoneId();
+		return LocalDateTime.parse(source, formatter).atZone(srcZone).withZoneSameInstant(destZone).format(formatter);
+	}
+}
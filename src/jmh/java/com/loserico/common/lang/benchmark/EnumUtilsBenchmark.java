@@ -0,0 +1,104 @@
+package com.loserico.common.lang.benchmark;
+
+import com.loserico.common.lang.utils.EnumUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EnumUtils按名字、ordinal、属性值查enum的吞吐量
+ * <p>
+ * Copyright: (C), 2020/5/14 17:00
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EnumUtilsBenchmark {
+
+	private String name;
+
+	private Integer ordinal;
+
+	private Integer code;
+
+	private int intCode;
+
+	private String desc;
+
+	@Setup
+	public void setup() {
+		name = "shipped";
+		ordinal = 2;
+		code = 30;
+		intCode = 30;
+		desc = "已发货";
+	}
+
+	@Benchmark
+	public Enum<?> lookupByName() {
+		return EnumUtils.lookupEnum(OrderStatus.class, name);
+	}
+
+	@Benchmark
+	public Enum<?> lookupByOrdinal() {
+		return EnumUtils.lookupEnum(OrderStatus.class, ordinal);
+	}
+
+	@Benchmark
+	public Enum<?> lookupByCode() {
+		return EnumUtils.lookupEnum(OrderStatus.class, code, "code");
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Enum<?> lookupByCodeThreads4() {
+		return EnumUtils.lookupEnum(OrderStatus.class, code, "code");
+	}
+
+	@Benchmark
+	public OrderStatus toEnumByIntCode() {
+		return EnumUtils.toEnum(OrderStatus.class, intCode, "code");
+	}
+
+	@Benchmark
+	public Enum<?> lookupByDesc() {
+		return EnumUtils.lookupEnum(OrderStatus.class, desc, "desc");
+	}
+
+	public enum OrderStatus {
+
+		CREATED(10, "已创建"),
+		PAID(20, "已支付"),
+		SHIPPED(30, "已发货"),
+		RECEIVED(40, "已签收"),
+		CANCELED(50, "已取消");
+
+		private final int code;
+
+		private final String desc;
+
+		OrderStatus(int code, String desc) {
+			this.code = code;
+			this.desc = desc;
+		}
+	}
+}
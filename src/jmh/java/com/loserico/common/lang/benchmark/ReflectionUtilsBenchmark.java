@@ -0,0 +1,112 @@
+package com.loserico.common.lang.benchmark;
+
+import com.loserico.common.lang.utils.FieldAccessor;
+import com.loserico.common.lang.utils.ReflectionUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReflectionUtils按字段名读写字段的吞吐量, fieldBaseline是直接用缓存好的Field读, 作为下限参考
+ * <p>
+ * Copyright: (C), 2020/5/14 16:50
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReflectionUtilsBenchmark {
+
+	private Order order;
+
+	private Field field;
+
+	private FieldAccessor amount;
+
+	@Setup
+	public void setup() throws NoSuchFieldException {
+		order = new Order();
+		order.orderNo = "20200514001";
+		order.amount = 100L;
+		field = Order.class.getDeclaredField("orderNo");
+		field.setAccessible(true);
+		amount = FieldAccessor.of(Order.class, "amount");
+	}
+
+	@Benchmark
+	public Object getField() {
+		return ReflectionUtils.getField(order, "orderNo");
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Object getFieldThreads4() {
+		return ReflectionUtils.getField(order, "orderNo");
+	}
+
+	@Benchmark
+	public Object getFieldValue() {
+		return ReflectionUtils.getFieldValue("amount", order);
+	}
+
+	@Benchmark
+	public Order setField() {
+		ReflectionUtils.setField("orderNo", order, "20200514001");
+		return order;
+	}
+
+	@Benchmark
+	public Object invokeGetterMethod() {
+		return ReflectionUtils.invokeGetterMethod(order, "orderNo");
+	}
+
+	@Benchmark
+	public Order invokeSetterMethod() {
+		ReflectionUtils.invokeSetterMethod(order, "orderNo", "20200514001");
+		return order;
+	}
+
+	@Benchmark
+	public long accessorGetLong() {
+		return amount.getLong(order);
+	}
+
+	@Benchmark
+	public Object fieldBaseline() throws IllegalAccessException {
+		return field.get(order);
+	}
+
+	public static class Order {
+
+		private String orderNo;
+
+		private long amount;
+
+		public String getOrderNo() {
+			return orderNo;
+		}
+
+		public void setOrderNo(String orderNo) {
+			this.orderNo = orderNo;
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package com.loserico.common.lang.benchmark;
+
+import com.loserico.common.lang.clock.CoarseClock;
+import com.loserico.common.lang.utils.SnowflakeId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SnowflakeId发号的吞吐量, 单线程、多线程争用同一个实例、批量发号, 以及换成CoarseClock之后的对比
+ * <p>
+ * 单个workerId每毫秒最多发4096个号, 吞吐量超过这个上限之后等的是下一毫秒, 多线程的结果主要看争用下有没有退化
+ * <p>
+ * Copyright: (C), 2020/5/14 17:10
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnowflakeIdBenchmark {
+
+	private SnowflakeId idWorker;
+
+	private SnowflakeId coarseIdWorker;
+
+	private long[] batch;
+
+	@Setup
+	public void setup() {
+		idWorker = SnowflakeId.builder().workerId(1).build();
+		coarseIdWorker = SnowflakeId.builder().workerId(2).clock(CoarseClock.systemDefault()).build();
+		batch = new long[256];
+	}
+
+	@Benchmark
+	public long nextId() {
+		return idWorker.nextId();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public long nextIdThreads4() {
+		return idWorker.nextId();
+	}
+
+	@Benchmark
+	public long nextIdCoarseClock() {
+		return coarseIdWorker.nextId();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public long nextIdCoarseClockThreads4() {
+		return coarseIdWorker.nextId();
+	}
+
+	@Benchmark
+	public long[] nextIdsBatch() {
+		idWorker.nextIds(batch);
+		return batch;
+	}
+}
@@ -0,0 +1,70 @@
+package com.loserico.common.lang.benchmark;
+
+import com.loserico.common.lang.utils.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StringUtils里拼接、比较这类调用最多的方法的吞吐量
+ * <p>
+ * Copyright: (C), 2020/5/15 9:30
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StringUtilsBenchmark {
+
+	private String source;
+
+	private String[] targets;
+
+	private List<Object> elements;
+
+	@Setup
+	public void setup() {
+		source = "com.loserico.common.lang.utils.StringUtils";
+		targets = new String[]{"DateUtils", "BeanUtils", "stringutils"};
+		elements = Arrays.asList("order", 20200515L, "paid", 100);
+	}
+
+	@Benchmark
+	public String joinWith() {
+		return StringUtils.joinWith(",", elements);
+	}
+
+	@Benchmark
+	public String concat() {
+		return StringUtils.concat(targets);
+	}
+
+	@Benchmark
+	public boolean equalsIgAny() {
+		return StringUtils.equalsIgAny(source, targets);
+	}
+
+	@Benchmark
+	public boolean containsAnyIgCase() {
+		return StringUtils.containsAnyIgCase(source, targets);
+	}
+}
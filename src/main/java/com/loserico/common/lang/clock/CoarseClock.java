@@ -0,0 +1,238 @@
+package com.loserico.common.lang.clock;
+
+import java.io.Serializable;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 粗粒度时钟, 后台线程每毫秒读一次系统时钟写到一个volatile long里, 读时间就是读这个volatile long
+ * <p>
+ * 适合只需要毫秒精度、调用又非常频繁的地方(发号、打时间戳等), 代价是读到的时间最多比真实时间晚一个tick(1毫秒左右)。
+ * 另外还按秒缓存了当前的LocalDateTime, 按天缓存了当前的LocalDate, 同一秒/同一天内拿到的是同一个对象, 不用每次new
+ * <p>
+ * 继承自{@link Clock}, 可以直接传给LocalDateTime.now(clock)之类的方法, 也可以通过SnowflakeId.Builder.clock(),
+ * DateUtils.setClock()用到发号和日期工具里
+ * <p>
+ * 后台线程(daemon)在第一次读时间时才启动, 加载这个类不会起线程; 应用卸载(比如容器里redeploy)时调用{@link #shutdown()}停掉,
+ * 停掉之后再读时间直接读系统时钟, 不会再起线程
+ * <p>
+ * Copyright: (C), 2020/5/13 9:40
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+public final class CoarseClock extends Clock implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** 后台线程多久读一次系统时钟 */
+	public static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private static final int NEW = 0;
+
+	private static final int TICKING = 1;
+
+	private static final int STOPPED = 2;
+
+	private static volatile long currentMillis;
+
+	/** NEW -> TICKING -> STOPPED, 只在持有CoarseClock.class锁时修改 */
+	private static volatile int state = NEW;
+
+	private static Thread ticker;
+
+	private static final CoarseClock SYSTEM_DEFAULT = new CoarseClock(ZoneId.systemDefault());
+
+	private final ZoneId zone;
+
+	/** 当前这一秒的LocalDateTime */
+	private transient volatile Cached<LocalDateTime> dateTime = new Cached<>(Long.MIN_VALUE, null);
+
+	/** 当天的LocalDate */
+	private transient volatile Cached<LocalDate> date = new Cached<>(Long.MIN_VALUE, null);
+
+	private CoarseClock(ZoneId zone) {
+		this.zone = Objects.requireNonNull(zone, "zone can't be null");
+	}
+
+	/**
+	 * 系统默认时区(类加载时的默认时区)的粗粒度时钟
+	 *
+	 * @return CoarseClock
+	 */
+	public static CoarseClock systemDefault() {
+		return SYSTEM_DEFAULT;
+	}
+
+	/**
+	 * 指定时区的粗粒度时钟, 所有时区共用一个后台线程, 创建它不会多起线程
+	 *
+	 * @param zone
+	 * @return CoarseClock
+	 */
+	public static CoarseClock of(ZoneId zone) {
+		return SYSTEM_DEFAULT.zone.equals(zone) ? SYSTEM_DEFAULT : new CoarseClock(zone);
+	}
+
+	/**
+	 * 最近一个tick读到的系统时间, 等价于一个便宜的System.currentTimeMillis()
+	 *
+	 * @return long
+	 */
+	public static long currentTimeMillis() {
+		if (state == TICKING) {
+			return currentMillis;
+		}
+		return start();
+	}
+
+	/**
+	 * 停掉后台线程, 之后读时间直接读系统时钟; 可以重复调用
+	 */
+	public static synchronized void shutdown() {
+		state = STOPPED;
+		if (ticker != null) {
+			ticker.interrupt();
+			ticker = null;
+		}
+	}
+
+	/**
+	 * 停掉后台线程并回到还没启动的状态, 下次读时间时重新启动; 只给测试用, shutdown()在同一个JVM里是不可逆的
+	 */
+	static synchronized void reset() throws InterruptedException {
+		Thread stopped = ticker;
+		shutdown();
+		if (stopped != null) {
+			stopped.join();
+		}
+		state = NEW;
+	}
+
+	/**
+	 * 后台线程是不是在跑
+	 *
+	 * @return boolean
+	 */
+	public static boolean isTicking() {
+		return state == TICKING;
+	}
+
+	/**
+	 * 第一次读时间时启动后台线程; 已经停掉的不再启动, 直接返回系统时间
+	 */
+	private static synchronized long start() {
+		if (state == NEW) {
+			currentMillis = System.currentTimeMillis();
+			ticker = new Thread(() -> {
+				while (state == TICKING && !Thread.currentThread().isInterrupted()) {
+					LockSupport.parkNanos(TICK_NANOS);
+					currentMillis = System.currentTimeMillis();
+				}
+			}, "coarse-clock-ticker");
+			ticker.setDaemon(true);
+			state = TICKING;
+			ticker.start();
+		}
+		return state == TICKING ? currentMillis : System.currentTimeMillis();
+	}
+
+	@Override
+	public long millis() {
+		return currentTimeMillis();
+	}
+
+	@Override
+	public Instant instant() {
+		return Instant.ofEpochMilli(currentTimeMillis());
+	}
+
+	@Override
+	public ZoneId getZone() {
+		return zone;
+	}
+
+	@Override
+	public CoarseClock withZone(ZoneId zone) {
+		return this.zone.equals(zone) ? this : of(zone);
+	}
+
+	/**
+	 * 当前时间, 精确到秒(毫秒部分是0); 同一秒内返回同一个对象
+	 *
+	 * @return LocalDateTime
+	 */
+	public LocalDateTime localDateTime() {
+		long second = Math.floorDiv(currentTimeMillis(), 1000L);
+		Cached<LocalDateTime> cached = dateTime;
+		if (cached.key != second) {
+			ZoneOffset offset = zone.getRules().getOffset(Instant.ofEpochSecond(second));
+			cached = new Cached<>(second, LocalDateTime.ofEpochSecond(second, 0, offset));
+			dateTime = cached;
+		}
+		return cached.value;
+	}
+
+	/**
+	 * 今天; 同一天内返回同一个对象
+	 *
+	 * @return LocalDate
+	 */
+	public LocalDate localDate() {
+		LocalDateTime now = localDateTime();
+		long epochDay = now.toLocalDate().toEpochDay();
+		Cached<LocalDate> cached = date;
+		if (cached.key != epochDay) {
+			cached = new Cached<>(epochDay, now.toLocalDate());
+			date = cached;
+		}
+		return cached.value;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj instanceof CoarseClock) {
+			return zone.equals(((CoarseClock) obj).zone);
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return zone.hashCode() + 1;
+	}
+
+	@Override
+	public String toString() {
+		return "CoarseClock[" + zone + "]";
+	}
+
+	private Object readResolve() {
+		return of(zone);
+	}
+
+	/**
+	 * 不可变, 通过volatile字段发布
+	 */
+	private static final class Cached<T> {
+
+		private final long key;
+
+		private final T value;
+
+		private Cached(long key, T value) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,541 @@
+package com.loserico.common.lang.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ClassUtils;
+import org.springframework.beans.FatalBeanException;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.springframework.beans.BeanUtils.getPropertyDescriptor;
+import static org.springframework.beans.BeanUtils.getPropertyDescriptors;
+
+/**
+ * 编译好的属性拷贝器, 每种(源类型, 目标类型, ignoreNull, 是否转换, 忽略的属性)组合只解析一次PropertyDescriptor, 生成一份拷贝计划缓存起来
+ * <p>
+ * 计划里每个属性是一对getter/setter函数: bean类对本类的ClassLoader可见并且是public的, 用LambdaMetafactory生成,
+ * JIT可以直接内联成普通方法调用; 否则退回到MethodHandle。拷贝哪些属性、类型怎么判断、出错抛什么和
+ * {@link BeanUtils#copyProperties(Object, Object, boolean, String...)}原来的实现完全一样
+ * <p>
+ * 转换模式({@link #converting(Class, Class, boolean, String...)})下, 类型对不上的属性在生成计划时查一次
+ * {@link PropertyConverters}, 找到的转换函数直接拼在getter后面, 拷贝时不用再按值的类型判断怎么转; 找不到转换的属性照旧不拷贝;
+ * 转换出来是null而目标属性是基本类型的, 跳过这个属性
+ * <p>
+ * 实例不可变、线程安全
+ * <p>
+ * Copyright: (C), 2020/5/15 14:20
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+@Slf4j
+public final class BeanCopier {
+
+	/**
+	 * 最多缓存多少份拷贝计划
+	 */
+	public static final int MAX_SIZE = 4096;
+
+	private static final ConcurrentHashMap<Key, BeanCopier> COPIERS = new ConcurrentHashMap<>();
+
+	/**
+	 * 查缓存用的key, 每个线程一个
+	 */
+	private static final ThreadLocal<Key> PROBES = ThreadLocal.withInitial(Key::new);
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	private static final String[] NO_PROPERTIES = new String[0];
+
+	private static volatile boolean overflowWarned = false;
+
+	/**
+	 * 每个目标类型缓存一个调无参构造函数的函数
+	 */
+	private static final ClassValue<Instantiator> INSTANTIATORS = new ClassValue<Instantiator>() {
+		@Override
+		protected Instantiator computeValue(Class<?> type) {
+			return new Instantiator(type);
+		}
+	};
+
+	private final Class<?> sourceClass;
+
+	private final Class<?> targetClass;
+
+	private final boolean ignoreNull;
+
+	private final boolean converting;
+
+	private final String[] names;
+
+	private final Function<Object, Object>[] getters;
+
+	private final BiConsumer<Object, Object>[] setters;
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private BeanCopier(Class<?> sourceClass, Class<?> targetClass, boolean ignoreNull, boolean converting,
+			String[] ignoreProperties) {
+		this.sourceClass = sourceClass;
+		this.targetClass = targetClass;
+		this.ignoreNull = ignoreNull;
+		this.converting = converting;
+
+		List<String> names = new ArrayList<>();
+		List<Function<Object, Object>> getters = new ArrayList<>();
+		List<BiConsumer<Object, Object>> setters = new ArrayList<>();
+		for (PropertyDescriptor targetPd : getPropertyDescriptors(targetClass)) {
+			Method writeMethod = targetPd.getWriteMethod();
+			if (writeMethod == null || contains(ignoreProperties, targetPd.getName())) {
+				continue;
+			}
+			PropertyDescriptor sourcePd = getPropertyDescriptor(sourceClass, targetPd.getName());
+			if (sourcePd == null) {
+				continue;
+			}
+			Method readMethod = sourcePd.getReadMethod();
+			if (readMethod == null) {
+				continue;
+			}
+			Class<?> writeType = writeMethod.getParameterTypes()[0];
+			if (ClassUtils.isAssignable(writeType, readMethod.getReturnType())) {
+				names.add(targetPd.getName());
+				getters.add(getter(readMethod));
+				setters.add(setter(writeMethod));
+			} else if (converting) {
+				Function<Object, Object> converter = PropertyConverters.find(readMethod.getReturnType(), writeType);
+				if (converter != null) {
+					names.add(targetPd.getName());
+					getters.add(convertingGetter(getter(readMethod), converter));
+					setters.add(writeType.isPrimitive() ? nonNullSetter(setter(writeMethod)) : setter(writeMethod));
+				}
+			}
+		}
+		this.names = names.toArray(new String[0]);
+		this.getters = getters.toArray(new Function[0]);
+		this.setters = setters.toArray(new BiConsumer[0]);
+	}
+
+	/**
+	 * 拷贝所有属性, 包括值为null的
+	 *
+	 * @param sourceClass
+	 * @param targetClass
+	 * @return BeanCopier
+	 */
+	public static BeanCopier of(Class<?> sourceClass, Class<?> targetClass) {
+		return of(sourceClass, targetClass, false, NO_PROPERTIES);
+	}
+
+	/**
+	 * 取(sourceClass, targetClass, ignoreNull, ignoreProperties)对应的拷贝器, 第一次用时生成, 以后从缓存取;
+	 * ignoreProperties的顺序、重复不影响缓存命中
+	 *
+	 * @param sourceClass
+	 * @param targetClass
+	 * @param ignoreNull       为true时不拷贝值为null的属性
+	 * @param ignoreProperties 不拷贝的目标属性
+	 * @return BeanCopier
+	 */
+	public static BeanCopier of(Class<?> sourceClass, Class<?> targetClass, boolean ignoreNull,
+			String... ignoreProperties) {
+		return of(sourceClass, targetClass, ignoreNull, false, ignoreProperties);
+	}
+
+	/**
+	 * 和{@link #of(Class, Class, boolean, String...)}一样, 另外类型不一致的属性会按{@link PropertyConverters}转换后拷贝,
+	 * 比如Date -> LocalDateTime, String -> enum, Long -> String; 转换函数在生成计划时就确定了, 和拷贝计划一起缓存
+	 *
+	 * @param sourceClass
+	 * @param targetClass
+	 * @param ignoreNull       为true时不拷贝值为null的属性
+	 * @param ignoreProperties 不拷贝的目标属性
+	 * @return BeanCopier
+	 */
+	public static BeanCopier converting(Class<?> sourceClass, Class<?> targetClass, boolean ignoreNull,
+			String... ignoreProperties) {
+		return of(sourceClass, targetClass, ignoreNull, true, ignoreProperties);
+	}
+
+	private static BeanCopier of(Class<?> sourceClass, Class<?> targetClass, boolean ignoreNull, boolean converting,
+			String[] ignoreProperties) {
+		Objects.requireNonNull(sourceClass, "Source class must not be null");
+		Objects.requireNonNull(targetClass, "Target class must not be null");
+		if (ignoreProperties == null) {
+			ignoreProperties = NO_PROPERTIES;
+		}
+		Key probe = PROBES.get().set(sourceClass, targetClass, ignoreNull, converting, ignoreProperties);
+		BeanCopier copier = COPIERS.get(probe);
+		probe.set(null, null, false, false, null);
+		if (copier != null) {
+			return copier;
+		}
+
+		String[] ignored = ignoreProperties.clone();
+		copier = new BeanCopier(sourceClass, targetClass, ignoreNull, converting, ignored);
+		if (COPIERS.size() < MAX_SIZE) {
+			BeanCopier previous =
+					COPIERS.putIfAbsent(new Key().set(sourceClass, targetClass, ignoreNull, converting, ignored), copier);
+			return previous == null ? copier : previous;
+		}
+		if (!overflowWarned) {
+			overflowWarned = true;
+			log.warn("BeanCopier cache is full ({} entries), new copy plans will not be cached", MAX_SIZE);
+		}
+		return copier;
+	}
+
+	/**
+	 * 当前缓存了多少份拷贝计划
+	 *
+	 * @return int
+	 */
+	public static int size() {
+		return COPIERS.size();
+	}
+
+	public static void clear() {
+		COPIERS.clear();
+	}
+
+	/**
+	 * 用缓存好的无参构造函数创建clazz的实例, 代替每次Class.newInstance(); 和Class.newInstance()一样,
+	 * 构造函数得对本包可见
+	 *
+	 * @param clazz
+	 * @return Object
+	 * @throws InstantiationException 没有可用的无参构造函数, cause里是具体原因
+	 */
+	public static Object newInstance(Class<?> clazz) throws InstantiationException {
+		return INSTANTIATORS.get(clazz).newInstance();
+	}
+
+	/**
+	 * 从source拷贝到target
+	 *
+	 * @param source 必须是创建拷贝器时的sourceClass(或子类, 子类多出来的属性不拷贝)
+	 * @param target 必须是创建拷贝器时的targetClass(或子类)
+	 */
+	public void copy(Object source, Object target) {
+		Objects.requireNonNull(source, "Source must not be null");
+		Objects.requireNonNull(target, "Target must not be null");
+		for (int i = 0; i < getters.length; i++) {
+			try {
+				Object value = getters[i].apply(source);
+				//如果指定了ignoreNull，则不拷贝值为null的属性
+				if (ignoreNull && value == null) {
+					continue;
+				}
+				setters[i].accept(target, value);
+			} catch (Throwable ex) {
+				throw new FatalBeanException(
+						"Could not copy property '" + names[i] + "' from source to target", ex);
+			}
+		}
+	}
+
+	public Class<?> getSourceClass() {
+		return sourceClass;
+	}
+
+	public Class<?> getTargetClass() {
+		return targetClass;
+	}
+
+	/**
+	 * 是不是转换模式
+	 *
+	 * @return boolean
+	 */
+	public boolean isConverting() {
+		return converting;
+	}
+
+	/**
+	 * 会拷贝的属性名, 按拷贝顺序
+	 *
+	 * @return String[]
+	 */
+	public String[] getPropertyNames() {
+		return names.clone();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Function<Object, Object> getter(Method readMethod) {
+		if (canSpinLambda(readMethod, readMethod.getReturnType())) {
+			try {
+				MethodHandle handle = LOOKUP.unreflect(readMethod);
+				CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply",
+						MethodType.methodType(Function.class),
+						MethodType.methodType(Object.class, Object.class),
+						handle,
+						handle.type().wrap());
+				return (Function<Object, Object>) site.getTarget().invokeExact();
+			} catch (Throwable e) {
+				log.debug("Fall back to MethodHandle for {}", readMethod, e);
+			}
+		}
+		MethodHandle handle = unreflect(readMethod).asType(MethodType.methodType(Object.class, Object.class));
+		return bean -> {
+			try {
+				return (Object) handle.invokeExact(bean);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new UndeclaredThrowableException(e);
+			}
+		};
+	}
+
+	/**
+	 * 先取值再转换, null不转换
+	 */
+	private static Function<Object, Object> convertingGetter(Function<Object, Object> getter,
+			Function<Object, Object> converter) {
+		return bean -> {
+			Object value = getter.apply(bean);
+			return value == null ? null : converter.apply(value);
+		};
+	}
+
+	/**
+	 * 转换结果是null(源属性是null或者转换不了)时不调用setter, 基本类型的属性保持原值
+	 */
+	private static BiConsumer<Object, Object> nonNullSetter(BiConsumer<Object, Object> setter) {
+		return (bean, value) -> {
+			if (value != null) {
+				setter.accept(bean, value);
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private static BiConsumer<Object, Object> setter(Method writeMethod) {
+		Class<?> parameterType = writeMethod.getParameterTypes()[0];
+		if (canSpinLambda(writeMethod, parameterType)) {
+			try {
+				MethodHandle handle = LOOKUP.unreflect(writeMethod);
+				CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept",
+						MethodType.methodType(BiConsumer.class),
+						MethodType.methodType(void.class, Object.class, Object.class),
+						handle,
+						MethodType.methodType(void.class, writeMethod.getDeclaringClass(),
+								ClassUtils.primitiveToWrapper(parameterType)));
+				return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+			} catch (Throwable e) {
+				log.debug("Fall back to MethodHandle for {}", writeMethod, e);
+			}
+		}
+		MethodHandle handle = unreflect(writeMethod)
+				.asType(MethodType.methodType(void.class, Object.class, Object.class));
+		return (bean, value) -> {
+			try {
+				handle.invokeExact(bean, value);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new UndeclaredThrowableException(e);
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Supplier<Object> constructor(Class<?> clazz) throws ReflectiveOperationException {
+		MethodHandle handle = LOOKUP.findConstructor(clazz, MethodType.methodType(void.class));
+		if (Modifier.isPublic(clazz.getModifiers()) && Modifier.isPublic(clazz.getDeclaredConstructor().getModifiers())
+				&& isVisible(clazz)) {
+			try {
+				CallSite site = LambdaMetafactory.metafactory(LOOKUP, "get",
+						MethodType.methodType(Supplier.class),
+						MethodType.methodType(Object.class),
+						handle,
+						handle.type());
+				return (Supplier<Object>) site.getTarget().invokeExact();
+			} catch (Throwable e) {
+				log.debug("Fall back to MethodHandle for constructor of {}", clazz, e);
+			}
+		}
+		MethodHandle generic = handle.asType(MethodType.methodType(Object.class));
+		return () -> {
+			try {
+				return (Object) generic.invokeExact();
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new UndeclaredThrowableException(e);
+			}
+		};
+	}
+
+	private static MethodHandle unreflect(Method method) {
+		try {
+			if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+				method.setAccessible(true);
+			}
+			return LOOKUP.unreflect(method);
+		} catch (IllegalAccessException e) {
+			throw new FatalBeanException("Could not access property method " + method, e);
+		}
+	}
+
+	/**
+	 * LambdaMetafactory生成的类挂在本类下面, 只能引用本类的ClassLoader看得到的public类型
+	 */
+	private static boolean canSpinLambda(Method method, Class<?> propertyType) {
+		Class<?> declaringClass = method.getDeclaringClass();
+		return Modifier.isPublic(method.getModifiers()) && Modifier.isPublic(declaringClass.getModifiers())
+				&& isVisible(declaringClass) && isVisible(propertyType);
+	}
+
+	static boolean isVisible(Class<?> clazz) {
+		while (clazz.isArray()) {
+			clazz = clazz.getComponentType();
+		}
+		if (clazz.isPrimitive()) {
+			return true;
+		}
+		if (!Modifier.isPublic(clazz.getModifiers())) {
+			return false;
+		}
+		try {
+			return Class.forName(clazz.getName(), false, BeanCopier.class.getClassLoader()) == clazz;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	private static boolean contains(String[] array, String value) {
+		for (int i = 0; i < array.length; i++) {
+			if (Objects.equals(array[i], value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 某个类型的无参构造函数, 找不到或者不可访问的话记下原因
+	 */
+	private static final class Instantiator {
+
+		private final Class<?> type;
+
+		private final Supplier<Object> supplier;
+
+		private final ReflectiveOperationException failure;
+
+		private Instantiator(Class<?> type) {
+			Supplier<Object> supplier = null;
+			ReflectiveOperationException failure = null;
+			if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+				failure = new InstantiationException(type.getName());
+			} else {
+				try {
+					supplier = constructor(type);
+				} catch (ReflectiveOperationException e) {
+					failure = e;
+				}
+			}
+			this.type = type;
+			this.supplier = supplier;
+			this.failure = failure;
+		}
+
+		private Object newInstance() throws InstantiationException {
+			if (supplier == null) {
+				InstantiationException e = new InstantiationException(type.getName());
+				e.initCause(failure);
+				throw e;
+			}
+			return supplier.get();
+		}
+	}
+
+	/**
+	 * 缓存的key, 忽略的属性按集合比较(不管顺序和重复), 查缓存用的那个每个线程一个
+	 */
+	private static final class Key {
+
+		private Class<?> sourceClass;
+
+		private Class<?> targetClass;
+
+		private boolean ignoreNull;
+
+		private boolean converting;
+
+		private String[] ignoreProperties;
+
+		private int hash;
+
+		private Key set(Class<?> sourceClass, Class<?> targetClass, boolean ignoreNull, boolean converting,
+				String[] ignoreProperties) {
+			this.sourceClass = sourceClass;
+			this.targetClass = targetClass;
+			this.ignoreNull = ignoreNull;
+			this.converting = converting;
+			this.ignoreProperties = ignoreProperties;
+			if (sourceClass == null) {
+				this.hash = 0;
+				return this;
+			}
+			// 每个属性名在32位里占一位, 顺序、重复都不影响
+			int mask = 0;
+			for (String property : ignoreProperties) {
+				mask |= 1 << (Objects.hashCode(property) & 31);
+			}
+			this.hash = ((sourceClass.hashCode() * 31 + targetClass.hashCode()) * 31 + mask) * 4
+					+ (converting ? 2 : 0) + (ignoreNull ? 1 : 0);
+			return this;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hash == other.hash
+					&& sourceClass == other.sourceClass
+					&& targetClass == other.targetClass
+					&& ignoreNull == other.ignoreNull
+					&& converting == other.converting
+					&& containsAll(ignoreProperties, other.ignoreProperties)
+					&& containsAll(other.ignoreProperties, ignoreProperties);
+		}
+
+		private static boolean containsAll(String[] array, String[] values) {
+			for (String value : values) {
+				if (!contains(array, value)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
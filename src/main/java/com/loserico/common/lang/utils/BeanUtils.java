@@ -1,19 +1,15 @@
 package com.loserico.common.lang.utils;
 
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.ClassUtils;
-import org.springframework.beans.FatalBeanException;
 
-import java.beans.PropertyDescriptor;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
-
-import static org.springframework.beans.BeanUtils.getPropertyDescriptor;
-import static org.springframework.beans.BeanUtils.getPropertyDescriptors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
 
 /**
  *  
@@ -29,6 +25,13 @@ import static org.springframework.beans.BeanUtils.getPropertyDescriptors;
 @Slf4j
 public class BeanUtils {
 
+	/**
+	 * copyPropertiesParallel在元素个数达到这个值时才并行, 以及并行时每块多少个元素
+	 */
+	public static final int PARALLEL_THRESHOLD = 2048;
+
+	private static final int PARALLEL_CHUNK_SIZE = 1024;
+
 	/**
 	 * 从source拷贝到target，拷贝所有，包括值为null的属性
 	 * 
@@ -52,9 +55,9 @@ public class BeanUtils {
 	public static <T> T copyProperties(Object source, Class<? super T> clazz) {
 		T target = null;
 		try {
-			target = (T) clazz.newInstance();
+			target = (T) BeanCopier.newInstance(clazz);
 			copyProperties(source, target, false);
-		} catch (InstantiationException | IllegalAccessException e) {
+		} catch (InstantiationException e) {
 			log.error("msg", e);
 		}
 		return target;
@@ -70,14 +73,8 @@ public class BeanUtils {
 	 * @param clazz
 	 * @on
 	 */
-	@SuppressWarnings("unchecked")
 	public static <T> List<T> copyProperties(List<?> sources, Class<? super T> clazz) {
-		List<T> results = new ArrayList<>();
-		for (Object source : sources) {
-			results.add((T) copyProperties(source, clazz));
-		}
-
-		return results;
+		return copyProperties(sources, clazz, (String[]) null);
 	}
 
 	/**
@@ -91,16 +88,96 @@ public class BeanUtils {
 	 * @param ignoreProperties
 	 * @on
 	 */
-	@SuppressWarnings("unchecked")
 	public static <T> List<T> copyProperties(List<?> sources, Class<? super T> clazz, String... ignoreProperties) {
-		List<T> results = new ArrayList<>();
+		ElementCopier<T> copier = new ElementCopier<>(clazz, false, ignoreProperties);
+		List<T> results = new ArrayList<>(sources.size());
 		for (Object source : sources) {
-			results.add((T) copyProperties(source, clazz, ignoreProperties));
+			results.add(copier.copy(source));
 		}
 
 		return results;
 	}
 
+	/**
+	 * 同{@link #copyProperties(List, Class, String...)}, 元素个数不少于{@link #PARALLEL_THRESHOLD}时
+	 * 分块交给ForkJoinPool.commonPool()并行拷贝, 结果顺序和sources一致
+	 *
+	 * @param sources
+	 * @param clazz
+	 * @param ignoreProperties
+	 * @return List<T>
+	 */
+	public static <T> List<T> copyPropertiesParallel(List<?> sources, Class<? super T> clazz,
+			String... ignoreProperties) {
+		return copyPropertiesParallel(sources, clazz, ForkJoinPool.commonPool(), ignoreProperties);
+	}
+
+	/**
+	 * 同{@link #copyProperties(List, Class, String...)}, 元素个数不少于{@link #PARALLEL_THRESHOLD}时
+	 * 分块交给指定的ForkJoinPool并行拷贝, 结果顺序和sources一致
+	 *
+	 * @param sources
+	 * @param clazz
+	 * @param pool
+	 * @param ignoreProperties
+	 * @return List<T>
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> List<T> copyPropertiesParallel(List<?> sources, Class<? super T> clazz, ForkJoinPool pool,
+			String... ignoreProperties) {
+		if (sources.size() < PARALLEL_THRESHOLD) {
+			return copyProperties(sources, clazz, ignoreProperties);
+		}
+		Object[] array = sources.toArray();
+		Object[] results = new Object[array.length];
+		pool.invoke(new CopyTask(new ElementCopier<>(clazz, false, ignoreProperties), array, results, 0, array.length));
+		return (List<T>) new ArrayList<>(Arrays.asList(results));
+	}
+
+	/**
+	 * 惰性拷贝, 返回的Stream每取一个元素才创建、拷贝一个对象, 适合边查边导出的大结果集, 不用先把整个列表拷贝出来
+	 *
+	 * @param sources
+	 * @param clazz
+	 * @param ignoreProperties
+	 * @return Stream<T>
+	 */
+	public static <T> Stream<T> copyPropertiesLazily(Stream<?> sources, Class<? super T> clazz,
+			String... ignoreProperties) {
+		ElementCopier<T> copier = new ElementCopier<>(clazz, false, ignoreProperties);
+		return sources.map(copier::copy);
+	}
+
+	/**
+	 * 惰性拷贝, 返回的Iterator每次next()才创建、拷贝一个对象; remove()转给sources
+	 *
+	 * @param sources
+	 * @param clazz
+	 * @param ignoreProperties
+	 * @return Iterator<T>
+	 */
+	public static <T> Iterator<T> copyPropertiesLazily(Iterator<?> sources, Class<? super T> clazz,
+			String... ignoreProperties) {
+		ElementCopier<T> copier = new ElementCopier<>(clazz, false, ignoreProperties);
+		return new Iterator<T>() {
+
+			@Override
+			public boolean hasNext() {
+				return sources.hasNext();
+			}
+
+			@Override
+			public T next() {
+				return copier.copy(sources.next());
+			}
+
+			@Override
+			public void remove() {
+				sources.remove();
+			}
+		};
+	}
+
 	/**
 	 * 从source拷贝到target，可以指定忽略哪些属性，值为null的属性也会拷贝
 	 * 
@@ -123,9 +200,9 @@ public class BeanUtils {
 	public static <T> T copyProperties(Object source, Class<? super T> clazz, String... ignoreProperties) {
 		T target = null;
 		try {
-			target = (T) clazz.newInstance();
+			target = (T) BeanCopier.newInstance(clazz);
 			copyProperties(source, target, false, ignoreProperties);
-		} catch (InstantiationException | IllegalAccessException e) {
+		} catch (InstantiationException e) {
 			log.error("msg", e);
 		}
 		return target;
@@ -144,9 +221,9 @@ public class BeanUtils {
 			String... ignoreProperties) {
 		T target = null;
 		try {
-			target = (T) clazz.newInstance();
+			target = (T) BeanCopier.newInstance(clazz);
 			copyProperties(source, target, ignoreNull, ignoreProperties);
-		} catch (InstantiationException | IllegalAccessException e) {
+		} catch (InstantiationException e) {
 			log.error("msg", e);
 		}
 		return target;
@@ -154,7 +231,8 @@ public class BeanUtils {
 
 
 	/**
-	 * 拷贝source到target，不拷贝指定的属性
+	 * 拷贝source到target，不拷贝指定的属性<br/>
+	 * 通过{@link BeanCopier}拷贝, 每种(源类型, 目标类型, ignoreNull, 忽略的属性)组合只解析一次属性
 	 *
 	 * @param source
 	 * @param target
@@ -166,38 +244,154 @@ public class BeanUtils {
 		Objects.requireNonNull(source, "Source must not be null");
 		Objects.requireNonNull(target, "Target must not be null");
 
-		Class<?> actualEditable = target.getClass();
-		PropertyDescriptor[] targetPds = getPropertyDescriptors(actualEditable);
-		List<String> ignoreList = (ignoreProperties != null ? Arrays.asList(ignoreProperties) : null);
-
-		for (PropertyDescriptor targetPd : targetPds) {
-			Method writeMethod = targetPd.getWriteMethod();
-			if (writeMethod != null && (ignoreList == null || !ignoreList.contains(targetPd.getName()))) {
-				PropertyDescriptor sourcePd = getPropertyDescriptor(source.getClass(), targetPd.getName());
-				if (sourcePd != null) {
-					Method readMethod = sourcePd.getReadMethod();
-					if (readMethod != null &&
-							ClassUtils.isAssignable(writeMethod.getParameterTypes()[0], readMethod.getReturnType())) {
-						try {
-							if (!Modifier.isPublic(readMethod.getDeclaringClass().getModifiers())) {
-								readMethod.setAccessible(true);
-							}
-							Object value = readMethod.invoke(source);
-							//如果指定了ignoreNull，则不拷贝值为null的属性
-							if (ignoreNull && value == null) {
-								continue;
-							}
-							if (!Modifier.isPublic(writeMethod.getDeclaringClass().getModifiers())) {
-								writeMethod.setAccessible(true);
-							}
-							writeMethod.invoke(target, value);
-						} catch (Throwable ex) {
-							throw new FatalBeanException(
-									"Could not copy property '" + targetPd.getName() + "' from source to target", ex);
-						}
-					}
+		BeanCopier.of(source.getClass(), target.getClass(), ignoreNull, ignoreProperties).copy(source, target);
+	}
+
+	/**
+	 * 从source拷贝到target, 值为null的属性也会拷贝; 类型不一致的属性自动转换后再拷贝, 比如Date -> LocalDateTime,
+	 * String -> enum, Long -> String, 没法转换的属性不拷贝
+	 *
+	 * @param source
+	 * @param target
+	 * @param ignoreProperties
+	 */
+	public static void convertProperties(Object source, Object target, String... ignoreProperties) {
+		convertProperties(source, target, false, ignoreProperties);
+	}
+
+	/**
+	 * 同{@link #copyProperties(Object, Object, boolean, String...)}, 类型不一致的属性自动转换后再拷贝<br/>
+	 * 每对属性用哪个转换函数在生成拷贝计划时就确定了, 和计划一起缓存在{@link BeanCopier}里
+	 *
+	 * @param source
+	 * @param target
+	 * @param ignoreNull
+	 * @param ignoreProperties
+	 */
+	public static void convertProperties(Object source, Object target, boolean ignoreNull,
+			String... ignoreProperties) {
+		Objects.requireNonNull(source, "Source must not be null");
+		Objects.requireNonNull(target, "Target must not be null");
+
+		BeanCopier.converting(source.getClass(), target.getClass(), ignoreNull, ignoreProperties).copy(source, target);
+	}
+
+	/**
+	 * 根据class创建相应对象，从source拷贝到target, 类型不一致的属性自动转换后再拷贝
+	 *
+	 * @param source
+	 * @param clazz
+	 * @param ignoreProperties
+	 * @return T
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T convertProperties(Object source, Class<? super T> clazz, String... ignoreProperties) {
+		T target = null;
+		try {
+			target = (T) BeanCopier.newInstance(clazz);
+			convertProperties(source, target, false, ignoreProperties);
+		} catch (InstantiationException e) {
+			log.error("msg", e);
+		}
+		return target;
+	}
+
+	/**
+	 * 从 sources 中取出元素挨个拷贝属性, 类型不一致的属性自动转换后再拷贝
+	 *
+	 * @param sources
+	 * @param clazz
+	 * @param ignoreProperties
+	 * @return List<T>
+	 */
+	public static <T> List<T> convertProperties(List<?> sources, Class<? super T> clazz, String... ignoreProperties) {
+		ElementCopier<T> copier = new ElementCopier<>(clazz, true, ignoreProperties);
+		List<T> results = new ArrayList<>(sources.size());
+		for (Object source : sources) {
+			results.add(copier.copy(source));
+		}
+
+		return results;
+	}
+
+	/**
+	 * 列表拷贝时拷贝单个元素, 记住上一个元素用的BeanCopier, 元素类型不变就不用再查缓存;
+	 * BeanCopier不可变, 多个线程同时用也没问题
+	 */
+	private static final class ElementCopier<T> {
+
+		private final Class<? super T> clazz;
+
+		private final boolean converting;
+
+		private final String[] ignoreProperties;
+
+		private BeanCopier last;
+
+		private ElementCopier(Class<? super T> clazz, boolean converting, String[] ignoreProperties) {
+			this.clazz = clazz;
+			this.converting = converting;
+			this.ignoreProperties = ignoreProperties;
+		}
+
+		@SuppressWarnings("unchecked")
+		private T copy(Object source) {
+			T target;
+			try {
+				target = (T) BeanCopier.newInstance(clazz);
+			} catch (InstantiationException e) {
+				log.error("msg", e);
+				return null;
+			}
+			Objects.requireNonNull(source, "Source must not be null");
+			BeanCopier copier = last;
+			if (copier == null || copier.getSourceClass() != source.getClass()) {
+				copier = converting
+						? BeanCopier.converting(source.getClass(), target.getClass(), false, ignoreProperties)
+						: BeanCopier.of(source.getClass(), target.getClass(), false, ignoreProperties);
+				last = copier;
+			}
+			copier.copy(source, target);
+			return target;
+		}
+	}
+
+	/**
+	 * 把sources[from, to)拷贝到results的对应位置, 大于一块就对半拆开
+	 */
+	private static final class CopyTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final ElementCopier<?> copier;
+
+		private final Object[] sources;
+
+		private final Object[] results;
+
+		private final int from;
+
+		private final int to;
+
+		private CopyTask(ElementCopier<?> copier, Object[] sources, Object[] results, int from, int to) {
+			this.copier = copier;
+			this.sources = sources;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= PARALLEL_CHUNK_SIZE) {
+				for (int i = from; i < to; i++) {
+					results[i] = copier.copy(sources[i]);
 				}
+				return;
 			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new CopyTask(copier, sources, results, from, middle),
+					new CopyTask(copier, sources, results, middle, to));
 		}
 	}
-}
\ No newline at end of file
+}
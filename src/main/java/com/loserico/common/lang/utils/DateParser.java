@@ -0,0 +1,173 @@
+package com.loserico.common.lang.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.text.MessageFormat;
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * 自动识别格式的日期解析会话, 会记住上一次识别成功的格式
+ * <p>
+ * 同一批数据(比如导入文件的同一列)里的日期格式基本都是一样的, 所以每次先拿上次成功的格式比对一下形状,
+ * 对上了就直接用这个格式解析, 对不上才完整地识别一遍格式; 日期、日期时间、时间三类格式各记各的
+ * <p>
+ * 非线程安全, 一个线程(或者一个导入任务)用一个; DateUtils里自动识别格式的方法用的就是每个线程各自的一个DateParser
+ * <p>
+ * Copyright: (C), 2020/5/11 15:20
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+@Slf4j
+public class DateParser {
+
+	/** 按DatePattern.Type.ordinal()存上次识别成功的格式 */
+	private final DatePattern[] lastPatterns = new DatePattern[DatePattern.Type.values().length];
+
+	private long hits;
+
+	private long misses;
+
+	/**
+	 * 解析日期或日期时间字符串, 时区为"Asia/Shanghai", Locale为CHINA
+	 *
+	 * @param source
+	 * @return Date
+	 */
+	public Date parse(String source) {
+		return parse(source, null);
+	}
+
+	/**
+	 * 按指定时区解析日期或日期时间字符串
+	 *
+	 * @param source
+	 * @param timeZone 为null时用"Asia/Shanghai"
+	 * @return Date
+	 */
+	public Date parse(String source, TimeZone timeZone) {
+		if (isBlank(source)) {
+			return null;
+		}
+		DatePattern pattern = detect(source, DatePattern.Type.DATE_TIME, DatePattern.Type.DATE);
+		if (pattern == null) {
+			log.warn("No suitable Dateformat found!");
+			return null;
+		}
+		DateTimeFormatterRegistry.CompiledPattern compiled = timeZone == null ?
+				DateTimeFormatterRegistry.patternFor(pattern.format()) :
+				DateTimeFormatterRegistry.patternFor(pattern.format(), timeZone);
+		try {
+			return compiled.parse(source);
+		} catch (ParseException e) {
+			log.error(MessageFormat.format("Parse date string:[{0}]", source));
+		}
+		return null;
+	}
+
+	public LocalDateTime toLocalDateTime(String source) {
+		if (isBlank(source)) {
+			return null;
+		}
+		DatePattern pattern = detect(source, DatePattern.Type.DATE_TIME, DatePattern.Type.DATE_TIME);
+		if (pattern != null) {
+			return LocalDateTime.parse(source, pattern.formatter());
+		}
+		log.warn("{} does not match any LocalDateTime format! ", source);
+		return null;
+	}
+
+	public LocalDate toLocalDate(String source) {
+		if (isBlank(source)) {
+			return null;
+		}
+		DatePattern pattern = detect(source, DatePattern.Type.DATE, DatePattern.Type.DATE);
+		if (pattern != null) {
+			return LocalDate.parse(source, pattern.formatter());
+		}
+		log.warn("{} does not match any LocalDate format! ", source);
+		return null;
+	}
+
+	public LocalTime toLocalTime(String source) {
+		if (isBlank(source)) {
+			return null;
+		}
+		DatePattern pattern = detect(source, DatePattern.Type.TIME, DatePattern.Type.TIME);
+		if (pattern != null) {
+			return LocalTime.parse(source, pattern.formatter());
+		}
+		return null;
+	}
+
+	/**
+	 * 识别source的格式, 只接受type1或type2类型的格式; 先比对这两类上次成功的格式, 都对不上才完整识别一遍
+	 *
+	 * @param source
+	 * @param type1
+	 * @param type2  只接受一类格式时和type1传一样的
+	 * @return 识别不出来或者类型不对返回null
+	 */
+	DatePattern detect(String source, DatePattern.Type type1, DatePattern.Type type2) {
+		DatePattern last = lastPatterns[type1.ordinal()];
+		if (last != null && last.matches(source)) {
+			hits++;
+			return last;
+		}
+		if (type2 != type1) {
+			last = lastPatterns[type2.ordinal()];
+			if (last != null && last.matches(source)) {
+				hits++;
+				return last;
+			}
+		}
+		misses++;
+		DatePattern pattern = DatePattern.classify(source);
+		if (pattern == null || (pattern.type() != type1 && pattern.type() != type2)) {
+			return null;
+		}
+		lastPatterns[pattern.type().ordinal()] = pattern;
+		return pattern;
+	}
+
+	/**
+	 * 直接用上次成功的格式解析的次数
+	 *
+	 * @return long
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * 需要完整识别一遍格式的次数
+	 *
+	 * @return long
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * 清空记住的格式和命中统计, 换一批格式不同的数据前可以调一下
+	 */
+	public void reset() {
+		for (int i = 0; i < lastPatterns.length; i++) {
+			lastPatterns[i] = null;
+		}
+		hits = 0;
+		misses = 0;
+	}
+
+	private static boolean isBlank(String s) {
+		return s == null || "".equals(s.trim());
+	}
+}
@@ -0,0 +1,302 @@
+package com.loserico.common.lang.utils;
+
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+import static com.loserico.common.lang.constants.DateConstants.*;
+
+/**
+ * DateUtils能自动识别的日期/时间格式, 以及不用正则的格式识别
+ * <p>
+ * {@link #classify(CharSequence)}从头到尾扫一遍字符串, 根据各段数字的位数、分隔符是什么直接定位到格式,
+ * 不创建Matcher, 也不用像以前那样把DateConstants里二十几个正则挨个试一遍; 能识别的格式和那些正则一一对应
+ * <p>
+ * Copyright: (C), 2020/5/11 9:30
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+public enum DatePattern {
+
+	ISO_DATE(FMT_ISO_DATE, DTF_ISO_DATE, Type.DATE),
+	ISO_DATE_1(FMT_ISO_DATE_1, DTF_ISO_DATE_1, Type.DATE),
+	ISO_DATE_2(FMT_ISO_DATE_2, DTF_ISO_DATE_2, Type.DATE),
+	ISO_DATE_3(FMT_ISO_DATE_3, DTF_ISO_DATE_3, Type.DATE),
+	DATE_EN_4(FMT_DATE_FORMAT_EN_4, DTF_DATE_FORMAT_EN_4, Type.DATE),
+	DATE_EN_5(FMT_DATE_FORMAT_EN_5, DTF_DATE_FORMAT_EN_5, Type.DATE),
+	DATE_EN_6(FMT_DATE_FORMAT_EN_6, DTF_DATE_FORMAT_EN_6, Type.DATE),
+	DATE_EN_7(FMT_DATE_FORMAT_EN_7, DTF_DATE_FORMAT_EN_7, Type.DATE),
+
+	ISO_DATETIME(FMT_ISO_DATETIME, DTF_ISO_DATETIME, Type.DATE_TIME),
+	ISO_DATETIME_1(FMT_ISO_DATETIME_1, DTF_ISO_DATETIME_1, Type.DATE_TIME),
+	ISO_DATETIME_2(FMT_ISO_DATETIME_2, DTF_ISO_DATETIME_2, Type.DATE_TIME),
+	ISO_DATETIME_3(FMT_ISO_DATETIME_3, DTF_ISO_DATETIME_3, Type.DATE_TIME),
+	ISO_DATETIME_4(FMT_ISO_DATETIME_4, DTF_ISO_DATETIME_4, Type.DATE_TIME),
+	ISO_DATETIME_5(FMT_ISO_DATETIME_5, DTF_ISO_DATETIME_5, Type.DATE_TIME),
+	ISO_DATETIME_SHORT(FMT_ISO_DATETIME_SHORT, DTF_ISO_DATETIME_SHORT, Type.DATE_TIME),
+	ISO_DATETIME_SHORT_1(FMT_ISO_DATETIME_SHORT_1, DTF_ISO_DATETIME_SHORT_1, Type.DATE_TIME),
+	ISO_DATETIME_SHORT_2(FMT_ISO_DATETIME_SHORT_2, DTF_ISO_DATETIME_SHORT_2, Type.DATE_TIME),
+	ISO_DATETIME_SHORT_3(FMT_ISO_DATETIME_SHORT_3, DTF_ISO_DATETIME_SHORT_3, Type.DATE_TIME),
+	ISO_DATETIME_SHORT_4(FMT_ISO_DATETIME_SHORT_4, DTF_ISO_DATETIME_SHORT_4, Type.DATE_TIME),
+	ISO_DATETIME_SHORT_5(FMT_ISO_DATETIME_SHORT_5, DTF_ISO_DATETIME_SHORT_5, Type.DATE_TIME),
+	ISO_DATETIME_SHORT_6(FMT_ISO_DATETIME_SHORT_6, DTF_ISO_DATETIME_SHORT_6, Type.DATE_TIME),
+	ISO_DATETIME_SHORT_7(FMT_ISO_DATETIME_SHORT_7, DTF_ISO_DATETIME_SHORT_7, Type.DATE_TIME),
+	DATETIME_FORMAT_EN(FMT_DATETIME_FORMAT_EN, DTF_DATETIME_FORMAT_EN, Type.DATE_TIME),
+	DATETIME_FORMAT_EN_1(FMT_DATETIME_FORMAT_EN_1, DTF_DATETIME_FORMAT_EN_1, Type.DATE_TIME),
+	DATETIME_FORMAT_EN_2(FMT_DATETIME_FORMAT_EN_2, DTF_DATETIME_FORMAT_EN_2, Type.DATE_TIME),
+	DATETIME_FORMAT_EN_3(FMT_DATETIME_FORMAT_EN_3, DTF_DATETIME_FORMAT_EN_3, Type.DATE_TIME),
+	DATETIME_FORMAT_EN_4(FMT_DATETIME_FORMAT_EN_4, DTF_DATETIME_FORMAT_EN_4, Type.DATE_TIME),
+
+	TIME_FORMAT(FMT_TIME_FORMAT, DTF_TIME_FORMAT, Type.TIME),
+	TIME_FORMAT1(FMT_TIME_FORMAT1, DTF_TIME_FORMAT1, Type.TIME),
+	TIME_FORMAT2(FMT_TIME_FORMAT2, DTF_TIME_FORMAT2, Type.TIME),
+	TIME_FORMAT3(FMT_TIME_FORMAT3, DTF_TIME_FORMAT3, Type.TIME);
+
+	private static final int WHITESPACE = 0;
+
+	/*
+	 * 下面几张表的下标: 日期部分按(月的位数 - 1) * 2 + (日的位数 - 1), 即 M-d, M-dd, MM-d, MM-dd;
+	 * 带时间的再乘2加上(小时的位数 - 1). null表示DateConstants里没有这种组合
+	 */
+	private static final DatePattern[] DASH_DATES = {ISO_DATE_3, ISO_DATE_2, ISO_DATE_1, ISO_DATE};
+
+	private static final DatePattern[] SLASH_DATES = {DATE_EN_7, DATE_EN_6, DATE_EN_5, DATE_EN_4};
+
+	private static final DatePattern[] DASH_DATETIMES = {
+			ISO_DATETIME_4, ISO_DATETIME_3,
+			null, ISO_DATETIME_2,
+			ISO_DATETIME_5, ISO_DATETIME_1,
+			null, ISO_DATETIME};
+
+	private static final DatePattern[] DASH_SHORT_DATETIMES = {
+			ISO_DATETIME_SHORT_7, ISO_DATETIME_SHORT_3,
+			ISO_DATETIME_SHORT_6, ISO_DATETIME_SHORT_2,
+			ISO_DATETIME_SHORT_5, ISO_DATETIME_SHORT_1,
+			ISO_DATETIME_SHORT_4, ISO_DATETIME_SHORT};
+
+	private static final DatePattern[] SLASH_DATETIMES = {
+			null, DATETIME_FORMAT_EN_4,
+			null, DATETIME_FORMAT_EN_3,
+			null, DATETIME_FORMAT_EN_2,
+			null, DATETIME_FORMAT_EN_1};
+
+	private final String format;
+
+	private final DateTimeFormatter formatter;
+
+	private final Type type;
+
+	/**
+	 * 从format推出来的形状: 1~4表示这么多位数字, WHITESPACE表示一段空白符, 其他值就是分隔符本身
+	 */
+	private final int[] layout;
+
+	DatePattern(String format, DateTimeFormatter formatter, Type type) {
+		this.format = format;
+		this.formatter = formatter;
+		this.type = type;
+		this.layout = layoutOf(format);
+	}
+
+	/**
+	 * 对应DateConstants里的FMT_xxx
+	 *
+	 * @return String
+	 */
+	public String format() {
+		return format;
+	}
+
+	/**
+	 * 对应DateConstants里的DTF_xxx
+	 *
+	 * @return DateTimeFormatter
+	 */
+	public DateTimeFormatter formatter() {
+		return formatter;
+	}
+
+	public Type type() {
+		return type;
+	}
+
+	/**
+	 * source的形状是不是正好是这个格式, 结果和classify(source) == this一样, 但只需要按这一个格式比对一遍
+	 *
+	 * @param source
+	 * @return boolean
+	 */
+	public boolean matches(CharSequence source) {
+		if (source == null) {
+			return false;
+		}
+		int n = source.length();
+		int i = 0;
+		for (int token : layout) {
+			if (token == WHITESPACE) {
+				int end = skipWhitespace(source, i, n);
+				if (end == i) {
+					return false;
+				}
+				i = end;
+			} else if (token <= 4) {
+				if (digitRun(source, i, n) != token) {
+					return false;
+				}
+				i += token;
+			} else {
+				if (i == n || source.charAt(i) != token) {
+					return false;
+				}
+				i++;
+			}
+		}
+		return i == n;
+	}
+
+	/**
+	 * 扫描一遍source, 识别出它是哪种格式; 只看形状(各段数字位数和分隔符), 不校验数值范围, 数值不合法交给真正解析的时候报错
+	 *
+	 * @param source
+	 * @return 识别不出来返回null
+	 */
+	public static DatePattern classify(CharSequence source) {
+		if (source == null) {
+			return null;
+		}
+		int n = source.length();
+		int first = digitRun(source, 0, n);
+		if (first == 0 || first == n) {
+			return null;
+		}
+		char sep = source.charAt(first);
+		if (sep == ':') {
+			return first <= 2 ? classifyTime(source, 0, n) : null;
+		}
+		if (sep != '-' && sep != '/') {
+			return null;
+		}
+
+		int i = first + 1;
+		int second = digitRun(source, i, n);
+		i += second;
+		if (second == 0 || i == n || source.charAt(i) != sep) {
+			return null;
+		}
+		i++;
+		int third = digitRun(source, i, n);
+		i += third;
+		if (third == 0) {
+			return null;
+		}
+
+		//MM/dd/yyyy HH:mm:ss, 只有这一种月份在前的格式
+		if (sep == '/' && first == 2 && second == 2 && third == 4) {
+			int timeStart = skipWhitespace(source, i, n);
+			return timeStart > i && classifyTime(source, timeStart, n) == TIME_FORMAT ? DATETIME_FORMAT_EN : null;
+		}
+		if (first != 4 || second > 2 || third > 2) {
+			return null;
+		}
+		int dateIndex = (second - 1) * 2 + (third - 1);
+		if (i == n) {
+			return sep == '-' ? DASH_DATES[dateIndex] : SLASH_DATES[dateIndex];
+		}
+
+		int timeStart = skipWhitespace(source, i, n);
+		if (timeStart == i) {
+			return null;
+		}
+		DatePattern time = classifyTime(source, timeStart, n);
+		if (time == null) {
+			return null;
+		}
+		int index = dateIndex * 2 + (time == TIME_FORMAT || time == TIME_FORMAT1 ? 1 : 0);
+		boolean withSeconds = time == TIME_FORMAT || time == TIME_FORMAT2;
+		if (sep == '-') {
+			return withSeconds ? DASH_DATETIMES[index] : DASH_SHORT_DATETIMES[index];
+		}
+		return withSeconds ? SLASH_DATETIMES[index] : null;
+	}
+
+	/**
+	 * 识别source[start, end)是不是 H:mm, HH:mm, H:mm:ss, HH:mm:ss 中的一种
+	 */
+	private static DatePattern classifyTime(CharSequence source, int start, int end) {
+		int hour = digitRun(source, start, end);
+		if (hour == 0 || hour > 2) {
+			return null;
+		}
+		int i = start + hour;
+		if (i == end || source.charAt(i) != ':' || digitRun(source, i + 1, end) != 2) {
+			return null;
+		}
+		i += 3;
+		if (i == end) {
+			return hour == 2 ? TIME_FORMAT1 : TIME_FORMAT3;
+		}
+		if (source.charAt(i) != ':' || digitRun(source, i + 1, end) != 2 || i + 3 != end) {
+			return null;
+		}
+		return hour == 2 ? TIME_FORMAT : TIME_FORMAT2;
+	}
+
+	/**
+	 * 从start开始连续的ASCII数字有几个, 超过4个的数字段不属于任何格式, 直接当成0个
+	 */
+	private static int digitRun(CharSequence source, int start, int end) {
+		int i = start;
+		while (i < end && i - start <= 4) {
+			char c = source.charAt(i);
+			if (c < '0' || c > '9') {
+				break;
+			}
+			i++;
+		}
+		int count = i - start;
+		return count > 4 ? 0 : count;
+	}
+
+	private static int[] layoutOf(String format) {
+		int[] tokens = new int[format.length()];
+		int count = 0;
+		for (int i = 0; i < format.length(); ) {
+			char c = format.charAt(i);
+			if (Character.isLetter(c)) {
+				int start = i;
+				while (i < format.length() && format.charAt(i) == c) {
+					i++;
+				}
+				tokens[count++] = i - start;
+				continue;
+			}
+			tokens[count++] = c == ' ' ? WHITESPACE : c;
+			i++;
+		}
+		return Arrays.copyOf(tokens, count);
+	}
+
+	/**
+	 * 跳过正则里\s能匹配的空白符, 返回第一个非空白字符的位置
+	 */
+	private static int skipWhitespace(CharSequence source, int start, int end) {
+		int i = start;
+		while (i < end) {
+			char c = source.charAt(i);
+			if (c != ' ' && c != '\t' && c != '\n' && c != '\u000B' && c != '\f' && c != '\r') {
+				break;
+			}
+			i++;
+		}
+		return i;
+	}
+
+	public enum Type {
+		DATE,
+		DATE_TIME,
+		TIME
+	}
+}
@@ -0,0 +1,511 @@
+package com.loserico.common.lang.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.format.SignStyle;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.loserico.common.lang.constants.DateConstants.CHINA;
+import static com.loserico.common.lang.constants.DateConstants.TIME_ZONE_LOCALE_HASH_MAP;
+import static java.time.temporal.ChronoField.AMPM_OF_DAY;
+import static java.time.temporal.ChronoField.DAY_OF_MONTH;
+import static java.time.temporal.ChronoField.HOUR_OF_DAY;
+import static java.time.temporal.ChronoField.INSTANT_SECONDS;
+import static java.time.temporal.ChronoField.MILLI_OF_SECOND;
+import static java.time.temporal.ChronoField.MINUTE_OF_HOUR;
+import static java.time.temporal.ChronoField.MONTH_OF_YEAR;
+import static java.time.temporal.ChronoField.SECOND_OF_MINUTE;
+import static java.time.temporal.ChronoField.YEAR;
+
+/**
+ * 全局共享的DateTimeFormatter缓存, 按(pattern, 时区, locale)缓存, 取代以前每个线程各存一份SimpleDateFormat的做法
+ * <p>
+ * DateTimeFormatter是不可变、线程安全的, 所以整个JVM每种组合只需要一个; 查缓存时用的是每个线程自己的一个可复用的key,
+ * 命中的话不创建任何对象。缓存最多放{@link #MAX_SIZE}个, 满了之后新的组合每次现建, 防止pattern来自外部输入时把内存撑爆
+ * <p>
+ * DateUtils里按pattern格式化、解析Date的方法沿用SimpleDateFormat的语义, 所以pattern只用到两边含义一样的字母(y M d H h K k m s S a)
+ * 时才换成DateTimeFormatter, 并且按SimpleDateFormat的习惯配置: 数字位数宽松、大小写不敏感、LENIENT(2月30号算3月1号)、
+ * pattern里没有的字段取默认值(月、日取1, 只有时间的日期取1970-01-01)、解析到哪算哪, 后面多出来的文本忽略, 毫秒按毫秒数解析;
+ * 其他pattern(u、Y、E、z、yy这些)还是用SimpleDateFormat, 每个线程从缓存的原型clone一份, 之后一直复用。
+ * 唯一的区别是1582-10-15之前的日期: SimpleDateFormat按儒略历算, DateTimeFormatter按ISO历法算
+ * <p>
+ * formatterFor()返回的DateTimeFormatter也一样分两种: 兼容的pattern返回上面那个按SimpleDateFormat习惯配置的;
+ * 其他pattern返回DateTimeFormatter.ofPattern()建的, 字母按DateTimeFormatter的含义解释、按SMART解析, 同样只建一次缓存起来
+ * <p>
+ * Copyright: (C), 2020/5/12 10:10
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+@Slf4j
+public final class DateTimeFormatterRegistry {
+
+	/**
+	 * 最多缓存多少个DateTimeFormatter
+	 */
+	public static final int MAX_SIZE = 1024;
+
+	/**
+	 * 这些字母在SimpleDateFormat和DateTimeFormatter里含义一样, 其中S要换成毫秒数
+	 */
+	private static final String COMPATIBLE_LETTERS = "yMdHhKkmsSa";
+
+	private static final ConcurrentHashMap<Key, CompiledPattern> FORMATTERS = new ConcurrentHashMap<>();
+
+	/**
+	 * 查缓存用的key, 每个线程一个, 用完就把引用清掉
+	 */
+	private static final ThreadLocal<Key> PROBES = ThreadLocal.withInitial(Key::new);
+
+	private static volatile boolean overflowWarned = false;
+
+	private DateTimeFormatterRegistry() {
+	}
+
+	/**
+	 * 时区为"Asia/Shanghai", Locale为CHINA
+	 * <p>
+	 * pattern只用到y M d H h K k m s S a时返回的formatter按SimpleDateFormat的习惯解析(宽松、LENIENT、缺的字段取默认值),
+	 * 其他pattern返回DateTimeFormatter.ofPattern(pattern, locale)的语义; 两种都会缓存, 同样的参数拿到同一个对象
+	 *
+	 * @param pattern
+	 * @return DateTimeFormatter
+	 * @throws IllegalArgumentException pattern不是合法的DateTimeFormatter pattern
+	 */
+	public static DateTimeFormatter formatterFor(String pattern) {
+		return formatterFor(pattern, CHINA.getID(), Locale.CHINA);
+	}
+
+	/**
+	 * 指定时区, 根据时区决定locale是什么
+	 *
+	 * @param pattern
+	 * @param timeZone
+	 * @return DateTimeFormatter
+	 */
+	public static DateTimeFormatter formatterFor(String pattern, TimeZone timeZone) {
+		Locale locale = TIME_ZONE_LOCALE_HASH_MAP.get(timeZone);
+		if (locale == null) {
+			locale = Locale.getDefault(Locale.Category.FORMAT);
+		}
+		return formatterFor(pattern, timeZone.getID(), locale);
+	}
+
+	/**
+	 * 指定locale, 时区用系统默认时区
+	 *
+	 * @param pattern
+	 * @param locale
+	 * @return DateTimeFormatter
+	 */
+	public static DateTimeFormatter formatterFor(String pattern, Locale locale) {
+		return formatterFor(pattern, TimeZone.getDefault().getID(), locale);
+	}
+
+	/**
+	 * 显示指定时区和locale
+	 *
+	 * @param pattern
+	 * @param timeZone
+	 * @param locale
+	 * @return DateTimeFormatter
+	 */
+	public static DateTimeFormatter formatterFor(String pattern, TimeZone timeZone, Locale locale) {
+		return formatterFor(pattern, timeZone.getID(), locale);
+	}
+
+	/**
+	 * 显示指定时区和locale
+	 *
+	 * @param pattern
+	 * @param zoneId
+	 * @param locale
+	 * @return DateTimeFormatter
+	 */
+	public static DateTimeFormatter formatterFor(String pattern, ZoneId zoneId, Locale locale) {
+		return formatterFor(pattern, zoneId.getId(), locale);
+	}
+
+	/**
+	 * 用formatter把source解析成Date; 只有日期的按当天0点算, 只有时间的按1970-01-01算, 和SimpleDateFormat一样,
+	 * source里没带时区的用formatter的时区, 夏令时切换重叠的那一段按标准时间(靠后的那个时刻)算; source后面多出来的文本忽略
+	 *
+	 * @param source
+	 * @param formatter 必须带时区
+	 * @return Date
+	 * @throws java.time.format.DateTimeParseException 解析失败
+	 */
+	public static Date parseDate(CharSequence source, DateTimeFormatter formatter) {
+		TemporalAccessor parsed = formatter.parse(source, new ParsePosition(0));
+		LocalDate date = parsed.query(TemporalQueries.localDate());
+		LocalTime time = parsed.query(TemporalQueries.localTime());
+		//source里带了offset的, 或者直接就是个时刻的, 不用再按时区换算
+		if ((date == null || parsed.query(TemporalQueries.offset()) != null) && parsed.isSupported(INSTANT_SECONDS)) {
+			return Date.from(Instant.from(parsed));
+		}
+		ZoneId zone = parsed.query(TemporalQueries.zone());
+		LocalDateTime dateTime = (date == null ? LocalDate.of(1970, 1, 1) : date)
+				.atTime(time == null ? LocalTime.MIDNIGHT : time);
+		return Date.from(ZonedDateTime.ofLocal(dateTime, zone == null ? formatter.getZone() : zone, null)
+				.withLaterOffsetAtOverlap()
+				.toInstant());
+	}
+
+	/**
+	 * 当前缓存了多少个DateTimeFormatter
+	 *
+	 * @return int
+	 */
+	public static int size() {
+		return FORMATTERS.size();
+	}
+
+	public static void clear() {
+		FORMATTERS.clear();
+	}
+
+	/**
+	 * 按SimpleDateFormat语义格式化、解析Date用的, 时区为"Asia/Shanghai", Locale为CHINA
+	 *
+	 * @param pattern
+	 * @return CompiledPattern
+	 */
+	static CompiledPattern patternFor(String pattern) {
+		return patternFor(pattern, CHINA.getID(), Locale.CHINA);
+	}
+
+	/**
+	 * 按SimpleDateFormat语义格式化、解析Date用的, 根据时区决定locale是什么
+	 *
+	 * @param pattern
+	 * @param timeZone
+	 * @return CompiledPattern
+	 */
+	static CompiledPattern patternFor(String pattern, TimeZone timeZone) {
+		Locale locale = TIME_ZONE_LOCALE_HASH_MAP.get(timeZone);
+		if (locale == null) {
+			locale = Locale.getDefault(Locale.Category.FORMAT);
+		}
+		return patternFor(pattern, timeZone.getID(), locale);
+	}
+
+	/**
+	 * 按SimpleDateFormat语义格式化、解析Date用的, 时区用系统默认时区
+	 *
+	 * @param pattern
+	 * @param locale
+	 * @return CompiledPattern
+	 */
+	static CompiledPattern patternFor(String pattern, Locale locale) {
+		return patternFor(pattern, TimeZone.getDefault().getID(), locale);
+	}
+
+	/**
+	 * 按SimpleDateFormat语义格式化、解析Date用的, 显示指定时区和locale
+	 *
+	 * @param pattern
+	 * @param timeZone
+	 * @param locale
+	 * @return CompiledPattern
+	 */
+	static CompiledPattern patternFor(String pattern, TimeZone timeZone, Locale locale) {
+		return patternFor(pattern, timeZone.getID(), locale);
+	}
+
+	/**
+	 * pattern和SimpleDateFormat兼容时返回按SimpleDateFormat习惯配置的那个, 否则返回按DateTimeFormatter自己的语义建的那个
+	 */
+	private static DateTimeFormatter formatterFor(String pattern, String zoneId, Locale locale) {
+		return patternFor(pattern, zoneId, locale).formatter();
+	}
+
+	private static CompiledPattern patternFor(String pattern, String zoneId, Locale locale) {
+		Objects.requireNonNull(pattern);
+		Objects.requireNonNull(locale);
+		Key probe = PROBES.get().set(pattern, zoneId, locale);
+		CompiledPattern compiled = FORMATTERS.get(probe);
+		probe.set(null, null, null);
+		if (compiled != null) {
+			return compiled;
+		}
+
+		compiled = compile(pattern, ZoneId.of(zoneId, ZoneId.SHORT_IDS), locale);
+		if (FORMATTERS.size() < MAX_SIZE) {
+			CompiledPattern previous = FORMATTERS.putIfAbsent(new Key().set(pattern, zoneId, locale), compiled);
+			return previous == null ? compiled : previous;
+		}
+		if (!overflowWarned) {
+			overflowWarned = true;
+			log.warn("DateTimeFormatter cache is full ({} entries), new patterns will not be cached", MAX_SIZE);
+		}
+		return compiled;
+	}
+
+	/**
+	 * 扫一遍pattern, 引号里的是原样输出的文本不用管; 只要有一个字母两边含义不一样就退回SimpleDateFormat
+	 *
+	 * @throws IllegalArgumentException pattern不合法, 和new SimpleDateFormat(pattern)一样
+	 */
+	private static CompiledPattern compile(String pattern, ZoneId zone, Locale locale) {
+		DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder()
+				.parseCaseInsensitive()
+				.parseLenient();
+		StringBuilder pending = new StringBuilder();
+		String letters = "";
+		boolean quoted = false;
+		int i = 0;
+		while (i < pattern.length()) {
+			char c = pattern.charAt(i);
+			if (c == '\'') {
+				quoted = !quoted;
+				pending.append(c);
+				i++;
+				continue;
+			}
+			if (quoted || !isPatternLetter(c)) {
+				//[ ] { } #在DateTimeFormatter里有特殊含义
+				if (!quoted && "[]{}#".indexOf(c) >= 0) {
+					return fallback(pattern, zone, locale);
+				}
+				pending.append(c);
+				i++;
+				continue;
+			}
+			int count = 1;
+			while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+				count++;
+			}
+			if (!compatible(c, count)) {
+				return fallback(pattern, zone, locale);
+			}
+			if (letters.indexOf(c) < 0) {
+				letters += c;
+			}
+			if (c == 'S') {
+				//SimpleDateFormat的S是毫秒数, 不是秒的小数部分: .12是12毫秒
+				if (pending.length() > 0) {
+					builder.appendPattern(pending.toString());
+					pending.setLength(0);
+				}
+				builder.appendValue(MILLI_OF_SECOND, count, Math.max(count, 3), SignStyle.NOT_NEGATIVE);
+			} else {
+				pending.append(pattern, i, i + count);
+			}
+			i += count;
+		}
+		if (quoted) {
+			return fallback(pattern, zone, locale);
+		}
+		if (pending.length() > 0) {
+			builder.appendPattern(pending.toString());
+		}
+
+		//SimpleDateFormat没解析到的字段取默认值
+		boolean hasHour = letters.indexOf('H') >= 0 || letters.indexOf('k') >= 0
+				|| letters.indexOf('h') >= 0 || letters.indexOf('K') >= 0;
+		if (letters.indexOf('y') < 0) {
+			builder.parseDefaulting(YEAR, 1970);
+		}
+		if (letters.indexOf('M') < 0) {
+			builder.parseDefaulting(MONTH_OF_YEAR, 1);
+		}
+		if (letters.indexOf('d') < 0) {
+			builder.parseDefaulting(DAY_OF_MONTH, 1);
+		}
+		if (!hasHour) {
+			builder.parseDefaulting(HOUR_OF_DAY, 0);
+		} else if ((letters.indexOf('h') >= 0 || letters.indexOf('K') >= 0) && letters.indexOf('a') < 0) {
+			builder.parseDefaulting(AMPM_OF_DAY, 0);
+		}
+		if (letters.indexOf('m') < 0) {
+			builder.parseDefaulting(MINUTE_OF_HOUR, 0);
+		}
+		if (letters.indexOf('s') < 0) {
+			builder.parseDefaulting(SECOND_OF_MINUTE, 0);
+		}
+		DateTimeFormatter formatter = builder.toFormatter(locale)
+				.withResolverStyle(ResolverStyle.LENIENT)
+				.withZone(zone);
+		return new CompiledPattern(formatter);
+	}
+
+	/**
+	 * 只认两边含义、位数规则都一样的写法: yy是两位年份, 两边取世纪的规则不一样; a、文本月份以外的字母最多两个
+	 */
+	private static boolean compatible(char letter, int count) {
+		if (COMPATIBLE_LETTERS.indexOf(letter) < 0) {
+			return false;
+		}
+		switch (letter) {
+			case 'y':
+				return count >= 3;
+			case 'M':
+				return count <= 4;
+			case 'S':
+				return count <= 3;
+			case 'a':
+				return count == 1;
+			default:
+				return count <= 2;
+		}
+	}
+
+	/**
+	 * 两边都只把ASCII字母当模式字母, "yyyy年MM月dd日"里的汉字是原样输出的文本
+	 */
+	private static boolean isPatternLetter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	private static CompiledPattern fallback(String pattern, ZoneId zone, Locale locale) {
+		SimpleDateFormat prototype = new SimpleDateFormat(pattern, locale);
+		prototype.setTimeZone(TimeZone.getTimeZone(zone));
+		return new CompiledPattern(pattern, zone, locale, prototype);
+	}
+
+	/**
+	 * 一个(pattern, 时区, locale)编译好的结果: 和SimpleDateFormat兼容的用DateTimeFormatter, 否则用SimpleDateFormat
+	 */
+	static final class CompiledPattern {
+
+		/**
+		 * 和SimpleDateFormat兼容的pattern才有
+		 */
+		private final DateTimeFormatter formatter;
+
+		private final String pattern;
+
+		private final ZoneId zone;
+
+		private final Locale locale;
+
+		/**
+		 * 不兼容的pattern, 每个线程从原型clone一份, clone比重新解析pattern快得多
+		 */
+		private final ThreadLocal<SimpleDateFormat> simpleDateFormats;
+
+		/**
+		 * 不兼容的pattern按DateTimeFormatter自己的语义建的formatter, 第一次formatterFor()时才建
+		 */
+		private volatile DateTimeFormatter ofPattern;
+
+		private CompiledPattern(DateTimeFormatter formatter) {
+			this.formatter = formatter;
+			this.pattern = null;
+			this.zone = null;
+			this.locale = null;
+			this.simpleDateFormats = null;
+		}
+
+		private CompiledPattern(String pattern, ZoneId zone, Locale locale, SimpleDateFormat prototype) {
+			this.formatter = null;
+			this.pattern = pattern;
+			this.zone = zone;
+			this.locale = locale;
+			this.simpleDateFormats = ThreadLocal.withInitial(() -> (SimpleDateFormat) prototype.clone());
+		}
+
+		/**
+		 * @return DateTimeFormatter
+		 * @throws IllegalArgumentException pattern不是合法的DateTimeFormatter pattern
+		 */
+		DateTimeFormatter formatter() {
+			if (formatter != null) {
+				return formatter;
+			}
+			DateTimeFormatter strict = ofPattern;
+			if (strict == null) {
+				strict = DateTimeFormatter.ofPattern(pattern, locale).withZone(zone);
+				ofPattern = strict;
+			}
+			return strict;
+		}
+
+		String format(Date date) {
+			if (formatter != null) {
+				return formatter.format(date.toInstant());
+			}
+			return simpleDateFormats.get().format(date);
+		}
+
+		/**
+		 * @param source
+		 * @return Date
+		 * @throws ParseException 解析失败, 和SimpleDateFormat.parse()一样
+		 */
+		Date parse(String source) throws ParseException {
+			if (formatter == null) {
+				return simpleDateFormats.get().parse(source);
+			}
+			try {
+				return parseDate(source, formatter);
+			} catch (DateTimeException e) {
+				throw new ParseException(e.getMessage(), 0);
+			}
+		}
+	}
+
+	/**
+	 * 缓存的key, 放进缓存的key创建后就不再改; 查缓存用的那个每个线程一个, 每次查之前set一下
+	 */
+	private static final class Key {
+
+		private String pattern;
+
+		private String zoneId;
+
+		private Locale locale;
+
+		private int hash;
+
+		private Key set(String pattern, String zoneId, Locale locale) {
+			this.pattern = pattern;
+			this.zoneId = zoneId;
+			this.locale = locale;
+			this.hash = pattern == null ? 0 : (pattern.hashCode() * 31 + zoneId.hashCode()) * 31 + locale.hashCode();
+			return this;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hash == other.hash
+					&& pattern.equals(other.pattern)
+					&& zoneId.equals(other.zoneId)
+					&& locale.equals(other.locale);
+		}
+	}
+}
@@ -1,78 +1,31 @@
 package com.loserico.common.lang.utils;
 
-import com.loserico.common.lang.constants.DateConstants;
+import com.loserico.common.lang.clock.CoarseClock;
+import com.loserico.common.lang.utils.DateTimeFormatterRegistry.CompiledPattern;
 import lombok.extern.slf4j.Slf4j;
 
 import java.text.MessageFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.Clock;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
-import static com.loserico.common.lang.constants.DateConstants.DTF_DATETIME_FORMAT_EN;
-import static com.loserico.common.lang.constants.DateConstants.DTF_DATETIME_FORMAT_EN_1;
-import static com.loserico.common.lang.constants.DateConstants.DTF_DATETIME_FORMAT_EN_2;
-import static com.loserico.common.lang.constants.DateConstants.DTF_DATETIME_FORMAT_EN_3;
-import static com.loserico.common.lang.constants.DateConstants.DTF_DATETIME_FORMAT_EN_4;
-import static com.loserico.common.lang.constants.DateConstants.DTF_DATETIME_FORMAT_EN_5;
-import static com.loserico.common.lang.constants.DateConstants.DTF_DATETIME_FORMAT_EN_6;
-import static com.loserico.common.lang.constants.DateConstants.DTF_DATETIME_FORMAT_EN_7;
-import static com.loserico.common.lang.constants.DateConstants.DTF_DATETIME_FORMAT_EN_8;
-import static com.loserico.common.lang.constants.DateConstants.DTF_DATETIME_FORMAT_EN_9;
-import static com.loserico.common.lang.constants.DateConstants.DTF_ISO_DATE;
 import static com.loserico.common.lang.constants.DateConstants.DTF_ISO_DATETIME;
-import static com.loserico.common.lang.constants.DateConstants.DTF_ISO_DATETIME_1;
-import static com.loserico.common.lang.constants.DateConstants.DTF_ISO_DATETIME_2;
-import static com.loserico.common.lang.constants.DateConstants.DTF_ISO_DATETIME_3;
-import static com.loserico.common.lang.constants.DateConstants.DTF_ISO_DATETIME_4;
-import static com.loserico.common.lang.constants.DateConstants.DTF_ISO_DATETIME_5;
-import static com.loserico.common.lang.constants.DateConstants.DTF_ISO_DATETIME_SHORT;
-import static com.loserico.common.lang.constants.DateConstants.DTF_ISO_DATETIME_SHORT_1;
-import static com.loserico.common.lang.constants.DateConstants.DTF_ISO_DATETIME_SHORT_2;
-import static com.loserico.common.lang.constants.DateConstants.DTF_ISO_DATETIME_SHORT_3;
-import static com.loserico.common.lang.constants.DateConstants.DTF_ISO_DATETIME_SHORT_4;
-import static com.loserico.common.lang.constants.DateConstants.DTF_ISO_DATETIME_SHORT_5;
-import static com.loserico.common.lang.constants.DateConstants.DTF_ISO_DATETIME_SHORT_6;
-import static com.loserico.common.lang.constants.DateConstants.DTF_ISO_DATETIME_SHORT_7;
 import static com.loserico.common.lang.constants.DateConstants.FMT_ISO_DATETIME;
 import static com.loserico.common.lang.constants.DateConstants.FMT_ISO_DATETIME_1;
-import static com.loserico.common.lang.constants.DateConstants.PT_DATETIME_FORMAT_EN;
-import static com.loserico.common.lang.constants.DateConstants.PT_DATETIME_FORMAT_EN_1;
-import static com.loserico.common.lang.constants.DateConstants.PT_DATETIME_FORMAT_EN_2;
-import static com.loserico.common.lang.constants.DateConstants.PT_DATETIME_FORMAT_EN_3;
-import static com.loserico.common.lang.constants.DateConstants.PT_DATETIME_FORMAT_EN_4;
-import static com.loserico.common.lang.constants.DateConstants.PT_DATETIME_FORMAT_EN_5;
-import static com.loserico.common.lang.constants.DateConstants.PT_DATETIME_FORMAT_EN_6;
-import static com.loserico.common.lang.constants.DateConstants.PT_DATETIME_FORMAT_EN_7;
-import static com.loserico.common.lang.constants.DateConstants.PT_DATETIME_FORMAT_EN_8;
-import static com.loserico.common.lang.constants.DateConstants.PT_DATETIME_FORMAT_EN_9;
-import static com.loserico.common.lang.constants.DateConstants.PT_ISO_DATE;
-import static com.loserico.common.lang.constants.DateConstants.PT_ISO_DATETIME;
-import static com.loserico.common.lang.constants.DateConstants.PT_ISO_DATETIME_1;
-import static com.loserico.common.lang.constants.DateConstants.PT_ISO_DATETIME_2;
-import static com.loserico.common.lang.constants.DateConstants.PT_ISO_DATETIME_3;
-import static com.loserico.common.lang.constants.DateConstants.PT_ISO_DATETIME_4;
-import static com.loserico.common.lang.constants.DateConstants.PT_ISO_DATETIME_5;
-import static com.loserico.common.lang.constants.DateConstants.PT_ISO_DATETIME_SHORT;
-import static com.loserico.common.lang.constants.DateConstants.PT_ISO_DATETIME_SHORT_1;
-import static com.loserico.common.lang.constants.DateConstants.PT_ISO_DATETIME_SHORT_2;
-import static com.loserico.common.lang.constants.DateConstants.PT_ISO_DATETIME_SHORT_3;
-import static com.loserico.common.lang.constants.DateConstants.PT_ISO_DATETIME_SHORT_4;
-import static com.loserico.common.lang.constants.DateConstants.PT_ISO_DATETIME_SHORT_5;
-import static com.loserico.common.lang.constants.DateConstants.PT_ISO_DATETIME_SHORT_6;
-import static com.loserico.common.lang.constants.DateConstants.PT_ISO_DATETIME_SHORT_7;
 import static com.loserico.common.lang.constants.DateConstants.ZONE_ID_SHANG_HAI;
-import static com.loserico.common.lang.utils.SimpleDateFormatHolder.getSimpleDateFormat;
+import static com.loserico.common.lang.utils.DateTimeFormatterRegistry.patternFor;
 import static java.time.format.DateTimeFormatter.ofPattern;
 
 /**
@@ -89,9 +42,100 @@ import static java.time.format.DateTimeFormatter.ofPattern;
 @Slf4j
 public final class DateUtils {
 	
+	/**
+	 * 自动识别格式的parse/toLocalXxx方法用的, 每个线程记住自己上次识别成功的格式
+	 */
+	private static final ThreadLocal<DateParser> DATE_PARSERS = ThreadLocal.withInitial(DateParser::new);
+	
+	/**
+	 * parseEpochMillis解析失败时返回的值
+	 */
+	public static final long INVALID_EPOCH_MILLIS = Long.MIN_VALUE;
+	
+	/**
+	 * 0000-01-01到1970-01-01的天数
+	 */
+	private static final long DAYS_0000_TO_1970 = 719528L;
+	
+	/**
+	 * 批量转换时每块多少个元素, 以及数组至少多长才值得并行
+	 */
+	private static final int BULK_CHUNK_SIZE = 4096;
+	
+	private static final int BULK_PARALLEL_THRESHOLD = 4 * BULK_CHUNK_SIZE;
+	
+	/**
+	 * format(LocalDateTime)最近一次格式化的结果
+	 */
+	private static volatile SecondCache secondCache = new SecondCache(Long.MIN_VALUE, new char[19]);
+	
+	/**
+	 * now(), today(), currentTimeMillis()用的时钟
+	 */
+	private static volatile Clock clock = Clock.systemDefaultZone();
+	
 	private DateUtils() {
 	}
 	
+	/**
+	 * 当前线程自动识别日期格式用的DateParser, 可以看看命中上次格式的统计;
+	 * 批量解析一批格式一致的数据时, 更建议自己new一个DateParser用
+	 *
+	 * @return DateParser
+	 */
+	public static DateParser dateParser() {
+		return DATE_PARSERS.get();
+	}
+	
+	/**
+	 * 替换now(), today(), currentTimeMillis()用的时钟, 比如换成CoarseClock.systemDefault()减少读系统时钟的开销,
+	 * 或者测试时换成Clock.fixed()
+	 *
+	 * @param clock
+	 */
+	public static void setClock(Clock clock) {
+		DateUtils.clock = Objects.requireNonNull(clock);
+	}
+	
+	public static Clock clock() {
+		return clock;
+	}
+	
+	/**
+	 * 按当前时钟取当前毫秒数, 时钟是CoarseClock时只是读一个volatile long
+	 *
+	 * @return long
+	 */
+	public static long currentTimeMillis() {
+		return clock.millis();
+	}
+	
+	/**
+	 * 按当前时钟取当前时间; 时钟是CoarseClock时返回缓存的当前秒, 毫秒部分是0
+	 *
+	 * @return LocalDateTime
+	 */
+	public static LocalDateTime now() {
+		Clock current = clock;
+		if (current instanceof CoarseClock) {
+			return ((CoarseClock) current).localDateTime();
+		}
+		return LocalDateTime.now(current);
+	}
+	
+	/**
+	 * 按当前时钟取今天; 时钟是CoarseClock时返回缓存的当天
+	 *
+	 * @return LocalDate
+	 */
+	public static LocalDate today() {
+		Clock current = clock;
+		if (current instanceof CoarseClock) {
+			return ((CoarseClock) current).localDate();
+		}
+		return LocalDate.now(current);
+	}
+	
 	/**
 	 * 采用"yyyy-MM-dd HH:mm:ss"格式化Date对象, 时区为"Asia/Shanghai", Locale为CHINA
 	 *
@@ -102,8 +146,7 @@ public final class DateUtils {
 		if (date == null) {
 			return null;
 		}
-		SimpleDateFormat simpleDateFormat = SimpleDateFormatHolder.formatFor(FMT_ISO_DATETIME);
-		return simpleDateFormat.format(date);
+		return patternFor(FMT_ISO_DATETIME).format(date);
 	}
 	
 	/**
@@ -116,8 +159,7 @@ public final class DateUtils {
 		if (date == null) {
 			return null;
 		}
-		SimpleDateFormat simpleDateFormat = SimpleDateFormatHolder.formatFor(format);
-		return simpleDateFormat.format(date);
+		return patternFor(format).format(date);
 	}
 	
 	/**
@@ -131,8 +173,7 @@ public final class DateUtils {
 		if (date == null) {
 			return null;
 		}
-		SimpleDateFormat simpleDateFormat = SimpleDateFormatHolder.formatFor(format, locale);
-		return simpleDateFormat.format(date);
+		return patternFor(format, locale).format(date);
 	}
 	
 	/**
@@ -146,8 +187,7 @@ public final class DateUtils {
 		if (date == null) {
 			return null;
 		}
-		SimpleDateFormat simpleDateFormat = SimpleDateFormatHolder.formatFor(FMT_ISO_DATETIME, timeZone);
-		return simpleDateFormat.format(date);
+		return patternFor(FMT_ISO_DATETIME, timeZone).format(date);
 	}
 	
 	/**
@@ -162,8 +202,7 @@ public final class DateUtils {
 		if (date == null) {
 			return null;
 		}
-		SimpleDateFormat simpleDateFormat = SimpleDateFormatHolder.formatFor(format, timeZone);
-		return simpleDateFormat.format(date);
+		return patternFor(format, timeZone).format(date);
 	}
 	
 	/**
@@ -178,8 +217,7 @@ public final class DateUtils {
 		if (date == null) {
 			return null;
 		}
-		SimpleDateFormat simpleDateFormat = SimpleDateFormatHolder.formatFor(FMT_ISO_DATETIME, timeZone, locale);
-		return simpleDateFormat.format(date);
+		return patternFor(FMT_ISO_DATETIME, timeZone, locale).format(date);
 	}
 	
 	/**
@@ -196,8 +234,7 @@ public final class DateUtils {
 			return null;
 		}
 		Objects.requireNonNull(format);
-		SimpleDateFormat simpleDateFormat = SimpleDateFormatHolder.formatFor(format, timeZone, locale);
-		return simpleDateFormat.format(date);
+		return patternFor(format, timeZone, locale).format(date);
 	}
 	
 	/**
@@ -225,11 +262,16 @@ public final class DateUtils {
 		if (localDateTime == null) {
 			return null;
 		}
+		if (FMT_ISO_DATETIME.equals(format)) {
+			return format(localDateTime);
+		}
 		return localDateTime.format(ofPattern(format));
 	}
 	
 	/**
 	 * 用ISO 日期格式化 yyyy-MM-dd HH:mm:ss
+	 * <p>
+	 * 缓存了最近一次格式化的结果, 同一秒内再格式化直接拷贝, 同一天内只重写时分秒, 适合打时间戳这种高频调用
 	 *
 	 * @param localDateTime
 	 * @return String
@@ -238,7 +280,37 @@ public final class DateUtils {
 		if (localDateTime == null) {
 			return null;
 		}
-		return localDateTime.format(ofPattern(FMT_ISO_DATETIME));
+		int year = localDateTime.getYear();
+		//yyyy是公元纪年, 0年是公元前1年, 交给DateTimeFormatter
+		if (year < 1 || year > 9999) {
+			return localDateTime.format(DTF_ISO_DATETIME);
+		}
+		long epochDay = localDateTime.toLocalDate().toEpochDay();
+		long second = epochDay * 86400L + localDateTime.toLocalTime().toSecondOfDay();
+		SecondCache cache = secondCache;
+		if (cache.second == second) {
+			return new String(cache.chars);
+		}
+		
+		char[] chars = new char[19];
+		if (Math.floorDiv(cache.second, 86400L) == epochDay) {
+			System.arraycopy(cache.chars, 0, chars, 0, 11);
+		} else {
+			writeDigits(chars, 0, year, 4);
+			chars[4] = '-';
+			writeDigits(chars, 5, localDateTime.getMonthValue(), 2);
+			chars[7] = '-';
+			writeDigits(chars, 8, localDateTime.getDayOfMonth(), 2);
+			chars[10] = ' ';
+		}
+		writeDigits(chars, 11, localDateTime.getHour(), 2);
+		chars[13] = ':';
+		writeDigits(chars, 14, localDateTime.getMinute(), 2);
+		chars[16] = ':';
+		writeDigits(chars, 17, localDateTime.getSecond(), 2);
+		//SecondCache的字段都是final的, 发布出去后chars不会再改, 其他线程拿到的一定是写完整的
+		secondCache = new SecondCache(second, chars);
+		return new String(chars);
 	}
 	
 	// -----------------------------------------------------------------------------------------------------------------
@@ -250,22 +322,7 @@ public final class DateUtils {
 	 * @return Date
 	 */
 	public static Date parse(String source) {
-		if (isBlank(source)) {
-			return null;
-		}
-		
-		SimpleDateFormat simpleDateFormat = getSimpleDateFormat(source);
-		
-		if (simpleDateFormat == null) {
-			log.warn("No suitable Dateformat found!");
-			return null;
-		}
-		try {
-			return simpleDateFormat.parse(source);
-		} catch (ParseException e) {
-			log.error(MessageFormat.format("Parse date string:[{0}]", source));
-		}
-		return null;
+		return DATE_PARSERS.get().parse(source);
 	}
 	
 	/**
@@ -280,9 +337,9 @@ public final class DateUtils {
 			return null;
 		}
 		Objects.requireNonNull(format);
-		SimpleDateFormat simpleDateFormat = SimpleDateFormatHolder.formatFor(format);
+		CompiledPattern pattern = patternFor(format);
 		try {
-			return simpleDateFormat.parse(source);
+			return pattern.parse(source);
 		} catch (ParseException e) {
 			log.error(MessageFormat.format("Parse date string:[{0}]", source));
 		}
@@ -297,23 +354,7 @@ public final class DateUtils {
 	 * @return Date
 	 */
 	public static Date parse(String source, TimeZone timezone) {
-		if (isBlank(source)) {
-			return null;
-		}
-		
-		SimpleDateFormat simpleDateFormat = getSimpleDateFormat(source, timezone);
-		
-		if (simpleDateFormat == null) {
-			log.info("No suitable Dateformat found!");
-			return null;
-		}
-		
-		try {
-			return simpleDateFormat.parse(source);
-		} catch (ParseException e) {
-			log.error(MessageFormat.format("Parse date string:[{0}]", source));
-		}
-		return null;
+		return DATE_PARSERS.get().parse(source, timezone);
 	}
 	
 	/**
@@ -328,9 +369,9 @@ public final class DateUtils {
 			return null;
 		}
 		Objects.requireNonNull(format);
-		SimpleDateFormat simpleDateFormat = SimpleDateFormatHolder.formatFor(format, timezone);
+		CompiledPattern pattern = patternFor(format, timezone);
 		try {
-			return simpleDateFormat.parse(source);
+			return pattern.parse(source);
 		} catch (ParseException e) {
 			log.error(MessageFormat.format("Parse date string:[{0}] with timezone:[{1}] and format:[{2}] failed!",
 					source, timezone,
@@ -351,9 +392,9 @@ public final class DateUtils {
 			return null;
 		}
 		Objects.requireNonNull(format);
-		SimpleDateFormat simpleDateFormat = SimpleDateFormatHolder.formatFor(format, locale);
+		CompiledPattern pattern = patternFor(format, locale);
 		try {
-			return simpleDateFormat.parse(source);
+			return pattern.parse(source);
 		} catch (ParseException e) {
 			log.error(MessageFormat.format("Parse date string:[{0}] with locale:[{1}] and format:[{2}] failed!",
 					source, locale,
@@ -374,9 +415,9 @@ public final class DateUtils {
 		if (isBlank(source)) {
 			return null;
 		}
-		SimpleDateFormat simpleDateFormat = SimpleDateFormatHolder.formatFor(FMT_ISO_DATETIME_1, timezone, locale);
+		CompiledPattern pattern = patternFor(FMT_ISO_DATETIME_1, timezone, locale);
 		try {
-			return simpleDateFormat.parse(source);
+			return pattern.parse(source);
 		} catch (ParseException e) {
 			log.error(MessageFormat.format(
 					"Parse date string:[{0}] with timezone:[{1}], locale:[{2}] and format:[{3}] failed!",
@@ -396,9 +437,9 @@ public final class DateUtils {
 		if (isBlank(source)) {
 			return null;
 		}
-		SimpleDateFormat simpleDateFormat = SimpleDateFormatHolder.formatFor(format, timezone, locale);
+		CompiledPattern pattern = patternFor(format, timezone, locale);
 		try {
-			return simpleDateFormat.parse(source);
+			return pattern.parse(source);
 		} catch (ParseException e) {
 			log.error(MessageFormat.format(
 					"Parse date string:[{0}] with timezone:[{1}], locale:[{2}] and format:[{3}] failed!",
@@ -421,6 +462,12 @@ public final class DateUtils {
 		if (isBlank(source)) {
 			return null;
 		}
+		if (source.length() == 10 || isIsoDateTime(source)) {
+			String converted = convertIsoDateTime(source, srcTimezone, destTimezone);
+			if (converted != null) {
+				return converted;
+			}
+		}
 		Date srcDate = parse(source, srcTimezone);
 		return format(srcDate, destTimezone);
 	}
@@ -440,6 +487,12 @@ public final class DateUtils {
 			return null;
 		}
 		Objects.requireNonNull(format);
+		if (FMT_ISO_DATETIME.equals(format) && isIsoDateTime(source)) {
+			String converted = convertIsoDateTime(source, srcTimezone, destTimezone);
+			if (converted != null) {
+				return converted;
+			}
+		}
 		Date srcDate = parse(source, format, srcTimezone);
 		return format(srcDate, format, destTimezone);
 	}
@@ -462,19 +515,48 @@ public final class DateUtils {
 		}
 		Objects.requireNonNull(srcFormat);
 		Objects.requireNonNull(destFormat);
+		if (FMT_ISO_DATETIME.equals(srcFormat) && FMT_ISO_DATETIME.equals(destFormat) && isIsoDateTime(source)) {
+			String converted = convertIsoDateTime(source, srcTimezone, destTimezone);
+			if (converted != null) {
+				return converted;
+			}
+		}
 		Date srcDate = parse(source, srcFormat, srcTimezone);
 		return format(srcDate, destFormat, destTimezone);
 	}
 	
+	/**
+	 * source是不是yyyy-MM-dd HH:mm:ss的形状(只看长度和日期、时间之间的空格, 其余的交给localMillis校验)
+	 */
+	private static boolean isIsoDateTime(String source) {
+		return source.length() == 19 && source.charAt(10) == ' ';
+	}
+	
+	/**
+	 * yyyy-MM-dd或yyyy-MM-dd HH:mm:ss在两个时区之间换算, 按字符位置解析、用ZoneConverter做加减法再直接拼成
+	 * yyyy-MM-dd HH:mm:ss, 不经过DateTimeFormatter; 解析不了返回null, 由调用方走原来的解析、格式化
+	 */
+	private static String convertIsoDateTime(String source, TimeZone srcTimezone, TimeZone destTimezone) {
+		long localMillis = localMillis(source, 0, source.length());
+		if (localMillis == INVALID_EPOCH_MILLIS) {
+			return null;
+		}
+		// 和原来用SimpleDateFormat解析时一样, 夏令时结束时重复的那段时间按标准时间算
+		long epochMillis = ZoneConverter.of(srcTimezone.toZoneId()).toEpochMillisLaterOffset(localMillis);
+		long destLocalMillis = ZoneConverter.of(destTimezone.toZoneId()).toLocalMillis(epochMillis);
+		return format(toLocalDateTime0(destLocalMillis));
+	}
+	
 	// -----------------------------------------------------------------------------------------------------------------
 	
+	/**
+	 * 日期字符串转LocalDate, 自动识别yyyy-MM-dd, yyyy/M/d等格式
+	 *
+	 * @param source
+	 * @return LocalDate
+	 */
 	public static LocalDate toLocalDate(String source) {
-		Objects.nonNull(source);
-		if (PT_ISO_DATE.matcher(source).matches()) {
-			return LocalDate.parse(source, DTF_ISO_DATE);
-		}
-		log.warn("{} does not match any LocalDate format! ", source);
-		return null;
+		return DATE_PARSERS.get().toLocalDate(source);
 	}
 	
 	/**
@@ -570,107 +652,7 @@ public final class DateUtils {
 	 * @return LocalDateTime
 	 */
 	public static LocalDateTime toLocalDateTime(String source) {
-		if (isBlank(source)) {
-			return null;
-		}
-		
-		if (matches(PT_ISO_DATETIME, source)) {
-			return LocalDateTime.parse(source, DTF_ISO_DATETIME);
-		}
-		
-		if (matches(PT_ISO_DATETIME_1, source)) {
-			return LocalDateTime.parse(source, DTF_ISO_DATETIME_1);
-		}
-		
-		if (matches(PT_ISO_DATETIME_2, source)) {
-			return LocalDateTime.parse(source, DTF_ISO_DATETIME_2);
-		}
-		
-		if (matches(PT_ISO_DATETIME_3, source)) {
-			return LocalDateTime.parse(source, DTF_ISO_DATETIME_3);
-		}
-		
-		if (matches(PT_ISO_DATETIME_4, source)) {
-			return LocalDateTime.parse(source, DTF_ISO_DATETIME_4);
-		}
-		
-		if (matches(PT_ISO_DATETIME_5, source)) {
-			return LocalDateTime.parse(source, DTF_ISO_DATETIME_5);
-		}
-		
-		if (PT_ISO_DATETIME_SHORT.matcher(source).matches()) {
-			return LocalDateTime.parse(source, DTF_ISO_DATETIME_SHORT);
-		}
-		
-		if (PT_ISO_DATETIME_SHORT_1.matcher(source).matches()) {
-			return LocalDateTime.parse(source, DTF_ISO_DATETIME_SHORT_1);
-		}
-		
-		if (PT_ISO_DATETIME_SHORT_2.matcher(source).matches()) {
-			return LocalDateTime.parse(source, DTF_ISO_DATETIME_SHORT_2);
-		}
-		
-		if (PT_ISO_DATETIME_SHORT_3.matcher(source).matches()) {
-			return LocalDateTime.parse(source, DTF_ISO_DATETIME_SHORT_3);
-		}
-		
-		if (PT_ISO_DATETIME_SHORT_4.matcher(source).matches()) {
-			return LocalDateTime.parse(source, DTF_ISO_DATETIME_SHORT_4);
-		}
-		
-		if (PT_ISO_DATETIME_SHORT_5.matcher(source).matches()) {
-			return LocalDateTime.parse(source, DTF_ISO_DATETIME_SHORT_5);
-		}
-		
-		if (PT_ISO_DATETIME_SHORT_6.matcher(source).matches()) {
-			return LocalDateTime.parse(source, DTF_ISO_DATETIME_SHORT_6);
-		}
-		
-		if (PT_ISO_DATETIME_SHORT_7.matcher(source).matches()) {
-			return LocalDateTime.parse(source, DTF_ISO_DATETIME_SHORT_7);
-		}
-		
-		if (PT_DATETIME_FORMAT_EN.matcher(source).matches()) {
-			return LocalDateTime.parse(source, DTF_DATETIME_FORMAT_EN);
-		}
-		
-		if (PT_DATETIME_FORMAT_EN_1.matcher(source).matches()) {
-			return LocalDateTime.parse(source, DTF_DATETIME_FORMAT_EN_1);
-		}
-		
-		if (PT_DATETIME_FORMAT_EN_2.matcher(source).matches()) {
-			return LocalDateTime.parse(source, DTF_DATETIME_FORMAT_EN_2);
-		}
-		
-		if (PT_DATETIME_FORMAT_EN_3.matcher(source).matches()) {
-			return LocalDateTime.parse(source, DTF_DATETIME_FORMAT_EN_3);
-		}
-		
-		if (PT_DATETIME_FORMAT_EN_4.matcher(source).matches()) {
-			return LocalDateTime.parse(source, DTF_DATETIME_FORMAT_EN_4);
-		}
-		
-		if (PT_DATETIME_FORMAT_EN_5.matcher(source).matches()) {
-			return LocalDateTime.parse(source, DTF_DATETIME_FORMAT_EN_5);
-		}
-		
-		if (PT_DATETIME_FORMAT_EN_6.matcher(source).matches()) {
-			return LocalDateTime.parse(source, DTF_DATETIME_FORMAT_EN_6);
-		}
-		
-		if (PT_DATETIME_FORMAT_EN_7.matcher(source).matches()) {
-			return LocalDateTime.parse(source, DTF_DATETIME_FORMAT_EN_7);
-		}
-		
-		if (PT_DATETIME_FORMAT_EN_8.matcher(source).matches()) {
-			return LocalDateTime.parse(source, DTF_DATETIME_FORMAT_EN_8);
-		}
-		
-		if (matches(PT_DATETIME_FORMAT_EN_9, source)) {
-			return LocalDateTime.parse(source, DTF_DATETIME_FORMAT_EN_9);
-		}
-		log.warn("{} does not match any LocalDateTime format! ", source);
-		return null;
+		return DATE_PARSERS.get().toLocalDateTime(source);
 	}
 	
 	/**
@@ -771,25 +753,14 @@ public final class DateUtils {
 		return LocalDateTime.ofInstant(Instant.ofEpochMilli(milis), ZONE_ID_SHANG_HAI);
 	}
 	
+	/**
+	 * 时间字符串转LocalTime, 自动识别HH:mm:ss, HH:mm, H:mm:ss, H:mm
+	 *
+	 * @param source
+	 * @return LocalTime
+	 */
 	public static LocalTime toLocalTime(String source) {
-		if (isBlank(source)) {
-			return null;
-		}
-		
-		if (matches(DateConstants.PT_TIME_FORMAT, source)) {
-			return LocalTime.parse(source, DateConstants.DTF_TIME_FORMAT);
-		}
-		if (matches(DateConstants.PT_TIME_FORMAT1, source)) {
-			return LocalTime.parse(source, DateConstants.DTF_TIME_FORMAT1);
-		}
-		if (matches(DateConstants.PT_TIME_FORMAT2, source)) {
-			return LocalTime.parse(source, DateConstants.DTF_TIME_FORMAT2);
-		}
-		if (matches(DateConstants.PT_TIME_FORMAT3, source)) {
-			return LocalTime.parse(source, DateConstants.DTF_TIME_FORMAT3);
-		}
-		
-		return null;
+		return DATE_PARSERS.get().toLocalTime(source);
 	}
 	
 	/**
@@ -916,15 +887,421 @@ public final class DateUtils {
 		return localDateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
 	}
 	
+	// -----------------------------------------------------------------------------------------------------------------
+	
+	/**
+	 * 整列毫秒数转LocalDateTime, 偏移量查{@link ZoneConverter}预先算好的切换表, 不用每个元素都查一遍时区规则、
+	 * 建一个Instant; 元素是{@link #INVALID_EPOCH_MILLIS}的对应位置是null
+	 *
+	 * @param epochMillis
+	 * @param zoneId
+	 * @return LocalDateTime[]
+	 */
+	public static LocalDateTime[] toLocalDateTime(long[] epochMillis, ZoneId zoneId) {
+		return toLocalDateTime(epochMillis, zoneId, false);
+	}
+	
+	/**
+	 * 同{@link #toLocalDateTime(long[], ZoneId)}, parallel为true并且数组足够大时分块并行转换
+	 *
+	 * @param epochMillis
+	 * @param zoneId
+	 * @param parallel
+	 * @return LocalDateTime[]
+	 */
+	public static LocalDateTime[] toLocalDateTime(long[] epochMillis, ZoneId zoneId, boolean parallel) {
+		Objects.requireNonNull(epochMillis);
+		Objects.requireNonNull(zoneId);
+		ZoneConverter converter = ZoneConverter.of(zoneId);
+		LocalDateTime[] result = new LocalDateTime[epochMillis.length];
+		forEachChunk(epochMillis.length, parallel, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				if (epochMillis[i] != INVALID_EPOCH_MILLIS) {
+					result[i] = toLocalDateTime0(converter.toLocalMillis(epochMillis[i]));
+				}
+			}
+		});
+		return result;
+	}
+	
+	/**
+	 * 整列LocalDateTime转毫秒数, null元素对应{@link #INVALID_EPOCH_MILLIS}; 夏令时切换附近的时间和
+	 * localDateTime.atZone(zoneId)的处理方式一样
+	 *
+	 * @param localDateTimes
+	 * @param zoneId
+	 * @return long[]
+	 */
+	public static long[] toEpochMilis(LocalDateTime[] localDateTimes, ZoneId zoneId) {
+		return toEpochMilis(localDateTimes, zoneId, false);
+	}
+	
+	/**
+	 * 同{@link #toEpochMilis(LocalDateTime[], ZoneId)}, parallel为true并且数组足够大时分块并行转换
+	 *
+	 * @param localDateTimes
+	 * @param zoneId
+	 * @param parallel
+	 * @return long[]
+	 */
+	public static long[] toEpochMilis(LocalDateTime[] localDateTimes, ZoneId zoneId, boolean parallel) {
+		Objects.requireNonNull(localDateTimes);
+		Objects.requireNonNull(zoneId);
+		ZoneConverter converter = ZoneConverter.of(zoneId);
+		long[] result = new long[localDateTimes.length];
+		forEachChunk(localDateTimes.length, parallel, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				LocalDateTime localDateTime = localDateTimes[i];
+				result[i] = localDateTime == null ? INVALID_EPOCH_MILLIS :
+						converter.toEpochMillis(localDateTime.toEpochSecond(ZoneOffset.UTC) * 1000L
+								+ localDateTime.getNano() / 1_000_000);
+			}
+		});
+		return result;
+	}
+	
+	/**
+	 * 整列Date转毫秒数, null元素对应{@link #INVALID_EPOCH_MILLIS}
+	 *
+	 * @param dates
+	 * @return long[]
+	 */
+	public static long[] toEpochMilis(Date[] dates) {
+		Objects.requireNonNull(dates);
+		long[] result = new long[dates.length];
+		for (int i = 0; i < dates.length; i++) {
+			result[i] = dates[i] == null ? INVALID_EPOCH_MILLIS : dates[i].getTime();
+		}
+		return result;
+	}
+	
+	/**
+	 * 整列日期字符串转毫秒数, 格式自动识别, 同一列的格式只识别一次(对不上了才重新识别);
+	 * yyyy-MM-dd[ HH:mm:ss[.SSS]]直接按字符位置解析, 其他格式用识别出来的DateTimeFormatter解析成LocalDateTime。
+	 * 空白或者解析不了的元素对应{@link #INVALID_EPOCH_MILLIS}
+	 *
+	 * @param sources
+	 * @param zoneId
+	 * @return long[]
+	 */
+	public static long[] toEpochMilis(String[] sources, ZoneId zoneId) {
+		return toEpochMilis(sources, zoneId, false);
+	}
+	
+	/**
+	 * 同{@link #toEpochMilis(String[], ZoneId)}, parallel为true并且数组足够大时分块并行转换, 每块各自识别格式
+	 *
+	 * @param sources
+	 * @param zoneId
+	 * @param parallel
+	 * @return long[]
+	 */
+	public static long[] toEpochMilis(String[] sources, ZoneId zoneId, boolean parallel) {
+		Objects.requireNonNull(sources);
+		Objects.requireNonNull(zoneId);
+		ZoneConverter converter = ZoneConverter.of(zoneId);
+		long[] result = new long[sources.length];
+		forEachChunk(sources.length, parallel, (from, to) -> {
+			DateParser parser = new DateParser();
+			for (int i = from; i < to; i++) {
+				long localMillis = localMillis(sources[i], parser);
+				result[i] = localMillis == INVALID_EPOCH_MILLIS ? INVALID_EPOCH_MILLIS : converter.toEpochMillis(localMillis);
+			}
+		});
+		return result;
+	}
+	
+	/**
+	 * 把source当成UTC时间解析成毫秒数, 先按固定位置解析, 不行再用parser识别出来的格式
+	 */
+	private static long localMillis(String source, DateParser parser) {
+		if (isBlank(source)) {
+			return INVALID_EPOCH_MILLIS;
+		}
+		long localMillis = localMillis(source, 0, source.length());
+		if (localMillis != INVALID_EPOCH_MILLIS) {
+			return localMillis;
+		}
+		DatePattern pattern = parser.detect(source, DatePattern.Type.DATE_TIME, DatePattern.Type.DATE);
+		if (pattern == null) {
+			return INVALID_EPOCH_MILLIS;
+		}
+		try {
+			LocalDateTime localDateTime = pattern.type() == DatePattern.Type.DATE ?
+					LocalDate.parse(source, pattern.formatter()).atStartOfDay() :
+					LocalDateTime.parse(source, pattern.formatter());
+			return localDateTime.toEpochSecond(ZoneOffset.UTC) * 1000L + localDateTime.getNano() / 1_000_000;
+		} catch (DateTimeParseException e) {
+			log.debug("Parse date string:[{}] failed", source);
+			return INVALID_EPOCH_MILLIS;
+		}
+	}
+	
+	/**
+	 * 把[0, length)分块交给task, parallel为true并且length不小于{@link #BULK_PARALLEL_THRESHOLD}时各块并行执行
+	 */
+	private static void forEachChunk(int length, boolean parallel, RangeTask task) {
+		if (!parallel || length < BULK_PARALLEL_THRESHOLD) {
+			task.run(0, length);
+			return;
+		}
+		int chunks = (length + BULK_CHUNK_SIZE - 1) / BULK_CHUNK_SIZE;
+		IntStream.range(0, chunks).parallel()
+				.forEach(chunk -> task.run(chunk * BULK_CHUNK_SIZE, Math.min(length, (chunk + 1) * BULK_CHUNK_SIZE)));
+	}
+	
+	// -----------------------------------------------------------------------------------------------------------------
+	
+	/**
+	 * 按固定的字符位置解析 yyyy-MM-dd, yyyy-MM-dd HH:mm:ss, yyyy-MM-dd HH:mm:ss.SSS 三种格式(日期和时间之间是空格或者T),
+	 * 转成指定时区偏移下的毫秒数; 不经过DateTimeFormatter, 不产生任何对象, 格式或者数值不对返回{@link #INVALID_EPOCH_MILLIS}
+	 *
+	 * @param source
+	 * @param offset 时区偏移, 比如ZoneOffset.ofHours(8)
+	 * @return long
+	 */
+	public static long parseEpochMillis(CharSequence source, ZoneOffset offset) {
+		if (source == null) {
+			return INVALID_EPOCH_MILLIS;
+		}
+		return parseEpochMillis(source, 0, source.length(), offset);
+	}
+	
+	/**
+	 * 解析source[start, end)这一段, 用来直接从一行日志里解析时间戳而不用先substring
+	 *
+	 * @param source
+	 * @param start
+	 * @param end
+	 * @param offset 时区偏移
+	 * @return long 失败返回{@link #INVALID_EPOCH_MILLIS}
+	 */
+	public static long parseEpochMillis(CharSequence source, int start, int end, ZoneOffset offset) {
+		return toEpochMillis(localMillis(source, start, end), offset);
+	}
+	
+	/**
+	 * 直接从ASCII字节里解析, 比如从网络或者文件读进来的buffer, 省掉转成String这一步
+	 *
+	 * @param source
+	 * @param offset     起始位置
+	 * @param length     长度
+	 * @param zoneOffset 时区偏移
+	 * @return long 失败返回{@link #INVALID_EPOCH_MILLIS}
+	 */
+	public static long parseEpochMillis(byte[] source, int offset, int length, ZoneOffset zoneOffset) {
+		return toEpochMillis(localMillis(source, offset, length), zoneOffset);
+	}
+	
+	/**
+	 * 和parseEpochMillis支持的格式一样, 只在成功时创建返回的LocalDateTime
+	 *
+	 * @param source
+	 * @return LocalDateTime 失败返回null
+	 */
+	public static LocalDateTime parseLocalDateTime(CharSequence source) {
+		if (source == null) {
+			return null;
+		}
+		return parseLocalDateTime(source, 0, source.length());
+	}
+	
+	/**
+	 * 解析source[start, end)这一段
+	 *
+	 * @param source
+	 * @param start
+	 * @param end
+	 * @return LocalDateTime 失败返回null
+	 */
+	public static LocalDateTime parseLocalDateTime(CharSequence source, int start, int end) {
+		return toLocalDateTime0(localMillis(source, start, end));
+	}
+	
+	/**
+	 * 从ASCII字节里解析
+	 *
+	 * @param source
+	 * @param offset
+	 * @param length
+	 * @return LocalDateTime 失败返回null
+	 */
+	public static LocalDateTime parseLocalDateTime(byte[] source, int offset, int length) {
+		return toLocalDateTime0(localMillis(source, offset, length));
+	}
+	
+	private static long toEpochMillis(long localMillis, ZoneOffset offset) {
+		if (localMillis == INVALID_EPOCH_MILLIS) {
+			return INVALID_EPOCH_MILLIS;
+		}
+		return localMillis - offset.getTotalSeconds() * 1000L;
+	}
+	
+	private static LocalDateTime toLocalDateTime0(long localMillis) {
+		if (localMillis == INVALID_EPOCH_MILLIS) {
+			return null;
+		}
+		long seconds = Math.floorDiv(localMillis, 1000L);
+		int nanos = (int) Math.floorMod(localMillis, 1000L) * 1_000_000;
+		return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+	}
+	
+	/**
+	 * 把source[start, end)当成UTC时间解析成毫秒数
+	 */
+	private static long localMillis(CharSequence source, int start, int end) {
+		int length = end - start;
+		if (source == null || (length != 10 && length != 19 && length != 23)
+				|| source.charAt(start + 4) != '-' || source.charAt(start + 7) != '-') {
+			return INVALID_EPOCH_MILLIS;
+		}
+		int year = digits(source, start, 4);
+		int month = digits(source, start + 5, 2);
+		int day = digits(source, start + 8, 2);
+		int hour = 0;
+		int minute = 0;
+		int second = 0;
+		int millis = 0;
+		if (length > 10) {
+			char separator = source.charAt(start + 10);
+			if ((separator != ' ' && separator != 'T')
+					|| source.charAt(start + 13) != ':' || source.charAt(start + 16) != ':') {
+				return INVALID_EPOCH_MILLIS;
+			}
+			hour = digits(source, start + 11, 2);
+			minute = digits(source, start + 14, 2);
+			second = digits(source, start + 17, 2);
+			if (length == 23) {
+				if (source.charAt(start + 19) != '.') {
+					return INVALID_EPOCH_MILLIS;
+				}
+				millis = digits(source, start + 20, 3);
+			}
+		}
+		return localMillis(year, month, day, hour, minute, second, millis);
+	}
+	
+	/**
+	 * 把source[offset, offset + length)当成UTC时间解析成毫秒数
+	 */
+	private static long localMillis(byte[] source, int offset, int length) {
+		if (source == null || (length != 10 && length != 19 && length != 23)
+				|| source[offset + 4] != '-' || source[offset + 7] != '-') {
+			return INVALID_EPOCH_MILLIS;
+		}
+		int year = digits(source, offset, 4);
+		int month = digits(source, offset + 5, 2);
+		int day = digits(source, offset + 8, 2);
+		int hour = 0;
+		int minute = 0;
+		int second = 0;
+		int millis = 0;
+		if (length > 10) {
+			byte separator = source[offset + 10];
+			if ((separator != ' ' && separator != 'T')
+					|| source[offset + 13] != ':' || source[offset + 16] != ':') {
+				return INVALID_EPOCH_MILLIS;
+			}
+			hour = digits(source, offset + 11, 2);
+			minute = digits(source, offset + 14, 2);
+			second = digits(source, offset + 17, 2);
+			if (length == 23) {
+				if (source[offset + 19] != '.') {
+					return INVALID_EPOCH_MILLIS;
+				}
+				millis = digits(source, offset + 20, 3);
+			}
+		}
+		return localMillis(year, month, day, hour, minute, second, millis);
+	}
+	
+	/**
+	 * 校验各字段并算出UTC下的毫秒数, 字段是负数表示那一段不全是数字; 日期的算法和LocalDate.toEpochDay一样
+	 */
+	private static long localMillis(int year, int month, int day, int hour, int minute, int second, int millis) {
+		if (year < 0 || month < 1 || month > 12 || day < 1 || hour < 0 || hour > 23
+				|| minute < 0 || minute > 59 || second < 0 || second > 59 || millis < 0) {
+			return INVALID_EPOCH_MILLIS;
+		}
+		boolean leap = (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+		int monthLength = month == 2 ? (leap ? 29 : 28)
+				: (month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31);
+		if (day > monthLength) {
+			return INVALID_EPOCH_MILLIS;
+		}
+		long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+		total += (367 * month - 362) / 12 + day - 1;
+		if (month > 2) {
+			total -= leap ? 1 : 2;
+		}
+		long epochDay = total - DAYS_0000_TO_1970;
+		return ((epochDay * 24 + hour) * 60 + minute) * 60_000L + second * 1000L + millis;
+	}
+	
+	/**
+	 * source[offset, offset + count)这几位数字的值, 有非数字返回-1
+	 */
+	private static int digits(CharSequence source, int offset, int count) {
+		int value = 0;
+		for (int i = offset, end = offset + count; i < end; i++) {
+			int digit = source.charAt(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+	
+	private static int digits(byte[] source, int offset, int count) {
+		int value = 0;
+		for (int i = offset, end = offset + count; i < end; i++) {
+			int digit = source[i] - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+	
 	private static boolean isBlank(String s) {
 		return s == null || "".equals(s.trim());
 	}
 	
-	private static boolean matches(Pattern pattern, String source) {
-		if (isBlank(source)) {
-			return false;
+	/**
+	 * 把value按固定的width位十进制写到chars的offset位置, 位数不够前面补0
+	 */
+	private static void writeDigits(char[] chars, int offset, int value, int width) {
+		for (int i = offset + width - 1; i >= offset; i--) {
+			chars[i] = (char) ('0' + value % 10);
+			value /= 10;
 		}
-		Matcher matcher = pattern.matcher(source);
-		return matcher.matches();
 	}
+	
+	/**
+	 * 某一秒格式化成yyyy-MM-dd HH:mm:ss的结果, 不可变
+	 */
+	private static final class SecondCache {
+		
+		/** 按UTC算的1970-01-01 00:00:00以来的秒数, 只用来判断是不是同一秒、同一天 */
+		private final long second;
+		
+		private final char[] chars;
+		
+		private SecondCache(long second, char[] chars) {
+			this.second = second;
+			this.chars = chars;
+		}
+	}
+	
+	/**
+	 * 批量转换时处理[from, to)这一段
+	 */
+	@FunctionalInterface
+	private interface RangeTask {
+		
+		void run(int from, int to);
+	}
+
 }
@@ -5,8 +5,10 @@ import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
 import java.util.EnumSet;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
@@ -14,6 +16,16 @@ public final class EnumUtils {
 
 	private static final Logger logger = LoggerFactory.getLogger(EnumUtils.class);
 
+	/**
+	 * 每个enum类一份索引, 第一次用到时建好, 之后按ordinal、name、属性值查都不用再遍历常量、反射取属性
+	 */
+	private static final ClassValue<EnumIndex> INDEXES = new ClassValue<EnumIndex>() {
+		@Override
+		protected EnumIndex computeValue(Class<?> type) {
+			return new EnumIndex(type);
+		}
+	};
+
 	/**
 	 * 根据value的类型自动解析成对应的enum
 	 * 
@@ -186,6 +198,33 @@ public final class EnumUtils {
 		return null;
 	}
 
+	/**
+	 * 根据ordinal获取enum实例, 和toEnum(clazz, Integer)一样, 但不装箱
+	 *
+	 * @param clazz
+	 * @param ordinal
+	 * @return T 越界返回null
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T extends Enum<T>> T toEnum(Class<T> clazz, int ordinal) {
+		Enum<?>[] constants = index(clazz).constants;
+		return ordinal >= 0 && ordinal < constants.length ? (T) constants[ordinal] : null;
+	}
+
+	/**
+	 * 根据enum的某个int(Integer)属性获取enum实例, 比如TO_AUDIT(101, "待审核")按101查, 适合从数据库里读出来的状态码;
+	 * 和toEnum(clazz, Integer, property)一样, 但不装箱, 查的是预先建好的表: 码值比较连续的直接数组下标, 否则开放寻址
+	 *
+	 * @param clazz
+	 * @param code
+	 * @param property
+	 * @return T 查不到返回null
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T extends Enum<T>> T toEnum(Class<T> clazz, int code, String property) {
+		return (T) index(clazz).property(clazz, property).integers.get(code);
+	}
+
 	/**
 	 * 根据ordinal获取enum实例
 	 * 
@@ -193,42 +232,19 @@ public final class EnumUtils {
 	 * @param ordinal
 	 * @return
 	 */
-	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@SuppressWarnings("rawtypes")
 	private static Enum lookup(Class clazz, Integer ordinal) {
-		EnumSet enumSet = EnumSet.allOf(clazz);
-		if (ordinal < enumSet.size()) {
-			Iterator<Enum> iterator = enumSet.iterator();
-			for (int i = 0; i < ordinal; i++) {
-				iterator.next();
-			}
-			Enum rval = iterator.next();
-			if (rval.ordinal() == ordinal.intValue()) {
-				return (Enum)rval;
-			}
-		}
-		return null;
+		Enum[] constants = index(clazz).constants;
+		int value = ordinal.intValue();
+		return value >= 0 && value < constants.length ? constants[value] : null;
 	}
 
 	@SuppressWarnings("rawtypes")
 	private static Enum lookup(Class clazz, Integer value, String property) {
-		Enum[] consts = (Enum[]) clazz.getEnumConstants();
-		for (int i = 0; i < consts.length; i++) {
-			Enum enumObj = consts[i];
-			Integer propertyValue = null;
-			try {
-				Object objValue = ReflectionUtils.getField(enumObj, clazz, property);
-				if (objValue instanceof Integer) {
-					propertyValue = (Integer) objValue;
-				}
-			} catch (ClassCastException e) {
-				logger.warn(e.getMessage());
-				break;
-			}
-			if (propertyValue != null && value != null && value.intValue() == propertyValue.intValue()) {
-				return (Enum)enumObj;
-			}
+		if (value == null) {
+			return null;
 		}
-		return null;
+		return index(clazz).property(clazz, property).integers.get(value.intValue());
 	}
 
 	/**
@@ -238,35 +254,19 @@ public final class EnumUtils {
 	 * @param ordinal
 	 * @return
 	 */
-	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@SuppressWarnings("rawtypes")
 	private static Enum lookup(Class clazz, Long ordinal) {
-		EnumSet enumSet = EnumSet.allOf(clazz);
-		if (ordinal < enumSet.size()) {
-			Iterator<Enum> iterator = enumSet.iterator();
-			for (int i = 0; i < ordinal; i++) {
-				iterator.next();
-			}
-			Enum rval = iterator.next();
-			assert (rval.ordinal() == ordinal.intValue());
-			return (Enum)rval;
-		}
-		return null;
+		Enum[] constants = index(clazz).constants;
+		long value = ordinal.longValue();
+		return value >= 0 && value < constants.length ? constants[(int) value] : null;
 	}
 
 	@SuppressWarnings("rawtypes")
 	private static Enum lookup(Class clazz, Long value, String property) {
-		Enum[] consts = (Enum[]) clazz.getEnumConstants();
-		for (int i = 0; i < consts.length; i++) {
-			Enum enumObj = consts[i];
-			Object objValue = ReflectionUtils.getField(enumObj, clazz, property);
-			if (objValue instanceof Long) {
-				Long propertyValue = (Long) objValue;
-				if (value != null && propertyValue != null && value.intValue() == propertyValue.intValue()) {
-					return (Enum) enumObj;
-				}
-			}
+		if (value == null) {
+			return null;
 		}
-		return null;
+		return index(clazz).property(clazz, property).longs.get(value.intValue());
 	}
 
 	/**
@@ -276,36 +276,23 @@ public final class EnumUtils {
 	 * @param ordinal
 	 * @return
 	 */
-	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@SuppressWarnings("rawtypes")
 	private static Enum lookup(Class clazz, BigInteger ordinal) {
-		EnumSet enumSet = EnumSet.allOf(clazz);
-		if (ordinal.intValue() < enumSet.size()) {
-			Iterator<Enum> iterator = enumSet.iterator();
-			for (int i = 0; i < ordinal.intValue(); i++) {
-				iterator.next();
-			}
-			Enum rval = iterator.next();
-			assert (rval.ordinal() == ordinal.intValue());
-			return (Enum)rval;
+		Enum[] constants = index(clazz).constants;
+		int value = ordinal.intValue();
+		if (value < constants.length) {
+			return value >= 0 ? constants[value] : null;
 		}
 		throw new IllegalArgumentException(
-				"Invalid value " + ordinal + " for " + clazz.getName() + ", must be < " + enumSet.size());
+				"Invalid value " + ordinal + " for " + clazz.getName() + ", must be < " + constants.length);
 	}
 
 	@SuppressWarnings("rawtypes")
 	private static Enum lookup(Class clazz, BigInteger value, String property) {
-		Enum[] consts = (Enum[]) clazz.getEnumConstants();
-		for (int i = 0; i < consts.length; i++) {
-			Enum enumObj = consts[i];
-			Object objValue = ReflectionUtils.getField(enumObj, clazz, property);
-			if (objValue instanceof BigInteger) {
-				BigInteger propertyValue = (BigInteger)objValue ;
-				if (value != null && propertyValue != null && value.intValue() == propertyValue.intValue()) {
-					return (Enum)enumObj;
-				}
-			}
+		if (value == null) {
+			return null;
 		}
-		return null;
+		return index(clazz).property(clazz, property).bigIntegers.get(value.intValue());
 	}
 
 	/**
@@ -320,16 +307,11 @@ public final class EnumUtils {
 		if (isBlank(name)) {
 			throw new IllegalArgumentException("Invalid value " + name + " for " + clazz.getName() + ", must be" + EnumSet.allOf(clazz));
 		}
-		try {
-			return Enum.valueOf(clazz, name.toUpperCase());
-		} catch (IllegalArgumentException e) {
-			logger.trace("msg", e);
-			return null;
-		}
+		return index(clazz).names.get(name.toUpperCase());
 	}
 
 	/**
-	 * 根据指定的enum类中的属性去获取enum实例
+	 * 根据指定的enum类中的属性去获取enum实例, 大小写不敏感, 忽略前后空白
 	 * 
 	 * @param clazz
 	 * @param value
@@ -342,24 +324,246 @@ public final class EnumUtils {
 			throw new IllegalArgumentException(
 					"Invalid value " + value + " for " + clazz.getName() + ", must be" + EnumSet.allOf(clazz));
 		}
-		Enum[] consts = (Enum[]) clazz.getEnumConstants();
-		for (int i = 0; i < consts.length; i++) {
-			Enum enumObj = consts[i];
-			String propertyValue = null;
-			try {
-				Object objValue = ReflectionUtils.getField(enumObj, clazz, property);
-				if (objValue instanceof String) {
-					propertyValue = (String) objValue;
+		return index(clazz).property(clazz, property).strings.get(value.trim());
+	}
+
+	private static EnumIndex index(Class<?> clazz) {
+		if (!clazz.isEnum()) {
+			throw new IllegalArgumentException(clazz.getName() + " is not an enum");
+		}
+		return INDEXES.get(clazz);
+	}
+
+	/**
+	 * 一个enum类的索引: 按ordinal排好的常量、name -> 常量, 以及按需建好的各个属性的索引
+	 */
+	@SuppressWarnings("rawtypes")
+	private static final class EnumIndex {
+
+		private final Enum[] constants;
+
+		private final Map<String, Enum> names;
+
+		private final ConcurrentHashMap<String, PropertyIndex> properties = new ConcurrentHashMap<>();
+
+		private EnumIndex(Class<?> clazz) {
+			this.constants = (Enum[]) clazz.getEnumConstants();
+			this.names = new HashMap<>(constants.length * 2);
+			for (Enum constant : constants) {
+				names.put(constant.name(), constant);
+			}
+		}
+
+		private PropertyIndex property(Class<?> clazz, String property) {
+			if (property == null) {
+				// 不缓存, 和原来一样交给ReflectionUtils.getField报错
+				return new PropertyIndex(clazz, constants, null);
+			}
+			PropertyIndex index = properties.get(property);
+			if (index == null) {
+				index = new PropertyIndex(clazz, constants, property);
+				PropertyIndex previous = properties.putIfAbsent(property, index);
+				if (previous != null) {
+					index = previous;
+				}
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * 某个属性值 -> enum常量, 属性值按类型分开放, 和原来逐个比较时一样: 整数类的属性按intValue()比较,
+	 * 字符串属性大小写不敏感、忽略前后空白; 多个常量属性值相同时取ordinal最小的
+	 */
+	@SuppressWarnings("rawtypes")
+	private static final class PropertyIndex {
+
+		private final IntTable integers;
+
+		private final IntTable longs;
+
+		private final IntTable bigIntegers;
+
+		private final StringTable strings;
+
+		private PropertyIndex(Class<?> clazz, Enum[] constants, String property) {
+			integers = new IntTable(constants.length);
+			longs = new IntTable(constants.length);
+			bigIntegers = new IntTable(constants.length);
+			strings = new StringTable(constants.length);
+			for (Enum constant : constants) {
+				Object value = ReflectionUtils.getField(constant, clazz, property);
+				if (value instanceof Integer) {
+					integers.putIfAbsent(((Integer) value).intValue(), constant);
+				} else if (value instanceof Long) {
+					longs.putIfAbsent(((Long) value).intValue(), constant);
+				} else if (value instanceof BigInteger) {
+					bigIntegers.putIfAbsent(((BigInteger) value).intValue(), constant);
+				} else if (value instanceof String) {
+					strings.putIfAbsent(((String) value).trim(), constant);
+				}
+			}
+			integers.seal();
+			longs.seal();
+			bigIntegers.seal();
+		}
+	}
+
+	/**
+	 * int -> enum常量的表, 查的时候不装箱; 建好后key的范围不大(最大最小值相差不超过DENSE_RANGE或者常量个数的4倍)
+	 * 的话换成以最小值为起点的数组, 直接按下标取, 否则用开放寻址
+	 */
+	@SuppressWarnings("rawtypes")
+	private static final class IntTable {
+
+		private static final int DENSE_RANGE = 64;
+
+		private final int[] keys;
+
+		private final Enum[] values;
+
+		private final int mask;
+
+		private int size;
+
+		private int min = Integer.MAX_VALUE;
+
+		private int max = Integer.MIN_VALUE;
+
+		/**
+		 * seal()之后才可能有值, 不为null时只查它
+		 */
+		private Enum[] dense;
+
+		private IntTable(int expectedSize) {
+			int capacity = tableSize(expectedSize);
+			this.keys = new int[capacity];
+			this.values = new Enum[capacity];
+			this.mask = capacity - 1;
+		}
+
+		private void putIfAbsent(int key, Enum value) {
+			int i = mix(key) & mask;
+			while (values[i] != null) {
+				if (keys[i] == key) {
+					return;
 				}
-			} catch (ClassCastException e) {
-				//logger.warn("属性 {} 不是字符串类型", property);
-				break; //不再继续尝试
+				i = (i + 1) & mask;
 			}
-			if (StringUtils.equalsIgCase(propertyValue, value)) {
-				return (Enum)enumObj;
+			keys[i] = key;
+			values[i] = value;
+			size++;
+			min = Math.min(min, key);
+			max = Math.max(max, key);
+		}
+
+		/**
+		 * 所有常量都放进来之后调用, 决定要不要换成数组
+		 */
+		private void seal() {
+			if (size == 0) {
+				return;
+			}
+			long range = (long) max - min + 1;
+			if (range > Math.max(DENSE_RANGE, size * 4L)) {
+				return;
+			}
+			Enum[] dense = new Enum[(int) range];
+			for (int i = 0; i < keys.length; i++) {
+				if (values[i] != null) {
+					dense[keys[i] - min] = values[i];
+				}
 			}
+			this.dense = dense;
 		}
-		return null;
+
+		private Enum get(int key) {
+			Enum[] dense = this.dense;
+			if (dense != null) {
+				long offset = (long) key - min;
+				return offset >= 0 && offset < dense.length ? dense[(int) offset] : null;
+			}
+			int i = mix(key) & mask;
+			Enum value;
+			while ((value = values[i]) != null) {
+				if (keys[i] == key) {
+					return value;
+				}
+				i = (i + 1) & mask;
+			}
+			return null;
+		}
+
+		private static int mix(int key) {
+			int h = key * 0x9E3779B9;
+			return h ^ (h >>> 16);
+		}
+	}
+
+	/**
+	 * 大小写不敏感的String -> enum常量开放寻址表, 查的时候不用先把字符串转成大写/小写
+	 */
+	@SuppressWarnings("rawtypes")
+	private static final class StringTable {
+
+		private final String[] keys;
+
+		private final Enum[] values;
+
+		private final int mask;
+
+		private StringTable(int expectedSize) {
+			int capacity = tableSize(expectedSize);
+			this.keys = new String[capacity];
+			this.values = new Enum[capacity];
+			this.mask = capacity - 1;
+		}
+
+		private void putIfAbsent(String key, Enum value) {
+			int i = hash(key) & mask;
+			while (values[i] != null) {
+				if (keys[i].equalsIgnoreCase(key)) {
+					return;
+				}
+				i = (i + 1) & mask;
+			}
+			keys[i] = key;
+			values[i] = value;
+		}
+
+		private Enum get(String key) {
+			int i = hash(key) & mask;
+			Enum value;
+			while ((value = values[i]) != null) {
+				if (keys[i].equalsIgnoreCase(key)) {
+					return value;
+				}
+				i = (i + 1) & mask;
+			}
+			return null;
+		}
+
+		/**
+		 * equalsIgnoreCase相等的两个字符串算出来的hash一定相等
+		 */
+		private static int hash(String key) {
+			int h = 0;
+			for (int i = 0; i < key.length(); i++) {
+				h = 31 * h + Character.toLowerCase(Character.toUpperCase(key.charAt(i)));
+			}
+			return h ^ (h >>> 16);
+		}
+	}
+
+	/**
+	 * 装载因子不超过0.5的2的幂
+	 */
+	private static int tableSize(int expectedSize) {
+		int capacity = 2;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		return capacity;
 	}
 
 }
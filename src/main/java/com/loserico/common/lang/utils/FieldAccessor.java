@@ -0,0 +1,490 @@
+package com.loserico.common.lang.utils;
+
+import com.loserico.common.lang.magic.UnsafeInstance;
+import lombok.extern.slf4j.Slf4j;
+import sun.misc.Unsafe;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 编译好的字段读写器, 每个(类, 字段名)只查找一次Field、setAccessible一次, 以后直接读写
+ * <p>
+ * 非volatile字段用Unsafe按偏移量读写({@link UnsafeInstance}拿得到的话), 否则用MethodHandle;
+ * getInt/getLong/setInt/setLong读写基本类型字段时不装箱。
+ * 目标对象类型不对、值的类型和字段对不上、需要拓宽转换这些少见的情况交给Field.get/Field.set,
+ * 所以抛的异常和{@link Field}完全一样
+ * <p>
+ * 实例不可变、线程安全
+ * <p>
+ * Copyright: (C), 2020/5/17 9:30
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+@Slf4j
+public final class FieldAccessor {
+
+	/**
+	 * 每个类最多缓存多少个字段名(包括找不到的)
+	 */
+	public static final int MAX_SIZE_PER_CLASS = 256;
+
+	private static final Unsafe UNSAFE = UnsafeInstance.get();
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	private static final int REFERENCE = 0;
+	private static final int BOOLEAN = 1;
+	private static final int BYTE = 2;
+	private static final int SHORT = 3;
+	private static final int CHAR = 4;
+	private static final int INT = 5;
+	private static final int LONG = 6;
+	private static final int FLOAT = 7;
+	private static final int DOUBLE = 8;
+
+	/**
+	 * 找不到字段时缓存的占位
+	 */
+	private static final FieldAccessor MISSING = new FieldAccessor();
+
+	private static final ClassValue<ConcurrentHashMap<String, FieldAccessor>> ACCESSORS =
+			new ClassValue<ConcurrentHashMap<String, FieldAccessor>>() {
+				@Override
+				protected ConcurrentHashMap<String, FieldAccessor> computeValue(Class<?> type) {
+					return new ConcurrentHashMap<>();
+				}
+			};
+
+	private final Field field;
+
+	private final Class<?> type;
+
+	private final Class<?> declaringClass;
+
+	private final boolean isStatic;
+
+	private final int kind;
+
+	/**
+	 * 静态字段所在的对象, 实例字段是null
+	 */
+	private final Object base;
+
+	/**
+	 * Unsafe偏移量, 不用Unsafe时是-1
+	 */
+	private final long offset;
+
+	/**
+	 * (Object)fieldType, 静态字段忽略参数
+	 */
+	private final MethodHandle getter;
+
+	/**
+	 * (Object, fieldType)void, 设置不了(比如final字段)时是null
+	 */
+	private final MethodHandle setter;
+
+	/**
+	 * getter, setter装箱后的版本: (Object)Object, (Object, Object)void
+	 */
+	private final MethodHandle boxingGetter;
+
+	private final MethodHandle boxingSetter;
+
+	private FieldAccessor() {
+		this.field = null;
+		this.type = null;
+		this.declaringClass = null;
+		this.isStatic = false;
+		this.kind = REFERENCE;
+		this.base = null;
+		this.offset = -1;
+		this.getter = null;
+		this.setter = null;
+		this.boxingGetter = null;
+		this.boxingSetter = null;
+	}
+
+	private FieldAccessor(Field field) {
+		ReflectionUtils.makeAccessible(field);
+		this.field = field;
+		this.type = field.getType();
+		this.declaringClass = field.getDeclaringClass();
+		this.isStatic = Modifier.isStatic(field.getModifiers());
+		this.kind = kindOf(type);
+
+		Object base = null;
+		long offset = -1;
+		if (UNSAFE != null && !Modifier.isVolatile(field.getModifiers())) {
+			try {
+				if (isStatic) {
+					// 静态字段读写前类必须已经初始化, 否则读到的是初始化之前的默认值
+					Class.forName(declaringClass.getName(), true, declaringClass.getClassLoader());
+					base = UNSAFE.staticFieldBase(field);
+					offset = UNSAFE.staticFieldOffset(field);
+				} else {
+					offset = UNSAFE.objectFieldOffset(field);
+				}
+			} catch (RuntimeException | ClassNotFoundException e) {
+				log.debug("Fall back to MethodHandle for {}", field, e);
+				base = null;
+				offset = -1;
+			}
+		}
+		this.base = base;
+		this.offset = offset;
+
+		MethodHandle getter = null;
+		MethodHandle setter = null;
+		if (offset < 0) {
+			try {
+				getter = adapt(LOOKUP.unreflectGetter(field));
+			} catch (IllegalAccessException e) {
+				log.debug("Fall back to reflection for {}", field, e);
+			}
+			try {
+				setter = adapt(LOOKUP.unreflectSetter(field));
+			} catch (IllegalAccessException e) {
+				log.debug("Fall back to reflection for setting {}", field, e);
+			}
+		}
+		this.getter = getter;
+		this.setter = setter;
+		this.boxingGetter = getter == null ? null : getter.asType(MethodType.methodType(Object.class, Object.class));
+		this.boxingSetter = setter == null ? null
+				: setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+	}
+
+	/**
+	 * 取clazz或其父类(不包括Object)中名为name的字段的读写器, 子类的字段优先, 和
+	 * {@link ReflectionUtils#findField(Class, String)}找到的是同一个; 找到找不到都会缓存
+	 *
+	 * @param clazz
+	 * @param name
+	 * @return FieldAccessor 找不到返回null
+	 */
+	public static FieldAccessor of(Class<?> clazz, String name) {
+		Objects.requireNonNull(clazz, "Class must not be null");
+		if (name == null) {
+			throw new IllegalArgumentException("Field name must not be null");
+		}
+		ConcurrentHashMap<String, FieldAccessor> accessors = ACCESSORS.get(clazz);
+		FieldAccessor accessor = accessors.get(name);
+		if (accessor == null) {
+			Field field = ReflectionUtils.findField(clazz, name);
+			accessor = field == null ? MISSING : new FieldAccessor(field);
+			if (accessors.size() < MAX_SIZE_PER_CLASS) {
+				FieldAccessor previous = accessors.putIfAbsent(name, accessor);
+				if (previous != null) {
+					accessor = previous;
+				}
+			}
+		}
+		return accessor == MISSING ? null : accessor;
+	}
+
+	public Field getField() {
+		return field;
+	}
+
+	public Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * 读字段值, 基本类型装箱, 和Field.get()一样
+	 *
+	 * @param target 静态字段传null
+	 * @return Object
+	 */
+	public Object getObject(Object target) {
+		if (offset >= 0) {
+			if (!isStatic && !declaringClass.isInstance(target)) {
+				return reflectGet(target);
+			}
+			Object base = isStatic ? this.base : target;
+			switch (kind) {
+				case BOOLEAN:
+					return UNSAFE.getBoolean(base, offset);
+				case BYTE:
+					return UNSAFE.getByte(base, offset);
+				case SHORT:
+					return UNSAFE.getShort(base, offset);
+				case CHAR:
+					return UNSAFE.getChar(base, offset);
+				case INT:
+					return UNSAFE.getInt(base, offset);
+				case LONG:
+					return UNSAFE.getLong(base, offset);
+				case FLOAT:
+					return UNSAFE.getFloat(base, offset);
+				case DOUBLE:
+					return UNSAFE.getDouble(base, offset);
+				default:
+					return UNSAFE.getObject(base, offset);
+			}
+		}
+		if (boxingGetter != null && (isStatic || declaringClass.isInstance(target))) {
+			try {
+				return (Object) boxingGetter.invokeExact(target);
+			} catch (Throwable e) {
+				throw rethrow(e);
+			}
+		}
+		return reflectGet(target);
+	}
+
+	/**
+	 * 读int字段, 不装箱; byte/short/char字段和Field.getInt()一样拓宽成int
+	 *
+	 * @param target 静态字段传null
+	 * @return int
+	 */
+	public int getInt(Object target) {
+		if (kind == INT && (isStatic || declaringClass.isInstance(target))) {
+			if (offset >= 0) {
+				return UNSAFE.getInt(isStatic ? base : target, offset);
+			}
+			if (getter != null) {
+				try {
+					return (int) getter.invokeExact(target);
+				} catch (Throwable e) {
+					throw rethrow(e);
+				}
+			}
+		}
+		try {
+			return field.getInt(target);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Could not access field " + field, e);
+		}
+	}
+
+	/**
+	 * 读long字段, 不装箱; int/byte/short/char字段和Field.getLong()一样拓宽成long
+	 *
+	 * @param target 静态字段传null
+	 * @return long
+	 */
+	public long getLong(Object target) {
+		if ((kind == LONG || kind == INT) && (isStatic || declaringClass.isInstance(target))) {
+			if (offset >= 0) {
+				Object base = isStatic ? this.base : target;
+				return kind == LONG ? UNSAFE.getLong(base, offset) : UNSAFE.getInt(base, offset);
+			}
+			if (getter != null) {
+				try {
+					return kind == LONG ? (long) getter.invokeExact(target) : (int) getter.invokeExact(target);
+				} catch (Throwable e) {
+					throw rethrow(e);
+				}
+			}
+		}
+		try {
+			return field.getLong(target);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Could not access field " + field, e);
+		}
+	}
+
+	/**
+	 * 写字段值, 基本类型字段拆箱, 和Field.set()一样
+	 *
+	 * @param target 静态字段传null
+	 * @param value
+	 */
+	public void set(Object target, Object value) {
+		if ((!isStatic && !declaringClass.isInstance(target)) || !exactlyAssignable(value)) {
+			reflectSet(target, value);
+			return;
+		}
+		if (offset >= 0 && !Modifier.isFinal(field.getModifiers())) {
+			Object base = isStatic ? this.base : target;
+			switch (kind) {
+				case BOOLEAN:
+					UNSAFE.putBoolean(base, offset, (Boolean) value);
+					return;
+				case BYTE:
+					UNSAFE.putByte(base, offset, (Byte) value);
+					return;
+				case SHORT:
+					UNSAFE.putShort(base, offset, (Short) value);
+					return;
+				case CHAR:
+					UNSAFE.putChar(base, offset, (Character) value);
+					return;
+				case INT:
+					UNSAFE.putInt(base, offset, (Integer) value);
+					return;
+				case LONG:
+					UNSAFE.putLong(base, offset, (Long) value);
+					return;
+				case FLOAT:
+					UNSAFE.putFloat(base, offset, (Float) value);
+					return;
+				case DOUBLE:
+					UNSAFE.putDouble(base, offset, (Double) value);
+					return;
+				default:
+					UNSAFE.putObject(base, offset, value);
+					return;
+			}
+		}
+		if (boxingSetter != null) {
+			try {
+				boxingSetter.invokeExact(target, value);
+			} catch (Throwable e) {
+				throw rethrow(e);
+			}
+			return;
+		}
+		reflectSet(target, value);
+	}
+
+	/**
+	 * 写int字段, 不装箱
+	 *
+	 * @param target 静态字段传null
+	 * @param value
+	 */
+	public void setInt(Object target, int value) {
+		if (kind == INT && (isStatic || declaringClass.isInstance(target))) {
+			if (offset >= 0 && !Modifier.isFinal(field.getModifiers())) {
+				UNSAFE.putInt(isStatic ? base : target, offset, value);
+				return;
+			}
+			if (setter != null) {
+				try {
+					setter.invokeExact(target, value);
+				} catch (Throwable e) {
+					throw rethrow(e);
+				}
+				return;
+			}
+		}
+		try {
+			field.setInt(target, value);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Could not access field " + field, e);
+		}
+	}
+
+	/**
+	 * 写long字段, 不装箱
+	 *
+	 * @param target 静态字段传null
+	 * @param value
+	 */
+	public void setLong(Object target, long value) {
+		if (kind == LONG && (isStatic || declaringClass.isInstance(target))) {
+			if (offset >= 0 && !Modifier.isFinal(field.getModifiers())) {
+				UNSAFE.putLong(isStatic ? base : target, offset, value);
+				return;
+			}
+			if (setter != null) {
+				try {
+					setter.invokeExact(target, value);
+				} catch (Throwable e) {
+					throw rethrow(e);
+				}
+				return;
+			}
+		}
+		try {
+			field.setLong(target, value);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Could not access field " + field, e);
+		}
+	}
+
+	/**
+	 * value不用拓宽转换就能直接写进字段
+	 */
+	private boolean exactlyAssignable(Object value) {
+		if (kind == REFERENCE) {
+			return value == null || type.isInstance(value);
+		}
+		return value != null && value.getClass() == org.apache.commons.lang3.ClassUtils.primitiveToWrapper(type);
+	}
+
+	private Object reflectGet(Object target) {
+		try {
+			return field.get(target);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Could not access field " + field, e);
+		}
+	}
+
+	private void reflectSet(Object target, Object value) {
+		try {
+			field.set(target, value);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Could not access field " + field, e);
+		}
+	}
+
+	/**
+	 * 统一成(Object)fieldType和(Object, fieldType)void, 静态字段多一个忽略掉的参数
+	 */
+	private MethodHandle adapt(MethodHandle handle) {
+		if (isStatic) {
+			return MethodHandles.dropArguments(handle, 0, Object.class);
+		}
+		return handle.asType(handle.type().changeParameterType(0, Object.class));
+	}
+
+	private static RuntimeException rethrow(Throwable e) {
+		if (e instanceof RuntimeException) {
+			return (RuntimeException) e;
+		}
+		if (e instanceof Error) {
+			throw (Error) e;
+		}
+		return new UndeclaredThrowableException(e);
+	}
+
+	private static int kindOf(Class<?> type) {
+		if (type == boolean.class) {
+			return BOOLEAN;
+		}
+		if (type == byte.class) {
+			return BYTE;
+		}
+		if (type == short.class) {
+			return SHORT;
+		}
+		if (type == char.class) {
+			return CHAR;
+		}
+		if (type == int.class) {
+			return INT;
+		}
+		if (type == long.class) {
+			return LONG;
+		}
+		if (type == float.class) {
+			return FLOAT;
+		}
+		if (type == double.class) {
+			return DOUBLE;
+		}
+		return REFERENCE;
+	}
+
+	@Override
+	public String toString() {
+		return "FieldAccessor[" + field + "]";
+	}
+}
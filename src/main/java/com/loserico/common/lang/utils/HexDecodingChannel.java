@@ -0,0 +1,105 @@
+package com.loserico.common.lang.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * WritableByteChannel适配器, 写进来的是16进制ASCII字符(大小写都可以), 解码成原始字节后写到目标channel
+ * <p>
+ * 按固定大小的块解码; 一次write带进来奇数个字符时最后一个会留到下次write, close时还剩一个字符会抛IOException
+ * <p>
+ * Copyright: (C), 2020/5/10 10:52
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+public class HexDecodingChannel implements WritableByteChannel {
+
+	private final WritableByteChannel channel;
+
+	/** 从src里取出来待解码的一块16进制字符, 长度是块大小的两倍 */
+	private final byte[] chunk;
+
+	/** 解码好的字节 */
+	private final ByteBuffer buffer;
+
+	/** 上次write剩下的那个字符, 没有就是-1 */
+	private int pending = -1;
+
+	public HexDecodingChannel(WritableByteChannel channel) {
+		this(channel, HexEncodingOutputStream.DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param channel   接收解码后字节的channel
+	 * @param chunkSize 每块最多解码出多少个字节
+	 */
+	public HexDecodingChannel(WritableByteChannel channel, int chunkSize) {
+		if (channel == null) {
+			throw new IllegalArgumentException("channel can't be null");
+		}
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize can't be less than 1");
+		}
+		this.channel = channel;
+		this.chunk = new byte[chunkSize * 2];
+		this.buffer = ByteBuffer.allocate(chunkSize);
+	}
+
+	/**
+	 * 把src剩余的16进制字符全部解码写出去
+	 *
+	 * @param src
+	 * @return 消费掉的16进制字符数
+	 * @throws IOException
+	 */
+	@Override
+	public int write(ByteBuffer src) throws IOException {
+		int total = src.remaining();
+		while (src.hasRemaining()) {
+			int filled = 0;
+			if (pending >= 0) {
+				chunk[filled++] = (byte) pending;
+				pending = -1;
+			}
+			int n = Math.min(src.remaining(), chunk.length - filled);
+			src.get(chunk, filled, n);
+			filled += n;
+			if ((filled & 1) != 0) {
+				pending = chunk[--filled] & 0xFF;
+			}
+			int length;
+			try {
+				length = RedixUtils.decodeHex(chunk, 0, filled, buffer.array(), 0);
+			} catch (NumberFormatException e) {
+				throw new IOException(e.getMessage(), e);
+			}
+			buffer.clear().limit(length);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+		return total;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return channel.isOpen();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			if (pending >= 0) {
+				pending = -1;
+				throw new IOException("Truncated hex stream: odd number of hex characters");
+			}
+		} finally {
+			channel.close();
+		}
+	}
+}
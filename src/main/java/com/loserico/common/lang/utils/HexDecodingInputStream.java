@@ -0,0 +1,125 @@
+package com.loserico.common.lang.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 从底层输入流读16进制ASCII字符(大小写都可以), 解码成原始字节返回
+ * <p>
+ * 每次最多从底层流读一块, 内存占用固定; 读到奇数个字符时最后一个留到下次和后面的字符拼成一个字节,
+ * 流结束时还剩一个字符或者遇到非16进制字符会抛IOException
+ * <p>
+ * Copyright: (C), 2020/5/10 10:18
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+public class HexDecodingInputStream extends FilterInputStream {
+
+	/** 从底层流读进来还没解码的16进制字符, 长度是块大小的两倍 */
+	private final byte[] buffer;
+
+	private final byte[] single = new byte[1];
+
+	/** 上次读到奇数个字符时剩下的那个字符, 没有就是-1 */
+	private int pending = -1;
+
+	public HexDecodingInputStream(InputStream in) {
+		this(in, HexEncodingOutputStream.DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param in        提供16进制字符的输入流
+	 * @param chunkSize 每块最多解码出多少个字节
+	 */
+	public HexDecodingInputStream(InputStream in, int chunkSize) {
+		super(in);
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize can't be less than 1");
+		}
+		this.buffer = new byte[chunkSize * 2];
+	}
+
+	@Override
+	public int read() throws IOException {
+		int n;
+		while ((n = read(single, 0, 1)) == 0) {
+		}
+		return n < 0 ? -1 : single[0] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (off < 0 || len < 0 || off + len > b.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return 0;
+		}
+		int want = Math.min(len, buffer.length >> 1) * 2;
+		int filled = 0;
+		if (pending >= 0) {
+			buffer[filled++] = (byte) pending;
+			pending = -1;
+		}
+		while (filled < 2) {
+			int n = in.read(buffer, filled, want - filled);
+			if (n < 0) {
+				if (filled > 0) {
+					throw new IOException("Truncated hex stream: odd number of hex characters");
+				}
+				return -1;
+			}
+			filled += n;
+		}
+		if ((filled & 1) != 0) {
+			pending = buffer[--filled] & 0xFF;
+		}
+		try {
+			return RedixUtils.decodeHex(buffer, 0, filled, b, off);
+		} catch (NumberFormatException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		if (n <= 0) {
+			return 0;
+		}
+		//解码出来的字节需要有地方放, 跳过的量不会超过一块
+		byte[] skipBuffer = new byte[(int) Math.min(n, buffer.length >> 1)];
+		long remaining = n;
+		while (remaining > 0) {
+			int read = read(skipBuffer, 0, (int) Math.min(remaining, skipBuffer.length));
+			if (read < 0) {
+				break;
+			}
+			remaining -= read;
+		}
+		return n - remaining;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return (in.available() + (pending >= 0 ? 1 : 0)) >> 1;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		throw new IOException("mark/reset not supported");
+	}
+}
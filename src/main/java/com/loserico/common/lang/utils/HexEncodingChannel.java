@@ -0,0 +1,82 @@
+package com.loserico.common.lang.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * WritableByteChannel适配器, 写进来的字节编码成小写16进制ASCII字节后写到目标channel
+ * <p>
+ * 按固定大小的块编码, 每块编码完就写出去, 不会在内部攒数据, 所以不需要flush
+ * <p>
+ * Copyright: (C), 2020/5/10 10:40
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+public class HexEncodingChannel implements WritableByteChannel {
+
+	private final WritableByteChannel channel;
+
+	/** 从src里取出来待编码的一块字节 */
+	private final byte[] chunk;
+
+	/** 编码好的16进制字符, 长度是块大小的两倍 */
+	private final ByteBuffer buffer;
+
+	public HexEncodingChannel(WritableByteChannel channel) {
+		this(channel, HexEncodingOutputStream.DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param channel   接收16进制字符的channel
+	 * @param chunkSize 每块编码多少个字节
+	 */
+	public HexEncodingChannel(WritableByteChannel channel, int chunkSize) {
+		if (channel == null) {
+			throw new IllegalArgumentException("channel can't be null");
+		}
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize can't be less than 1");
+		}
+		this.channel = channel;
+		this.chunk = new byte[chunkSize];
+		this.buffer = ByteBuffer.allocate(chunkSize * 2);
+	}
+
+	/**
+	 * 把src剩余的字节全部编码写出去
+	 *
+	 * @param src
+	 * @return 消费掉的原始字节数
+	 * @throws IOException
+	 */
+	@Override
+	public int write(ByteBuffer src) throws IOException {
+		int total = 0;
+		while (src.hasRemaining()) {
+			int n = Math.min(src.remaining(), chunk.length);
+			src.get(chunk, 0, n);
+			int length = RedixUtils.encodeHex(chunk, 0, n, buffer.array(), 0);
+			buffer.clear().limit(length);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			total += n;
+		}
+		return total;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return channel.isOpen();
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,84 @@
+package com.loserico.common.lang.utils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 把写进来的字节编码成小写16进制ASCII字节写到底层输出流
+ * <p>
+ * 内部只有一个固定大小的块缓冲, 写满一块才往底层流写一次, 所以编码多大的数据内存占用都是固定的;
+ * 用完要flush或者close, 否则缓冲里最后一块不会写出去
+ * <p>
+ * Copyright: (C), 2020/5/10 10:05
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+public class HexEncodingOutputStream extends FilterOutputStream {
+
+	/** 默认每块编码8K字节, 对应16K的16进制字符 */
+	static final int DEFAULT_CHUNK_SIZE = 8192;
+
+	/** 编码好的16进制字符, 长度是块大小的两倍 */
+	private final byte[] buffer;
+
+	private final byte[] single = new byte[1];
+
+	private int count;
+
+	public HexEncodingOutputStream(OutputStream out) {
+		this(out, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param out       接收16进制字符的输出流
+	 * @param chunkSize 每块编码多少个字节
+	 */
+	public HexEncodingOutputStream(OutputStream out, int chunkSize) {
+		super(out);
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize can't be less than 1");
+		}
+		this.buffer = new byte[chunkSize * 2];
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		single[0] = (byte) b;
+		write(single, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (off < 0 || len < 0 || off + len > b.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		while (len > 0) {
+			int n = Math.min(len, (buffer.length - count) >> 1);
+			if (n == 0) {
+				flushBuffer();
+				continue;
+			}
+			count = RedixUtils.encodeHex(b, off, n, buffer, count);
+			off += n;
+			len -= n;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		flushBuffer();
+		out.flush();
+	}
+
+	private void flushBuffer() throws IOException {
+		if (count > 0) {
+			out.write(buffer, 0, count);
+			count = 0;
+		}
+	}
+}
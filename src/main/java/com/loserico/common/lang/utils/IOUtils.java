@@ -34,6 +34,7 @@ import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -86,6 +87,8 @@ public class IOUtils {
 	
 	public static final String CLASSPATH_PREFIX = "classpath*:";
 	
+	private static final DateTimeFormatter DTF_FILE_NAME_TIME = ofPattern("yyyyMMddHHmmss");
+	
 	/**
 	 * 从InputStream读取字符串
 	 *
@@ -796,7 +799,7 @@ public class IOUtils {
 		int dotIndex = fileName.lastIndexOf(".");
 		String suffix = dotIndex == -1 ? "" : fileName.substring(dotIndex);
 		String baseName = RandomStringUtils.randomAlphanumeric(16);
-		String timeSuffix = LocalDateTime.now().format(ofPattern("yyyyMMddHHmmss"));
+		String timeSuffix = LocalDateTime.now().format(DTF_FILE_NAME_TIME);
 		return String.join("", baseName, timeSuffix, suffix);
 	}
 	
@@ -0,0 +1,486 @@
+package com.loserico.common.lang.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.MethodInvoker;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 编译好的方法调用器, 每个(类, 方法名, 参数类型)只查找一次Method, 以后直接调用
+ * <p>
+ * 方法和用到的类型都是public并且对本类的ClassLoader可见时, 没有参数和只有一个参数的实例方法用LambdaMetafactory
+ * 生成Function/BiFunction/Consumer/BiConsumer(返回整数的无参方法另外生成ToLongFunction), JIT可以直接内联;
+ * 其他的用MethodHandle。参数类型对不上、需要拓宽转换、目标对象类型不对这些少见的情况交给Method.invoke,
+ * 所以抛的IllegalArgumentException和反射调用一样
+ * <p>
+ * 实例不可变、线程安全
+ * <p>
+ * Copyright: (C), 2020/5/17 15:10
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+@Slf4j
+public final class MethodAccessor {
+
+	/**
+	 * 每个类最多缓存多少个方法名
+	 */
+	public static final int MAX_SIZE_PER_CLASS = 256;
+
+	/**
+	 * 同一个方法名最多缓存多少种参数类型组合
+	 */
+	public static final int MAX_SIGNATURES_PER_NAME = 16;
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	private static final Object[] NO_ARGS = new Object[0];
+
+	private static final Entry[] NO_ENTRIES = new Entry[0];
+
+	private static final ClassValue<ConcurrentHashMap<String, Entry[]>> ACCESSORS =
+			new ClassValue<ConcurrentHashMap<String, Entry[]>>() {
+				@Override
+				protected ConcurrentHashMap<String, Entry[]> computeValue(Class<?> type) {
+					return new ConcurrentHashMap<>();
+				}
+			};
+
+	private final Method method;
+
+	private final Class<?> declaringClass;
+
+	private final boolean isStatic;
+
+	/**
+	 * 参数类型, 基本类型换成包装类型
+	 */
+	private final Class<?>[] wrappers;
+
+	private final boolean[] primitives;
+
+	/**
+	 * 无参实例方法, void方法返回null
+	 */
+	private final Function<Object, Object> function0;
+
+	/**
+	 * 一个参数的实例方法, void方法返回null
+	 */
+	private final BiFunction<Object, Object, Object> function1;
+
+	/**
+	 * 返回long/int/short/byte/char的无参实例方法
+	 */
+	private final ToLongFunction<Object> longFunction;
+
+	/**
+	 * (Object, Object[])Object, 静态方法忽略第一个参数
+	 */
+	private final MethodHandle spreader;
+
+	private MethodAccessor(Method method) {
+		ReflectionUtils.makeAccessible(method);
+		this.method = method;
+		this.declaringClass = method.getDeclaringClass();
+		this.isStatic = Modifier.isStatic(method.getModifiers());
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		this.wrappers = new Class<?>[parameterTypes.length];
+		this.primitives = new boolean[parameterTypes.length];
+		for (int i = 0; i < parameterTypes.length; i++) {
+			wrappers[i] = org.apache.commons.lang3.ClassUtils.primitiveToWrapper(parameterTypes[i]);
+			primitives[i] = parameterTypes[i].isPrimitive();
+		}
+
+		Function<Object, Object> function0 = null;
+		BiFunction<Object, Object, Object> function1 = null;
+		ToLongFunction<Object> longFunction = null;
+		if (!isStatic && parameterTypes.length <= 1 && canSpinLambda(method)) {
+			try {
+				MethodHandle handle = LOOKUP.unreflect(method);
+				if (parameterTypes.length == 0) {
+					function0 = function0(handle);
+					longFunction = longFunction(handle);
+				} else {
+					function1 = function1(handle);
+				}
+			} catch (Throwable e) {
+				log.debug("Fall back to MethodHandle for {}", method, e);
+				function0 = null;
+				function1 = null;
+				longFunction = null;
+			}
+		}
+		this.function0 = function0;
+		this.function1 = function1;
+		this.longFunction = longFunction;
+
+		MethodHandle spreader = null;
+		if (function0 == null && function1 == null) {
+			try {
+				MethodHandle handle = LOOKUP.unreflect(method);
+				if (isStatic) {
+					handle = MethodHandles.dropArguments(handle, 0, Object.class);
+				}
+				spreader = handle.asType(handle.type().generic().changeReturnType(Object.class))
+						.asSpreader(Object[].class, parameterTypes.length);
+			} catch (IllegalAccessException e) {
+				log.debug("Fall back to reflection for {}", method, e);
+			}
+		}
+		this.spreader = spreader;
+	}
+
+	/**
+	 * 在clazz及其父类中找名字、参数类型都匹配的方法, 和{@link ReflectionUtils#findMethod(Class, String, Class[])}
+	 * 找到的是同一个; 找到找不到都会缓存
+	 *
+	 * @param clazz
+	 * @param name
+	 * @param paramTypes 为null时匹配任意参数
+	 * @return MethodAccessor 找不到返回null
+	 */
+	public static MethodAccessor find(Class<?> clazz, String name, Class<?>... paramTypes) {
+		Objects.requireNonNull(clazz, "Class must not be null");
+		Objects.requireNonNull(name, "Method name must not be null");
+		Entry[] entries = entries(clazz, name);
+		for (Entry entry : entries) {
+			if (!entry.byArguments && java.util.Arrays.equals(entry.types, paramTypes)) {
+				return entry.accessor;
+			}
+		}
+		Method method = ReflectionUtils.findMethod(clazz, name, paramTypes);
+		MethodAccessor accessor = method == null ? null : new MethodAccessor(method);
+		return cache(clazz, name, new Entry(false, paramTypes == null ? null : paramTypes.clone(), accessor));
+	}
+
+	/**
+	 * 按实际参数找clazz的public方法, 和Spring的{@link MethodInvoker}一样: 先按参数的类型精确找, 找不到再找参数个数相同、
+	 * 类型最接近的; 按(方法名, 各个参数的类型)缓存
+	 *
+	 * @param clazz
+	 * @param name
+	 * @param args
+	 * @return MethodAccessor
+	 * @throws NoSuchMethodException 找不到匹配的方法
+	 */
+	public static MethodAccessor forArguments(Class<?> clazz, String name, Object... args)
+			throws NoSuchMethodException {
+		Objects.requireNonNull(clazz, "Class must not be null");
+		Objects.requireNonNull(name, "Method name must not be null");
+		if (args == null) {
+			args = NO_ARGS;
+		}
+		Entry[] entries = entries(clazz, name);
+		for (Entry entry : entries) {
+			if (entry.byArguments && entry.matches(args)) {
+				return entry.accessor;
+			}
+		}
+
+		MethodInvoker invoker = new MethodInvoker();
+		invoker.setTargetClass(clazz);
+		invoker.setTargetMethod(name);
+		invoker.setArguments(args);
+		try {
+			invoker.prepare();
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException(e);
+		}
+		Class<?>[] types = new Class<?>[args.length];
+		for (int i = 0; i < args.length; i++) {
+			types[i] = args[i] == null ? null : args[i].getClass();
+		}
+		return cache(clazz, name, new Entry(true, types, new MethodAccessor(invoker.getPreparedMethod())));
+	}
+
+	public Method getMethod() {
+		return method;
+	}
+
+	/**
+	 * 调用无参方法
+	 *
+	 * @param target 静态方法传null
+	 * @return Object void方法返回null
+	 * @throws UndeclaredThrowableException 方法抛出了checked异常, RuntimeException和Error原样抛出
+	 */
+	public Object invoke(Object target) {
+		if (function0 != null && declaringClass.isInstance(target)) {
+			try {
+				return function0.apply(target);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new UndeclaredThrowableException(e);
+			}
+		}
+		return invoke(target, NO_ARGS);
+	}
+
+	/**
+	 * 调用只有一个参数的方法, 不用创建参数数组
+	 *
+	 * @param target 静态方法传null
+	 * @param arg
+	 * @return Object void方法返回null
+	 * @throws UndeclaredThrowableException 方法抛出了checked异常, RuntimeException和Error原样抛出
+	 */
+	public Object invoke(Object target, Object arg) {
+		if (function1 != null && declaringClass.isInstance(target) && accepts(0, arg)) {
+			try {
+				return function1.apply(target, arg);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new UndeclaredThrowableException(e);
+			}
+		}
+		return invoke(target, new Object[]{arg});
+	}
+
+	/**
+	 * 调用方法
+	 *
+	 * @param target 静态方法传null
+	 * @param args
+	 * @return Object void方法返回null
+	 * @throws UndeclaredThrowableException 方法抛出了checked异常, RuntimeException和Error原样抛出
+	 */
+	public Object invoke(Object target, Object... args) {
+		try {
+			return call(target, args);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new UndeclaredThrowableException(e);
+		}
+	}
+
+	/**
+	 * 调用返回整数的无参方法, 返回long/int/short/byte/char的方法不装箱, 其他方法的返回值按Number取longValue()
+	 *
+	 * @param target
+	 * @return long
+	 */
+	public long invokeLong(Object target) {
+		if (longFunction != null && declaringClass.isInstance(target)) {
+			try {
+				return longFunction.applyAsLong(target);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new UndeclaredThrowableException(e);
+			}
+		}
+		Object value = invoke(target);
+		return value instanceof Character ? (Character) value : ((Number) value).longValue();
+	}
+
+	/**
+	 * 调用方法, 方法本身抛的异常原样抛出, 不包装
+	 */
+	Object call(Object target, Object[] args) throws Throwable {
+		if (args == null) {
+			args = NO_ARGS;
+		}
+		if ((isStatic || declaringClass.isInstance(target)) && accepts(args)) {
+			if (function0 != null) {
+				return function0.apply(target);
+			}
+			if (function1 != null) {
+				return function1.apply(target, args[0]);
+			}
+			if (spreader != null) {
+				return (Object) spreader.invokeExact(target, args);
+			}
+		}
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getTargetException();
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Could not access method: " + e.getMessage());
+		}
+	}
+
+	private boolean accepts(Object[] args) {
+		if (args.length != wrappers.length) {
+			return false;
+		}
+		for (int i = 0; i < args.length; i++) {
+			if (!accepts(i, args[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * arg不用拓宽转换就能直接传给第i个参数
+	 */
+	private boolean accepts(int i, Object arg) {
+		return arg == null ? !primitives[i] : wrappers[i].isInstance(arg) && (!primitives[i] || arg.getClass() == wrappers[i]);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Function<Object, Object> function0(MethodHandle handle) throws Throwable {
+		MethodType type = handle.type();
+		if (type.returnType() == void.class) {
+			Consumer<Object> consumer = (Consumer<Object>) LambdaMetafactory.metafactory(LOOKUP, "accept",
+					MethodType.methodType(Consumer.class),
+					MethodType.methodType(void.class, Object.class),
+					handle,
+					type).getTarget().invokeExact();
+			return target -> {
+				consumer.accept(target);
+				return null;
+			};
+		}
+		CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply",
+				MethodType.methodType(Function.class),
+				MethodType.methodType(Object.class, Object.class),
+				handle,
+				type.wrap());
+		return (Function<Object, Object>) site.getTarget().invokeExact();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static BiFunction<Object, Object, Object> function1(MethodHandle handle) throws Throwable {
+		MethodType type = handle.type();
+		if (type.returnType() == void.class) {
+			BiConsumer<Object, Object> consumer = (BiConsumer<Object, Object>) LambdaMetafactory.metafactory(LOOKUP,
+					"accept",
+					MethodType.methodType(BiConsumer.class),
+					MethodType.methodType(void.class, Object.class, Object.class),
+					handle,
+					type.wrap().changeReturnType(void.class)).getTarget().invokeExact();
+			return (target, arg) -> {
+				consumer.accept(target, arg);
+				return null;
+			};
+		}
+		CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply",
+				MethodType.methodType(BiFunction.class),
+				MethodType.methodType(Object.class, Object.class, Object.class),
+				handle,
+				type.wrap());
+		return (BiFunction<Object, Object, Object>) site.getTarget().invokeExact();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ToLongFunction<Object> longFunction(MethodHandle handle) throws Throwable {
+		Class<?> returnType = handle.type().returnType();
+		if (returnType != long.class && returnType != int.class && returnType != short.class
+				&& returnType != byte.class && returnType != char.class) {
+			return null;
+		}
+		CallSite site = LambdaMetafactory.metafactory(LOOKUP, "applyAsLong",
+				MethodType.methodType(ToLongFunction.class),
+				MethodType.methodType(long.class, Object.class),
+				handle,
+				handle.type().changeReturnType(long.class));
+		return (ToLongFunction<Object>) site.getTarget().invokeExact();
+	}
+
+	/**
+	 * LambdaMetafactory生成的类挂在本类下面, 只能引用本类的ClassLoader看得到的public类型
+	 */
+	private static boolean canSpinLambda(Method method) {
+		if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(method.getDeclaringClass().getModifiers())
+				|| !BeanCopier.isVisible(method.getDeclaringClass()) || !BeanCopier.isVisible(method.getReturnType())) {
+			return false;
+		}
+		for (Class<?> parameterType : method.getParameterTypes()) {
+			if (!BeanCopier.isVisible(parameterType)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Entry[] entries(Class<?> clazz, String name) {
+		Entry[] entries = ACCESSORS.get(clazz).get(name);
+		return entries == null ? NO_ENTRIES : entries;
+	}
+
+	/**
+	 * 同一个方法名下的各种参数组合放在一个数组里, 写时复制
+	 */
+	private static MethodAccessor cache(Class<?> clazz, String name, Entry entry) {
+		ConcurrentHashMap<String, Entry[]> accessors = ACCESSORS.get(clazz);
+		if (accessors.size() >= MAX_SIZE_PER_CLASS && !accessors.containsKey(name)) {
+			return entry.accessor;
+		}
+		accessors.compute(name, (key, entries) -> {
+			if (entries == null) {
+				return new Entry[]{entry};
+			}
+			if (entries.length >= MAX_SIGNATURES_PER_NAME) {
+				return entries;
+			}
+			Entry[] copy = java.util.Arrays.copyOf(entries, entries.length + 1);
+			copy[entries.length] = entry;
+			return copy;
+		});
+		return entry.accessor;
+	}
+
+	@Override
+	public String toString() {
+		return "MethodAccessor[" + method + "]";
+	}
+
+	/**
+	 * 缓存的一项: find()按参数类型找到的, 或者forArguments()按实际参数的类型找到的
+	 */
+	private static final class Entry {
+
+		private final boolean byArguments;
+
+		/**
+		 * find(): 参数类型, null表示任意参数; forArguments(): 各个参数的类型, 参数是null的位置是null
+		 */
+		private final Class<?>[] types;
+
+		private final MethodAccessor accessor;
+
+		private Entry(boolean byArguments, Class<?>[] types, MethodAccessor accessor) {
+			this.byArguments = byArguments;
+			this.types = types;
+			this.accessor = accessor;
+		}
+
+		private boolean matches(Object[] args) {
+			if (types.length != args.length) {
+				return false;
+			}
+			for (int i = 0; i < args.length; i++) {
+				Object arg = args[i];
+				if (types[i] != (arg == null ? null : arg.getClass())) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package com.loserico.common.lang.utils;
+
+import org.apache.commons.lang3.ClassUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static com.loserico.common.lang.constants.DateConstants.FMT_ISO_DATE;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * {@link BeanCopier}转换模式下用到的属性类型转换, 日期、字符串转数字、enum的转换逻辑交给DateUtils、MathUtils、EnumUtils
+ * <p>
+ * 每对(源类型, 目标类型)在生成拷贝计划时查一次, 找到的转换函数直接存进计划里, 拷贝时不再判断值的类型;
+ * 没有直接的转换时尝试经过Date中转一次, 比如Long -> Date -> LocalDateTime
+ * <p>
+ * 转换函数只会拿到非null的值, null由BeanCopier直接处理; 转换不了的返回null, 不抛异常: 字符串不是数字、NaN/Infinity、
+ * 转成Integer/Long时超出范围或者有小数部分都算转换不了。目标属性是基本类型的话BeanCopier跳过这个属性
+ * <p>
+ * Copyright: (C), 2020/5/16 10:30
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+final class PropertyConverters {
+
+	private static final List<Entry> ENTRIES = new ArrayList<>();
+
+	/**
+	 * 找不到直接转换时用来中转的类型
+	 */
+	private static final Class<?>[] INTERMEDIATES = {Date.class};
+
+	static {
+		// 日期时间
+		register(Date.class, LocalDateTime.class, value -> DateUtils.toLocalDateTime((Date) value));
+		register(Date.class, LocalDate.class, value -> DateUtils.toLocalDate((Date) value));
+		register(Date.class, Long.class, value -> ((Date) value).getTime());
+		register(Date.class, String.class, value -> DateUtils.format((Date) value));
+		register(LocalDateTime.class, Date.class, value -> new Date(DateUtils.toEpochMilis((LocalDateTime) value)));
+		register(LocalDateTime.class, LocalDate.class, value -> ((LocalDateTime) value).toLocalDate());
+		register(LocalDateTime.class, Long.class, value -> DateUtils.toEpochMilis((LocalDateTime) value));
+		register(LocalDateTime.class, String.class, value -> DateUtils.format((LocalDateTime) value));
+		register(LocalDate.class, LocalDateTime.class, value -> DateUtils.toLocalDateTime((LocalDate) value));
+		register(LocalDate.class, Date.class,
+				value -> Date.from(((LocalDate) value).atStartOfDay(ZoneId.systemDefault()).toInstant()));
+		register(LocalDate.class, String.class, value -> DateUtils.format((LocalDate) value, FMT_ISO_DATE));
+		register(Long.class, Date.class, value -> new Date((Long) value));
+		register(String.class, Date.class, value -> DateUtils.parse((String) value));
+		register(String.class, LocalDateTime.class, value -> DateUtils.toLocalDateTime((String) value));
+		register(String.class, LocalDate.class, value -> DateUtils.toLocalDate((String) value));
+		register(String.class, LocalTime.class, value -> DateUtils.toLocalTime((String) value));
+
+		// 数字
+		register(String.class, Long.class, value -> MathUtils.toLong((String) value));
+		register(String.class, Integer.class, MathUtils::toInteger);
+		register(String.class, Double.class, MathUtils::toDouble);
+		register(String.class, BigDecimal.class, value -> toBigDecimal(((String) value).trim()));
+		register(Number.class, Long.class, value -> toLongExact((Number) value));
+		register(Number.class, Integer.class, value -> toIntExact((Number) value));
+		register(Number.class, Double.class, value -> ((Number) value).doubleValue());
+		register(Number.class, BigDecimal.class, value -> toBigDecimal(value.toString()));
+		register(BigDecimal.class, String.class, value -> ((BigDecimal) value).toPlainString());
+
+		// 包装类型转字符串, 以及enum
+		register(Number.class, String.class, Object::toString);
+		register(Boolean.class, String.class, Object::toString);
+		register(Character.class, String.class, Object::toString);
+		register(Enum.class, String.class, value -> ((Enum<?>) value).name());
+	}
+
+	private PropertyConverters() {
+	}
+
+	/**
+	 * 找sourceType的值转成targetType的函数, 基本类型按包装类型算
+	 *
+	 * @param sourceType
+	 * @param targetType
+	 * @return Function 找不到返回null
+	 */
+	static Function<Object, Object> find(Class<?> sourceType, Class<?> targetType) {
+		Class<?> from = ClassUtils.primitiveToWrapper(sourceType);
+		Class<?> to = ClassUtils.primitiveToWrapper(targetType);
+		Function<Object, Object> converter = direct(from, to);
+		if (converter != null) {
+			return converter;
+		}
+		for (Class<?> intermediate : INTERMEDIATES) {
+			if (intermediate == from || intermediate == to) {
+				continue;
+			}
+			Function<Object, Object> first = direct(from, intermediate);
+			Function<Object, Object> second = first == null ? null : direct(intermediate, to);
+			if (second != null) {
+				return value -> {
+					Object middle = first.apply(value);
+					return middle == null ? null : second.apply(middle);
+				};
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 整数类型直接取值, 其他的(Double、BigDecimal等)超出long范围或者有小数部分的返回null
+	 */
+	private static Long toLongExact(Number value) {
+		if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte
+				|| value instanceof AtomicLong || value instanceof AtomicInteger) {
+			return value.longValue();
+		}
+		BigDecimal decimal = toBigDecimal(value.toString());
+		if (decimal == null) {
+			return null;
+		}
+		try {
+			return decimal.longValueExact();
+		} catch (ArithmeticException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 超出int范围或者有小数部分的返回null
+	 */
+	private static Integer toIntExact(Number value) {
+		Long longValue = toLongExact(value);
+		if (longValue == null || longValue < Integer.MIN_VALUE || longValue > Integer.MAX_VALUE) {
+			return null;
+		}
+		return longValue.intValue();
+	}
+
+	/**
+	 * 空白、不是数字、NaN、Infinity都返回null
+	 */
+	private static BigDecimal toBigDecimal(String value) {
+		if (isBlank(value)) {
+			return null;
+		}
+		try {
+			return new BigDecimal(value);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static Function<Object, Object> direct(Class<?> from, Class<?> to) {
+		if (to.isEnum() && (from == String.class || from == Integer.class || from == Long.class)) {
+			return value -> EnumUtils.lookupEnum(to, value);
+		}
+		// 先找源类型完全一致的, 再找源类型的父类型
+		for (Entry entry : ENTRIES) {
+			if (entry.from == from && to.isAssignableFrom(entry.to)) {
+				return entry.converter;
+			}
+		}
+		for (Entry entry : ENTRIES) {
+			if (entry.from.isAssignableFrom(from) && to.isAssignableFrom(entry.to)) {
+				return entry.converter;
+			}
+		}
+		return null;
+	}
+
+	private static void register(Class<?> from, Class<?> to, Function<Object, Object> converter) {
+		ENTRIES.add(new Entry(from, to, converter));
+	}
+
+	private static final class Entry {
+
+		private final Class<?> from;
+
+		private final Class<?> to;
+
+		private final Function<Object, Object> converter;
+
+		private Entry(Class<?> from, Class<?> to, Function<Object, Object> converter) {
+			this.from = from;
+			this.to = to;
+			this.converter = converter;
+		}
+	}
+}
@@ -1,6 +1,8 @@
 package com.loserico.common.lang.utils;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * 各种进制之间转换工具
@@ -16,7 +18,63 @@ import java.math.BigInteger;
 public class RedixUtils {
 
 	private static final char[] HEX_CODE = "0123456789abcdef".toCharArray();
-	private static final String HEX_STR = "0123456789ABCDEF";
+	
+	/**
+	 * 字符 -> 16进制数值, 大小写都认, 非法字符为-1
+	 */
+	private static final byte[] HEX_DECODE = new byte[128];
+	
+	/**
+	 * Base62字母表, 按ASCII顺序排列, 这样定长编码后字符串的字典序和数值(无符号)大小顺序一致
+	 */
+	private static final char[] BASE62_CODE = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+	
+	/**
+	 * Crockford Base32字母表(去掉了I L O U), 同样按ASCII顺序排列
+	 */
+	private static final char[] BASE32_CODE = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+	
+	/**
+	 * 字符 -> Base62数值, 非法字符为-1
+	 */
+	private static final byte[] BASE62_DECODE = new byte[128];
+	
+	/**
+	 * 字符 -> Base32数值, 非法字符为-1, 小写字母等同大写
+	 */
+	private static final byte[] BASE32_DECODE = new byte[128];
+	
+	/**
+	 * 一个long按Base62定长编码后的长度, 62^11 > 2^64
+	 */
+	public static final int BASE62_LENGTH = 11;
+	
+	/**
+	 * 一个long按Base32定长编码后的长度, 13 * 5 = 65 >= 64
+	 */
+	public static final int BASE32_LENGTH = 13;
+	
+	/**
+	 * 解码Base62时, 乘62之前value不能超过这个值(无符号比较), 否则溢出
+	 */
+	private static final long BASE62_MAX_BEFORE_MULTIPLY = Long.divideUnsigned(-1L, 62);
+	
+	static {
+		Arrays.fill(HEX_DECODE, (byte) -1);
+		for (int i = 0; i < HEX_CODE.length; i++) {
+			HEX_DECODE[HEX_CODE[i]] = (byte) i;
+			HEX_DECODE[Character.toUpperCase(HEX_CODE[i])] = (byte) i;
+		}
+		Arrays.fill(BASE62_DECODE, (byte) -1);
+		for (int i = 0; i < BASE62_CODE.length; i++) {
+			BASE62_DECODE[BASE62_CODE[i]] = (byte) i;
+		}
+		Arrays.fill(BASE32_DECODE, (byte) -1);
+		for (int i = 0; i < BASE32_CODE.length; i++) {
+			BASE32_DECODE[BASE32_CODE[i]] = (byte) i;
+			BASE32_DECODE[Character.toLowerCase(BASE32_CODE[i])] = (byte) i;
+		}
+	}
 
 	/**
 	 * byte[]转16进制字符串
@@ -25,36 +83,233 @@ public class RedixUtils {
 	 * @return String
 	 */
 	public static String bytesToHex(byte[] data) {
-		StringBuilder r = new StringBuilder(data.length * 2);
-		for (byte b : data) {
-			r.append(HEX_CODE[(b >> 4) & 0xF]);
-			r.append(HEX_CODE[(b & 0xF)]);
-		}
-		return r.toString();
+		char[] chars = new char[data.length * 2];
+		encodeHex(data, 0, data.length, chars, 0);
+		return new String(chars);
 	}
 
 	/**
-	 * 16进制字符串转二进制字符串形式
+	 * 16进制字符串转long, 允许两边有空白符以及0x/0X前缀, 大小写都可以; 按无符号解析, 最多16位16进制数
+	 * <p>
+	 * 和以前逐位累加的实现不一样的地方: 只有"0x"前缀没有数字的以前返回0, 超过16位的以前溢出回绕, 现在都抛NumberFormatException
 	 * 
 	 * @param s
-	 * @return String
+	 * @return long
+	 * @throws NullPointerException  s是null或者空白
+	 * @throws NumberFormatException 没有数字、超过16位或者有非16进制字符
 	 */
 	public static long hexToDecimal(String s) {
-		s = preCheck(s);
-		
+		if (s == null || hexEnd(s, 0) == 0) {
+			throw new NullPointerException();
+		}
+		return parseHexLong(s);
+	}
+	
+	public static String hexToBinary(String hex) {
+		if (hex == null || hexEnd(hex, 0) == 0) {
+			throw new NullPointerException();
+		}
+		int start = hexStart(hex);
+		int end = hexEnd(hex, start);
+		if (end - start <= 16) {
+			return Long.toBinaryString(parseHexLong(hex, start, end));
+		}
+		return new BigInteger(hex.substring(start, end), 16).toString(2);
+	}
+	
+	/**
+	 * 把src[offset, offset + length)编码成小写16进制字符写到dst的dstOffset位置, 不产生中间对象
+	 *
+	 * @param src
+	 * @param offset
+	 * @param length
+	 * @param dst       长度至少要dstOffset + length * 2
+	 * @param dstOffset
+	 * @return 写完后的下一个位置, 即dstOffset + length * 2
+	 */
+	public static int encodeHex(byte[] src, int offset, int length, char[] dst, int dstOffset) {
+		int j = dstOffset;
+		for (int i = offset, end = offset + length; i < end; i++) {
+			byte b = src[i];
+			dst[j++] = HEX_CODE[(b >> 4) & 0xF];
+			dst[j++] = HEX_CODE[b & 0xF];
+		}
+		return j;
+	}
+	
+	/**
+	 * 把src[offset, offset + length)编码成小写16进制的ASCII字节写到dst的dstOffset位置
+	 *
+	 * @param src
+	 * @param offset
+	 * @param length
+	 * @param dst       长度至少要dstOffset + length * 2
+	 * @param dstOffset
+	 * @return 写完后的下一个位置, 即dstOffset + length * 2
+	 */
+	public static int encodeHex(byte[] src, int offset, int length, byte[] dst, int dstOffset) {
+		int j = dstOffset;
+		for (int i = offset, end = offset + length; i < end; i++) {
+			byte b = src[i];
+			dst[j++] = (byte) HEX_CODE[(b >> 4) & 0xF];
+			dst[j++] = (byte) HEX_CODE[b & 0xF];
+		}
+		return j;
+	}
+	
+	/**
+	 * 把src剩余的字节编码成小写16进制的ASCII字节写到dst, 两个buffer的position都会往前推进
+	 *
+	 * @param src
+	 * @param dst remaining至少要src.remaining() * 2
+	 */
+	public static void encodeHex(ByteBuffer src, ByteBuffer dst) {
+		if (dst.remaining() < src.remaining() * 2) {
+			throw new IllegalArgumentException("dst remaining " + dst.remaining() + " is less than " + src.remaining() * 2);
+		}
+		while (src.hasRemaining()) {
+			byte b = src.get();
+			dst.put((byte) HEX_CODE[(b >> 4) & 0xF]);
+			dst.put((byte) HEX_CODE[b & 0xF]);
+		}
+	}
+	
+	/**
+	 * 把16进制字符串解码到dst里, 大小写都可以, 不做trim、toUpperCase之类的拷贝
+	 *
+	 * @param src 长度必须是偶数
+	 * @param dst 长度至少要src.length() / 2
+	 * @return 解码出来的字节数
+	 */
+	public static int decodeHex(CharSequence src, byte[] dst) {
+		return decodeHex(src, 0, src.length(), dst, 0);
+	}
+	
+	/**
+	 * 把src[start, end)这段16进制字符解码到dst的dstOffset位置
+	 *
+	 * @param src
+	 * @param start
+	 * @param end       end - start必须是偶数
+	 * @param dst
+	 * @param dstOffset
+	 * @return 解码出来的字节数
+	 */
+	public static int decodeHex(CharSequence src, int start, int end, byte[] dst, int dstOffset) {
+		int length = end - start;
+		if ((length & 1) != 0) {
+			throw new IllegalArgumentException("Hex string must have even length, but got " + length);
+		}
+		int j = dstOffset;
+		for (int i = start; i < end; i += 2) {
+			dst[j++] = (byte) ((hexDigit(src.charAt(i)) << 4) | hexDigit(src.charAt(i + 1)));
+		}
+		return length >> 1;
+	}
+	
+	/**
+	 * 把src[offset, offset + length)这段16进制ASCII字节解码到dst的dstOffset位置
+	 *
+	 * @param src
+	 * @param offset
+	 * @param length    必须是偶数
+	 * @param dst       长度至少要dstOffset + length / 2
+	 * @param dstOffset
+	 * @return 解码出来的字节数
+	 */
+	public static int decodeHex(byte[] src, int offset, int length, byte[] dst, int dstOffset) {
+		if ((length & 1) != 0) {
+			throw new IllegalArgumentException("Hex string must have even length, but got " + length);
+		}
+		int j = dstOffset;
+		for (int i = offset, end = offset + length; i < end; i += 2) {
+			dst[j++] = (byte) ((hexDigit((char) (src[i] & 0xFF)) << 4) | hexDigit((char) (src[i + 1] & 0xFF)));
+		}
+		return length >> 1;
+	}
+	
+	/**
+	 * 把src剩余的16进制ASCII字节解码写到dst, 两个buffer的position都会往前推进
+	 *
+	 * @param src remaining必须是偶数
+	 * @param dst
+	 * @return 解码出来的字节数
+	 */
+	public static int decodeHex(ByteBuffer src, ByteBuffer dst) {
+		int length = src.remaining();
+		if ((length & 1) != 0) {
+			throw new IllegalArgumentException("Hex string must have even length, but got " + length);
+		}
+		while (src.hasRemaining()) {
+			int high = hexDigit((char) (src.get() & 0xFF));
+			int low = hexDigit((char) (src.get() & 0xFF));
+			dst.put((byte) ((high << 4) | low));
+		}
+		return length >> 1;
+	}
+	
+	/**
+	 * 16进制字符串转long, 允许两边有空白符以及0x/0X前缀, 大小写都可以; 最多16位16进制数, 按无符号解析
+	 *
+	 * @param s
+	 * @return long
+	 */
+	public static long parseHexLong(CharSequence s) {
+		int start = hexStart(s);
+		return parseHexLong(s, start, hexEnd(s, start));
+	}
+	
+	/**
+	 * 把s[start, end)这段16进制字符转成long, 不允许空白符和前缀, 最多16位, 按无符号解析
+	 * <p>
+	 * 比如32位的traceId可以分两段解析成两个long
+	 *
+	 * @param s
+	 * @param start
+	 * @param end
+	 * @return long
+	 */
+	public static long parseHexLong(CharSequence s, int start, int end) {
+		int length = end - start;
+		if (length <= 0 || length > 16) {
+			throw new NumberFormatException("Hex long must have 1 to 16 digits, but got " + length);
+		}
 		long value = 0L;
-		for (int i = 0; i < s.length(); i++) {
-			char c = s.charAt(i);
-			int d = HEX_STR.indexOf(c);
-			value = 16 * value + d;
+		for (int i = start; i < end; i++) {
+			value = (value << 4) | hexDigit(s.charAt(i));
 		}
-
 		return value;
 	}
 	
-	public static String hexToBinary(String hex) {
-		hex = preCheck(hex);
-		return new BigInteger(hex, 16).toString(2);
+	/**
+	 * 16进制字符串转int, 允许两边有空白符以及0x/0X前缀, 大小写都可以; 最多8位16进制数, 按无符号解析
+	 *
+	 * @param s
+	 * @return int
+	 */
+	public static int parseHexInt(CharSequence s) {
+		int start = hexStart(s);
+		return parseHexInt(s, start, hexEnd(s, start));
+	}
+	
+	/**
+	 * 把s[start, end)这段16进制字符转成int, 不允许空白符和前缀, 最多8位, 按无符号解析
+	 *
+	 * @param s
+	 * @param start
+	 * @param end
+	 * @return int
+	 */
+	public static int parseHexInt(CharSequence s, int start, int end) {
+		int length = end - start;
+		if (length <= 0 || length > 8) {
+			throw new NumberFormatException("Hex int must have 1 to 8 digits, but got " + length);
+		}
+		int value = 0;
+		for (int i = start; i < end; i++) {
+			value = (value << 4) | hexDigit(s.charAt(i));
+		}
+		return value;
 	}
 	
 	/**
@@ -76,19 +331,333 @@ public class RedixUtils {
 	}
 	
 	/**
-	 * 对hex预处理, null检查, 空字符串检查, 两边trim, 去掉开头的0x
-	 * @param hex
+	 * 把value(按无符号数)定长编码成11位Base62字符串, 不足11位前面补0, 编码后的字典序和数值大小顺序一致
+	 * <p>
+	 * 适合把SnowflakeId编码成比十进制(19位)更短的字符串
+	 *
+	 * @param value
 	 * @return String
 	 */
-	private static String preCheck(String hex) {
-		if (hex == null || hex.trim().equals("")) {
-			throw new NullPointerException();
+	public static String toBase62(long value) {
+		char[] chars = new char[BASE62_LENGTH];
+		encodeBase62(value, chars, 0);
+		return new String(chars);
+	}
+	
+	/**
+	 * 把value(按无符号数)定长编码成11位Base62, 从dst的offset位置开始写, 不产生中间对象
+	 *
+	 * @param value
+	 * @param dst
+	 * @param offset
+	 * @return 写完后的下一个位置, 即offset + 11
+	 */
+	public static int encodeBase62(long value, char[] dst, int offset) {
+		int end = offset + BASE62_LENGTH;
+		int i = end - 1;
+		//先按无符号除一次, 剩下的商一定是正数, 后面就可以用普通的除法
+		long quotient = Long.divideUnsigned(value, 62);
+		dst[i--] = BASE62_CODE[(int) (value - quotient * 62)];
+		value = quotient;
+		while (i >= offset) {
+			quotient = value / 62;
+			dst[i--] = BASE62_CODE[(int) (value - quotient * 62)];
+			value = quotient;
 		}
-		
-		hex = hex.trim().toUpperCase();
-		if (hex.indexOf("0X") != -1) {
-			hex = hex.substring(2);
+		return end;
+	}
+	
+	/**
+	 * 把value(按无符号数)定长编码成11位Base62的ASCII字节, 从dst的offset位置开始写, 比如直接写Redis key的byte[]
+	 *
+	 * @param value
+	 * @param dst
+	 * @param offset
+	 * @return 写完后的下一个位置, 即offset + 11
+	 */
+	public static int encodeBase62(long value, byte[] dst, int offset) {
+		int end = offset + BASE62_LENGTH;
+		int i = end - 1;
+		long quotient = Long.divideUnsigned(value, 62);
+		dst[i--] = (byte) BASE62_CODE[(int) (value - quotient * 62)];
+		value = quotient;
+		while (i >= offset) {
+			quotient = value / 62;
+			dst[i--] = (byte) BASE62_CODE[(int) (value - quotient * 62)];
+			value = quotient;
+		}
+		return end;
+	}
+	
+	/**
+	 * 把value(按无符号数)定长编码成11位Base62追加到sb后面
+	 *
+	 * @param value
+	 * @param sb
+	 * @return 传入的sb
+	 */
+	public static StringBuilder appendBase62(long value, StringBuilder sb) {
+		int end = sb.length() + BASE62_LENGTH;
+		sb.setLength(end);
+		int i = end - 1;
+		long quotient = Long.divideUnsigned(value, 62);
+		sb.setCharAt(i--, BASE62_CODE[(int) (value - quotient * 62)]);
+		value = quotient;
+		while (i >= end - BASE62_LENGTH) {
+			quotient = value / 62;
+			sb.setCharAt(i--, BASE62_CODE[(int) (value - quotient * 62)]);
+			value = quotient;
+		}
+		return sb;
+	}
+	
+	/**
+	 * 解码11位定长Base62字符串
+	 *
+	 * @param src
+	 * @return long
+	 */
+	public static long fromBase62(CharSequence src) {
+		if (src == null || src.length() != BASE62_LENGTH) {
+			throw new IllegalArgumentException("Base62 string must be " + BASE62_LENGTH + " characters, but got " + src);
+		}
+		return decodeBase62(src, 0);
+	}
+	
+	/**
+	 * 从src的offset位置开始解码11位Base62
+	 *
+	 * @param src
+	 * @param offset
+	 * @return long
+	 */
+	public static long decodeBase62(CharSequence src, int offset) {
+		long value = 0L;
+		for (int i = offset, end = offset + BASE62_LENGTH; i < end; i++) {
+			value = base62Accumulate(value, src.charAt(i));
+		}
+		return value;
+	}
+	
+	/**
+	 * 从src的offset位置开始解码11位Base62
+	 *
+	 * @param src
+	 * @param offset
+	 * @return long
+	 */
+	public static long decodeBase62(char[] src, int offset) {
+		long value = 0L;
+		for (int i = offset, end = offset + BASE62_LENGTH; i < end; i++) {
+			value = base62Accumulate(value, src[i]);
+		}
+		return value;
+	}
+	
+	/**
+	 * 从src的offset位置开始解码11位Base62的ASCII字节
+	 *
+	 * @param src
+	 * @param offset
+	 * @return long
+	 */
+	public static long decodeBase62(byte[] src, int offset) {
+		long value = 0L;
+		for (int i = offset, end = offset + BASE62_LENGTH; i < end; i++) {
+			value = base62Accumulate(value, (char) (src[i] & 0xFF));
+		}
+		return value;
+	}
+	
+	/**
+	 * 把value(按无符号数)定长编码成13位Crockford Base32字符串, 编码后的字典序和数值大小顺序一致
+	 *
+	 * @param value
+	 * @return String
+	 */
+	public static String toBase32(long value) {
+		char[] chars = new char[BASE32_LENGTH];
+		encodeBase32(value, chars, 0);
+		return new String(chars);
+	}
+	
+	/**
+	 * 把value(按无符号数)定长编码成13位Crockford Base32, 从dst的offset位置开始写
+	 *
+	 * @param value
+	 * @param dst
+	 * @param offset
+	 * @return 写完后的下一个位置, 即offset + 13
+	 */
+	public static int encodeBase32(long value, char[] dst, int offset) {
+		int end = offset + BASE32_LENGTH;
+		for (int i = end - 1; i >= offset; i--) {
+			dst[i] = BASE32_CODE[(int) (value & 0x1F)];
+			value >>>= 5;
+		}
+		return end;
+	}
+	
+	/**
+	 * 把value(按无符号数)定长编码成13位Crockford Base32的ASCII字节, 从dst的offset位置开始写
+	 *
+	 * @param value
+	 * @param dst
+	 * @param offset
+	 * @return 写完后的下一个位置, 即offset + 13
+	 */
+	public static int encodeBase32(long value, byte[] dst, int offset) {
+		int end = offset + BASE32_LENGTH;
+		for (int i = end - 1; i >= offset; i--) {
+			dst[i] = (byte) BASE32_CODE[(int) (value & 0x1F)];
+			value >>>= 5;
+		}
+		return end;
+	}
+	
+	/**
+	 * 把value(按无符号数)定长编码成13位Crockford Base32追加到sb后面
+	 *
+	 * @param value
+	 * @param sb
+	 * @return 传入的sb
+	 */
+	public static StringBuilder appendBase32(long value, StringBuilder sb) {
+		for (int shift = (BASE32_LENGTH - 1) * 5; shift >= 0; shift -= 5) {
+			sb.append(BASE32_CODE[(int) ((value >>> shift) & 0x1F)]);
+		}
+		return sb;
+	}
+	
+	/**
+	 * 解码13位定长Crockford Base32字符串, 大小写不敏感
+	 *
+	 * @param src
+	 * @return long
+	 */
+	public static long fromBase32(CharSequence src) {
+		if (src == null || src.length() != BASE32_LENGTH) {
+			throw new IllegalArgumentException("Base32 string must be " + BASE32_LENGTH + " characters, but got " + src);
+		}
+		return decodeBase32(src, 0);
+	}
+	
+	/**
+	 * 从src的offset位置开始解码13位Crockford Base32
+	 *
+	 * @param src
+	 * @param offset
+	 * @return long
+	 */
+	public static long decodeBase32(CharSequence src, int offset) {
+		long value = base32Digit(src.charAt(offset));
+		if (value > 0xF) {
+			throw new IllegalArgumentException("Base32 value overflow: first character must be less than 'G'");
+		}
+		for (int i = offset + 1, end = offset + BASE32_LENGTH; i < end; i++) {
+			value = (value << 5) | base32Digit(src.charAt(i));
+		}
+		return value;
+	}
+	
+	/**
+	 * 从src的offset位置开始解码13位Crockford Base32
+	 *
+	 * @param src
+	 * @param offset
+	 * @return long
+	 */
+	public static long decodeBase32(char[] src, int offset) {
+		long value = base32Digit(src[offset]);
+		if (value > 0xF) {
+			throw new IllegalArgumentException("Base32 value overflow: first character must be less than 'G'");
+		}
+		for (int i = offset + 1, end = offset + BASE32_LENGTH; i < end; i++) {
+			value = (value << 5) | base32Digit(src[i]);
+		}
+		return value;
+	}
+	
+	/**
+	 * 从src的offset位置开始解码13位Crockford Base32的ASCII字节
+	 *
+	 * @param src
+	 * @param offset
+	 * @return long
+	 */
+	public static long decodeBase32(byte[] src, int offset) {
+		long value = base32Digit((char) (src[offset] & 0xFF));
+		if (value > 0xF) {
+			throw new IllegalArgumentException("Base32 value overflow: first character must be less than 'G'");
+		}
+		for (int i = offset + 1, end = offset + BASE32_LENGTH; i < end; i++) {
+			value = (value << 5) | base32Digit((char) (src[i] & 0xFF));
+		}
+		return value;
+	}
+	
+	private static long base62Accumulate(long value, char c) {
+		int digit = c < 128 ? BASE62_DECODE[c] : -1;
+		if (digit < 0) {
+			throw new IllegalArgumentException("Illegal Base62 character: " + c);
+		}
+		if (Long.compareUnsigned(value, BASE62_MAX_BEFORE_MULTIPLY) > 0) {
+			throw new IllegalArgumentException("Base62 value overflow");
+		}
+		long multiplied = value * 62;
+		long result = multiplied + digit;
+		if (Long.compareUnsigned(result, multiplied) < 0) {
+			throw new IllegalArgumentException("Base62 value overflow");
+		}
+		return result;
+	}
+	
+	private static int base32Digit(char c) {
+		int digit = c < 128 ? BASE32_DECODE[c] : -1;
+		if (digit < 0) {
+			throw new IllegalArgumentException("Illegal Base32 character: " + c);
+		}
+		return digit;
+	}
+	
+	private static int hexDigit(char c) {
+		int digit = c < 128 ? HEX_DECODE[c] : -1;
+		if (digit < 0) {
+			throw new NumberFormatException("Illegal hex character: " + c);
+		}
+		return digit;
+	}
+	
+	/**
+	 * 跳过开头的空白符和0x/0X前缀, 返回第一个16进制数字的位置
+	 *
+	 * @param s
+	 * @return int
+	 */
+	private static int hexStart(CharSequence s) {
+		int start = 0;
+		int length = s.length();
+		while (start < length && Character.isWhitespace(s.charAt(start))) {
+			start++;
+		}
+		if (start + 1 < length && s.charAt(start) == '0' && (s.charAt(start + 1) == 'x' || s.charAt(start + 1) == 'X')) {
+			start += 2;
+		}
+		return start;
+	}
+	
+	/**
+	 * 跳过结尾的空白符, 返回最后一个16进制数字的下一个位置
+	 *
+	 * @param s
+	 * @param start
+	 * @return int
+	 */
+	private static int hexEnd(CharSequence s, int start) {
+		int end = s.length();
+		while (end > start && Character.isWhitespace(s.charAt(end - 1))) {
+			end--;
 		}
-		return hex;
+		return end;
 	}
 }
@@ -19,6 +19,7 @@ import java.lang.reflect.Modifier;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -56,6 +57,8 @@ public class ReflectionUtils {
 	
 	private static final Field[] NO_FIELDS = {};
 	
+	private static final Class<?>[] NO_PARAMETER_TYPES = {};
+	
 	/**
 	 * Cache for {@link Class#getDeclaredMethods()} plus equivalent default methods
 	 * from Java 8 based interfaces, allowing for fast iteration.
@@ -79,6 +82,26 @@ public class ReflectionUtils {
 	 */
 	private static final Pattern flaxableNamePattern = Pattern.compile("[-_\\s]");
 	
+	/**
+	 * 每个类一份字段索引: 这个类和父类(不包括Object)的所有字段按名字摊平, 查找、判断存在与否都只查一次hash表
+	 */
+	private static final ClassValue<FieldIndex> fieldIndexes = new ClassValue<FieldIndex>() {
+		@Override
+		protected FieldIndex computeValue(Class<?> type) {
+			return new FieldIndex(type);
+		}
+	};
+	
+	/**
+	 * 每个类一份方法索引: 这个类和父类(包括Object)的所有方法按名字摊平
+	 */
+	private static final ClassValue<MethodIndex> methodIndexes = new ClassValue<MethodIndex>() {
+		@Override
+		protected MethodIndex computeValue(Class<?> type) {
+			return new MethodIndex(type);
+		}
+	};
+	
 	/**
 	 * Action to take on each method.
 	 */
@@ -143,17 +166,7 @@ public class ReflectionUtils {
 	public static boolean existsField(Object obj, String name) {
 		Assert.notNull(obj, "obj must not be null");
 		Assert.notNull(name, "name must not be null");
-		Class<?> searchType = obj.getClass();
-		while (Object.class != searchType && searchType != null) {
-			Field[] fields = getDeclaredFields(searchType);
-			for (Field field : fields) {
-				if (name.equals(field.getName())) {
-					return true;
-				}
-			}
-			searchType = searchType.getSuperclass();
-		}
-		return false;
+		return fieldIndexes.get(obj.getClass()).byName.containsKey(name);
 	}
 	
 	/**
@@ -181,14 +194,13 @@ public class ReflectionUtils {
 	}
 	
 	public static void setField(String fieldName, Object target, Object value) {
+		FieldAccessor accessor = FieldAccessor.of(target.getClass(), fieldName);
+		if (accessor == null) {
+			return;
+		}
 		try {
-			Field field = findField(target.getClass(), fieldName);
-			if (field == null) {
-				return;
-			}
-			makeAccessible(field);
-			field.set(target, value);
-		} catch (IllegalAccessException ex) {
+			accessor.set(target, value);
+		} catch (IllegalStateException ex) {
 			logger.error("", ex);
 			logger.error("Set value {} for field {} failed!", value, fieldName);
 		}
@@ -293,6 +305,18 @@ public class ReflectionUtils {
 			targetClass = ultimateTarget.getClass();
 		}
 		
+		// 按名字找到的字段类型也对得上的话直接用缓存的FieldAccessor
+		FieldAccessor accessor = name == null ? null : FieldAccessor.of(targetClass, name);
+		if (accessor != null && (type == null || type.equals(accessor.getType()))) {
+			if (logger.isDebugEnabled()) {
+				logger.debug(String.format(
+						"Setting field '%s' of type [%s] on %s or target class [%s] to value [%s]", name, type,
+						safeToString(ultimateTarget), targetClass, value));
+			}
+			accessor.set(ultimateTarget, value);
+			return;
+		}
+		
 		Field field = findField(targetClass, name, type);
 		if (field == null) {
 			throw new IllegalArgumentException(String.format(
@@ -345,16 +369,15 @@ public class ReflectionUtils {
 	public static Field findField(Class<?> clazz, String name, Class<?> type) {
 		Assert.notNull(clazz, "Class must not be null");
 		Assert.isTrue(name != null || type != null, "Either name or type of the field must be specified");
-		Class<?> searchType = clazz;
-		while (Object.class != searchType && searchType != null) {
-			Field[] fields = getDeclaredFields(searchType);
-			for (Field field : fields) {
-				if ((name == null || name.equals(field.getName())) &&
-						(type == null || type.equals(field.getType()))) {
-					return field;
-				}
+		FieldIndex index = fieldIndexes.get(clazz);
+		Field[] fields = name == null ? index.fields : index.byName.get(name);
+		if (fields == null) {
+			return null;
+		}
+		for (Field field : fields) {
+			if (type == null || type.equals(field.getType())) {
+				return field;
 			}
-			searchType = searchType.getSuperclass();
 		}
 		return null;
 	}
@@ -464,8 +487,8 @@ public class ReflectionUtils {
 			targetClass = ultimateTarget.getClass();
 		}
 		
-		Field field = findField(targetClass, name);
-		if (field == null) {
+		FieldAccessor accessor = FieldAccessor.of(targetClass, name);
+		if (accessor == null) {
 			// throw new IllegalArgumentException(String.format("Could not find field '%s'
 			// on %s or target class [%s]", name, safeToString(ultimateTarget),
 			// targetClass));
@@ -476,8 +499,7 @@ public class ReflectionUtils {
 			logger.debug(String.format("Getting field '%s' from %s or target class [%s]", name,
 					safeToString(ultimateTarget), targetClass));
 		}
-		makeAccessible(field);
-		return org.springframework.util.ReflectionUtils.getField(field, ultimateTarget);
+		return accessor.getObject(ultimateTarget);
 	}
 	
 	public static Object getFieldValue(Object targetObject, Class<?> targetClass, String name) {
@@ -490,8 +512,8 @@ public class ReflectionUtils {
 			targetClass = ultimateTarget.getClass();
 		}
 		
-		Field field = findField(targetClass, name);
-		if (field == null) {
+		FieldAccessor accessor = FieldAccessor.of(targetClass, name);
+		if (accessor == null) {
 			throw new IllegalArgumentException(String.format("Could not find field '%s' on %s or target class [%s]",
 					name, safeToString(ultimateTarget), targetClass));
 		}
@@ -500,25 +522,16 @@ public class ReflectionUtils {
 			logger.debug(String.format("Getting field '%s' from %s or target class [%s]", name,
 					safeToString(ultimateTarget), targetClass));
 		}
-		makeAccessible(field);
-		return org.springframework.util.ReflectionUtils.getField(field, ultimateTarget);
+		return accessor.getObject(ultimateTarget);
 	}
 	
 	@SuppressWarnings("unchecked")
 	public static <T> T getFieldValue(String fieldName, Object target) {
-		Field field = findField(target.getClass(), fieldName);
-		if (field == null) {
+		FieldAccessor accessor = FieldAccessor.of(target.getClass(), fieldName);
+		if (accessor == null) {
 			return null;
 		}
-		
-		try {
-			field.setAccessible(true);
-			return (T) field.get(target);
-		} catch (IllegalAccessException ex) {
-			handleReflectionException(ex);
-			throw new IllegalStateException(
-					"Unexpected reflection exception - " + ex.getClass().getName() + ": " + ex.getMessage());
-		}
+		return (T) accessor.getObject(target);
 	}
 	
 	/**
@@ -559,16 +572,18 @@ public class ReflectionUtils {
 	public static Method findMethod(Class<?> clazz, String name, Class<?>... paramTypes) {
 		Assert.notNull(clazz, "Class must not be null");
 		Assert.notNull(name, "Method name must not be null");
-		Class<?> searchType = clazz;
-		while (searchType != null) {
-			Method[] methods = (searchType.isInterface() ? searchType.getMethods() : getDeclaredMethods(searchType));
-			for (Method method : methods) {
-				if (name.equals(method.getName()) &&
-						(paramTypes == null || Arrays.equals(paramTypes, method.getParameterTypes()))) {
-					return method;
-				}
+		Method[] methods = methodIndexes.get(clazz).byName.get(name);
+		if (methods == null) {
+			return null;
+		}
+		if (paramTypes == null) {
+			return methods[0];
+		}
+		// 同名的重载方法一般只有几个, 按参数类型挨个比较
+		for (Method method : methods) {
+			if (Arrays.equals(paramTypes, method.getParameterTypes())) {
+				return method;
 			}
-			searchType = searchType.getSuperclass();
 		}
 		return null;
 	}
@@ -635,21 +650,23 @@ public class ReflectionUtils {
 		Assert.notNull(target, "Target object must not be null");
 		Assert.hasText(name, "Method name must not be empty");
 		
+		MethodAccessor accessor = null;
 		try {
-			MethodInvoker methodInvoker = new MethodInvoker();
-			methodInvoker.setTargetObject(target);
-			methodInvoker.setTargetMethod(name);
-			methodInvoker.setArguments(args);
-			methodInvoker.prepare();
-			
-			if (logger.isDebugEnabled()) {
-				logger.debug(String.format("Invoking method '%s' on %s with arguments %s", name, safeToString(target),
-						ObjectUtils.nullSafeToString(args)));
-			}
-			
-			return (T) methodInvoker.invoke();
+			// 和MethodInvoker找的是同一个方法, 按(类, 方法名, 参数类型)缓存
+			accessor = MethodAccessor.forArguments(target.getClass(), name, args);
 		} catch (Exception ex) {
 			handleReflectionException(ex);
+		}
+		
+		if (logger.isDebugEnabled()) {
+			logger.debug(String.format("Invoking method '%s' on %s with arguments %s", name, safeToString(target),
+					ObjectUtils.nullSafeToString(args)));
+		}
+		
+		try {
+			return (T) accessor.call(target, args);
+		} catch (Throwable ex) {
+			rethrowRuntimeException(ex);
 			throw new IllegalStateException("Should never get here");
 		}
 	}
@@ -799,12 +816,12 @@ public class ReflectionUtils {
 			setterMethodName = SETTER_PREFIX + StringUtils.capitalize(name);
 		}
 		
-		Method method = findMethod(target.getClass(), setterMethodName, paramTypes);
-		if (method == null && !setterMethodName.equals(name)) {
+		MethodAccessor accessor = MethodAccessor.find(target.getClass(), setterMethodName, paramTypes);
+		if (accessor == null && !setterMethodName.equals(name)) {
 			setterMethodName = name;
-			method = findMethod(target.getClass(), setterMethodName, paramTypes);
+			accessor = MethodAccessor.find(target.getClass(), setterMethodName, paramTypes);
 		}
-		if (method == null) {
+		if (accessor == null) {
 			throw new IllegalArgumentException(String.format(
 					"Could not find setter method '%s' on %s with parameter type [%s]", setterMethodName,
 					safeToString(target), type));
@@ -815,8 +832,7 @@ public class ReflectionUtils {
 					safeToString(target), value));
 		}
 		
-		makeAccessible(method);
-		org.springframework.util.ReflectionUtils.invokeMethod(method, target, value);
+		accessor.invoke(target, value);
 	}
 	
 	/**
@@ -850,12 +866,12 @@ public class ReflectionUtils {
 		if (!name.startsWith(GETTER_PREFIX)) {
 			getterMethodName = GETTER_PREFIX + StringUtils.capitalize(name);
 		}
-		Method method = findMethod(target.getClass(), getterMethodName);
-		if (method == null && !getterMethodName.equals(name)) {
+		MethodAccessor accessor = MethodAccessor.find(target.getClass(), getterMethodName, NO_PARAMETER_TYPES);
+		if (accessor == null && !getterMethodName.equals(name)) {
 			getterMethodName = name;
-			method = findMethod(target.getClass(), getterMethodName);
+			accessor = MethodAccessor.find(target.getClass(), getterMethodName, NO_PARAMETER_TYPES);
 		}
-		if (method == null) {
+		if (accessor == null) {
 			throw new IllegalArgumentException(String.format(
 					"Could not find getter method '%s' on %s", getterMethodName, safeToString(target)));
 		}
@@ -863,8 +879,7 @@ public class ReflectionUtils {
 		if (logger.isDebugEnabled()) {
 			logger.debug(String.format("Invoking getter method '%s' on %s", getterMethodName, safeToString(target)));
 		}
-		makeAccessible(method);
-		return org.springframework.util.ReflectionUtils.invokeMethod(method, target);
+		return accessor.invoke(target);
 	}
 	
 	/**
@@ -1465,4 +1480,51 @@ public class ReflectionUtils {
 		}
 	}
 	
+	/**
+	 * 字段按findField()遍历的顺序(子类在前, 同一个类按声明顺序)排好, 同名的放在一起; 不在byName里就是没有这个字段
+	 */
+	private static final class FieldIndex {
+		
+		private final Field[] fields;
+		
+		private final Map<String, Field[]> byName;
+		
+		private FieldIndex(Class<?> clazz) {
+			List<Field> fields = new ArrayList<>();
+			Map<String, List<Field>> byName = new HashMap<>();
+			Class<?> searchType = clazz;
+			while (Object.class != searchType && searchType != null) {
+				for (Field field : getDeclaredFields(searchType)) {
+					fields.add(field);
+					byName.computeIfAbsent(field.getName(), key -> new ArrayList<>(1)).add(field);
+				}
+				searchType = searchType.getSuperclass();
+			}
+			this.fields = fields.toArray(NO_FIELDS);
+			this.byName = new HashMap<>(byName.size() * 2);
+			byName.forEach((name, list) -> this.byName.put(name, list.toArray(NO_FIELDS)));
+		}
+	}
+	
+	/**
+	 * 方法按findMethod()遍历的顺序(子类在前, 一直到Object)排好, 同名的放在一起; 不在byName里就是没有这个方法
+	 */
+	private static final class MethodIndex {
+		
+		private final Map<String, Method[]> byName;
+		
+		private MethodIndex(Class<?> clazz) {
+			Map<String, List<Method>> byName = new HashMap<>();
+			Class<?> searchType = clazz;
+			while (searchType != null) {
+				Method[] methods = (searchType.isInterface() ? searchType.getMethods() : getDeclaredMethods(searchType));
+				for (Method method : methods) {
+					byName.computeIfAbsent(method.getName(), key -> new ArrayList<>(1)).add(method);
+				}
+				searchType = searchType.getSuperclass();
+			}
+			this.byName = new HashMap<>(byName.size() * 2);
+			byName.forEach((name, list) -> this.byName.put(name, list.toArray(NO_METHODS)));
+		}
+	}
 }
\ No newline at end of file
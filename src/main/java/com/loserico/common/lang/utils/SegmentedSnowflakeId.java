@@ -0,0 +1,94 @@
+package com.loserico.common.lang.utils;
+
+/**
+ * 按线程分段的SnowflakeId生成器
+ * <p>
+ * 每个线程一次从共享的{@link SnowflakeId}里用一次CAS预留一段(segmentSize个)同一毫秒内的连续序列,
+ * 之后在这段序列里用普通的自增发号, 只有这段用完或者时钟已经走到下一毫秒了才再去碰共享状态。
+ * 各线程预留的段互不重叠, 所以ID全局唯一; 段过期(时钟走到下一毫秒)时剩下的序列直接丢弃,
+ * 所以ID里的时间截和发号时间处在同一毫秒(秒级时间截的话是同一秒)
+ * <p>
+ * 段越大共享状态的竞争越少, 但同一毫秒内能同时持有段的线程越少(默认布局下是4096 / segmentSize)
+ * <p>
+ * Copyright: (C), 2020/5/7 14:36
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+public class SegmentedSnowflakeId {
+
+	/** 默认每个线程一次预留64个序列 */
+	private static final int DEFAULT_SEGMENT_SIZE = 64;
+
+	private final SnowflakeId idWorker;
+
+	private final int segmentSize;
+
+	private final ThreadLocal<Segment> segments = ThreadLocal.withInitial(Segment::new);
+
+	/**
+	 * @param workerId     工作ID (0~31)
+	 * @param datacenterId 数据中心ID (0~31)
+	 */
+	public SegmentedSnowflakeId(long workerId, long datacenterId) {
+		this(new SnowflakeId(workerId, datacenterId), DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * @param idWorker    真正分配序列的SnowflakeId, 可以和其他调用方共用
+	 * @param segmentSize 每个线程一次预留多少个序列, 超过毫秒内序列总数时按序列总数算
+	 */
+	public SegmentedSnowflakeId(SnowflakeId idWorker, int segmentSize) {
+		if (idWorker == null) {
+			throw new IllegalArgumentException("idWorker can't be null");
+		}
+		if (segmentSize < 1) {
+			throw new IllegalArgumentException("segmentSize can't be less than 1");
+		}
+		this.idWorker = idWorker;
+		this.segmentSize = segmentSize;
+	}
+
+	/**
+	 * 从当前线程的段里取下一个ID, 段用完或者过期了才去共享的SnowflakeId再预留一段
+	 *
+	 * @return SnowflakeId
+	 */
+	public long nextId() {
+		Segment segment = segments.get();
+		if (segment.index >= segment.count || idWorker.timeGen() >= segment.expireAt) {
+			refill(segment);
+		}
+		return segment.ids[segment.index++];
+	}
+
+	/**
+	 * 一次CAS预留一段同一毫秒内的序列, 当前毫秒剩下的序列不够segmentSize时段会短一些
+	 */
+	private void refill(Segment segment) {
+		if (segment.ids == null) {
+			segment.ids = new long[segmentSize];
+		}
+		segment.count = idWorker.reserve(segment.ids, 0, segmentSize);
+		segment.index = 0;
+		segment.expireAt = idWorker.timestampOf(segment.ids[0]) + idWorker.tickMillis();
+	}
+
+	/**
+	 * 当前线程持有的一段ID: ids[index, count)
+	 */
+	private static final class Segment {
+
+		private long[] ids;
+
+		private int index;
+
+		private int count;
+
+		/** 时钟走到这个时间(毫秒)后这段ID就过期了, 也就是这段ID所在毫秒(或秒)的下一个毫秒(或秒) */
+		private long expireAt;
+	}
+}
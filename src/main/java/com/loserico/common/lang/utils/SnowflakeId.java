@@ -1,5 +1,12 @@
 package com.loserico.common.lang.utils;
 
+import lombok.Data;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
 /**
  * Twitter_Snowflake<br>
  * SnowFlake的结构如下(每部分用-分开):<br>
@@ -10,126 +17,583 @@ package com.loserico.common.lang.utils;
  * 10位的数据机器位，可以部署在1024个节点，包括5位datacenterId和5位workerId<br>
  * 12位序列，毫秒内的计数，12位的计数顺序号支持每个节点每毫秒(同一机器，同一时间截)产生4096个ID序号<br>
  * 加起来刚好64位，为一个Long型。<br>
- * SnowFlake的优点是，整体上按照时间自增排序，并且整个分布式系统内不会产生ID碰撞(由数据中心ID和机器ID作区分)，并且效率较高，经测试，SnowFlake每秒能够产生26万ID左右。
+ * SnowFlake的优点是，整体上按照时间自增排序，并且整个分布式系统内不会产生ID碰撞(由数据中心ID和机器ID作区分)，并且效率较高，经测试，SnowFlake每秒能够产生26万ID左右。<br>
+ * 时间截和毫秒内序列打包在一个AtomicLong里, 通过CAS推进, 不加锁; 批量生成时一次CAS预留一整段序列<br>
+ * 时钟回退时的行为由{@link ClockBackwardsPolicy}决定, 默认直接抛异常<br>
+ * 上面是默认的位分布, 通过{@link #builder()}可以指定开始时间截、各部分的位数以及秒级的时间截,
+ * 比如单节点吞吐很高时可以少给机器位, 多给序列位
  */
 public class SnowflakeId {
 
-    /** 开始时间截 (2015-01-01) */
-    private final long twepoch = 1420041600000L;
+    /** 默认开始时间截 (2015-01-01) */
+    public static final long DEFAULT_TWEPOCH = 1420041600000L;
+
+    /** 等待时钟追上时每次park的时长, 0.1毫秒 */
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /** 开始时间截, 默认2015-01-01 */
+    private final long twepoch;
+
+    /** 时间截的单位, 毫秒级是1, 秒级是1000 */
+    private final long tickMillis;
 
     /** 机器id所占的位数 */
-    private final long workerIdBits = 5L;
+    private final long workerIdBits;
 
     /** 数据标识id所占的位数 */
-    private final long datacenterIdBits = 5L;
+    private final long datacenterIdBits;
 
-    /** 支持的最大机器id，结果是31 (这个移位算法可以很快的计算出几位二进制数所能表示的最大十进制数) */
-    private final long maxWorkerId = -1L ^ (-1L << workerIdBits);
+    /** 支持的最大机器id，默认结果是31 (这个移位算法可以很快的计算出几位二进制数所能表示的最大十进制数) */
+    private final long maxWorkerId;
 
-    /** 支持的最大数据标识id，结果是31 */
-    private final long maxDatacenterId = -1L ^ (-1L << datacenterIdBits);
+    /** 支持的最大数据标识id，默认结果是31 */
+    private final long maxDatacenterId;
 
     /** 序列在id中占的位数 */
-    private final long sequenceBits = 12L;
+    private final long sequenceBits;
 
     /** 机器ID向左移12位 */
-    private final long workerIdShift = sequenceBits;
+    private final long workerIdShift;
 
     /** 数据标识id向左移17位(12+5) */
-    private final long datacenterIdShift = sequenceBits + workerIdBits;
+    private final long datacenterIdShift;
 
     /** 时间截向左移22位(5+5+12) */
-    private final long timestampLeftShift = sequenceBits + workerIdBits + datacenterIdBits;
+    private final long timestampLeftShift;
 
-    /** 生成序列的掩码，这里为4095 (0b111111111111=0xfff=4095) */
-    private final long sequenceMask = -1L ^ (-1L << sequenceBits);
+    /** 生成序列的掩码，默认为4095 (0b111111111111=0xfff=4095) */
+    private final long sequenceMask;
 
     /** 工作机器ID(0~31) */
-    private long workerId;
+    private final long workerId;
 
     /** 数据中心ID(0~31) */
-    private long datacenterId;
+    private final long datacenterId;
+
+    /**
+     * 上次生成ID的状态: 高位是上次生成ID的时间截(相对twepoch), 低12位是毫秒内序列(0~4095)
+     * 其实就是不带数据中心ID和机器ID的上一个ID, 通过CAS整体替换
+     */
+    private final AtomicLong state = new AtomicLong(0L);
+
+    /** 时钟回退时的处理策略 */
+    private final ClockBackwardsPolicy clockBackwardsPolicy;
+
+    /** 能容忍的最大时钟回退毫秒数, 超过这个值不管什么策略都抛异常 */
+    private final long maxBackwardsMillis;
 
-    /** 毫秒内序列(0~4095) */
-    private long sequence = 0L;
+    /** maxBackwardsMillis换算成时间截的单位 */
+    private final long maxBackwardsTicks;
 
-    /** 上次生成ID的时间截 */
-    private long lastTimestamp = -1L;
+    /** 读当前时间用的时钟, 为null时直接用System.currentTimeMillis() */
+    private final Clock clock;
 
     //==============================Constructors=====================================
     /**
-     * 构造函数
+     * 构造函数, 时钟回退时直接抛异常
      * @param workerId 工作ID (0~31)
      * @param datacenterId 数据中心ID (0~31)
      */
     public SnowflakeId(long workerId, long datacenterId) {
+        this(workerId, datacenterId, ClockBackwardsPolicy.REJECT, 0L);
+    }
+
+    /**
+     * 构造函数
+     * @param workerId 工作ID (0~31)
+     * @param datacenterId 数据中心ID (0~31)
+     * @param clockBackwardsPolicy 时钟回退时的处理策略
+     * @param maxBackwardsMillis 能容忍的最大时钟回退毫秒数
+     */
+    public SnowflakeId(long workerId, long datacenterId, ClockBackwardsPolicy clockBackwardsPolicy, long maxBackwardsMillis) {
+        this(new Builder()
+                .workerId(workerId)
+                .datacenterId(datacenterId)
+                .clockBackwardsPolicy(clockBackwardsPolicy, maxBackwardsMillis));
+    }
+
+    protected SnowflakeId(Builder builder) {
+        if (builder.workerIdBits < 0 || builder.datacenterIdBits < 0 || builder.sequenceBits < 1) {
+            throw new IllegalArgumentException("workerIdBits and datacenterIdBits can't be less than 0, sequenceBits can't be less than 1");
+        }
+        long nodeAndSequenceBits = builder.workerIdBits + builder.datacenterIdBits + builder.sequenceBits;
+        if (nodeAndSequenceBits > 31) {
+            throw new IllegalArgumentException(String.format(
+                    "workerIdBits + datacenterIdBits + sequenceBits can't be greater than 31, at least 32 bits should be left for timestamp, but got %d",
+                    nodeAndSequenceBits));
+        }
+        if (builder.twepoch < 0) {
+            throw new IllegalArgumentException("twepoch can't be less than 0");
+        }
+        this.twepoch = builder.twepoch;
+        this.tickMillis = builder.timeUnit.toMillis(1);
+        this.workerIdBits = builder.workerIdBits;
+        this.datacenterIdBits = builder.datacenterIdBits;
+        this.sequenceBits = builder.sequenceBits;
+        this.maxWorkerId = -1L ^ (-1L << workerIdBits);
+        this.maxDatacenterId = -1L ^ (-1L << datacenterIdBits);
+        this.workerIdShift = sequenceBits;
+        this.datacenterIdShift = sequenceBits + workerIdBits;
+        this.timestampLeftShift = sequenceBits + workerIdBits + datacenterIdBits;
+        this.sequenceMask = -1L ^ (-1L << sequenceBits);
+
+        long workerId = builder.workerId;
+        long datacenterId = builder.datacenterId;
         if (workerId > maxWorkerId || workerId < 0) {
             throw new IllegalArgumentException(String.format("worker Id can't be greater than %d or less than 0", maxWorkerId));
         }
         if (datacenterId > maxDatacenterId || datacenterId < 0) {
             throw new IllegalArgumentException(String.format("datacenter Id can't be greater than %d or less than 0", maxDatacenterId));
         }
+        if (builder.clockBackwardsPolicy == null) {
+            throw new IllegalArgumentException("clockBackwardsPolicy can't be null");
+        }
+        if (builder.maxBackwardsMillis < 0) {
+            throw new IllegalArgumentException("maxBackwardsMillis can't be less than 0");
+        }
         this.workerId = workerId;
         this.datacenterId = datacenterId;
+        this.clockBackwardsPolicy = builder.clockBackwardsPolicy;
+        this.maxBackwardsMillis = builder.maxBackwardsMillis;
+        this.maxBackwardsTicks = maxBackwardsMillis / tickMillis;
+        this.clock = builder.clock;
+    }
+
+    /**
+     * 通过Builder指定开始时间截、各部分位数、时间截单位等, 没有指定的部分和默认布局一致
+     * <pre>
+     * SnowflakeId idWorker = SnowflakeId.builder()
+     *         .twepoch(1577808000000L)
+     *         .datacenterIdBits(2)
+     *         .workerIdBits(4)
+     *         .sequenceBits(16)
+     *         .workerId(3)
+     *         .build();
+     * </pre>
+     * @return Builder
+     */
+    public static Builder builder() {
+        return new Builder();
     }
 
     // ==============================Methods==========================================
     /**
-     * 获得下一个ID (该方法是线程安全的)
+     * 获得下一个ID (该方法是线程安全的, 无锁)
      * @return SnowflakeId
      */
-    public synchronized long nextId() {
-        long timestamp = timeGen();
+    public long nextId() {
+        for (;;) {
+            //先读状态再读时钟, 否则读到的状态可能比时钟还新, 被误判为时钟回退
+            long current = state.get();
+            long lastTimestamp = current >>> sequenceBits;
+            long sequence = current & sequenceMask;
+            //时钟回退的情况在这里按策略处理, 返回值一定不小于lastTimestamp
+            long timestamp = timestampSince(lastTimestamp);
 
-        //如果当前时间小于上一次ID生成的时间戳，说明系统时钟回退过这个时候应当抛出异常
-        if (timestamp < lastTimestamp) {
-            throw new RuntimeException(
-                    String.format("Clock moved backwards.  Refusing to generate id for %d milliseconds", lastTimestamp - timestamp));
-        }
+            long next;
+            //如果是同一时间生成的，则进行毫秒内序列
+            if (lastTimestamp == timestamp) {
+                //毫秒内序列溢出, 推进到下一个毫秒
+                if (sequence == sequenceMask) {
+                    timestamp = nextTimestamp(lastTimestamp);
+                    next = timestamp << sequenceBits;
+                } else {
+                    next = current + 1;
+                }
+            }
+            //时间戳改变，毫秒内序列重置
+            else {
+                next = timestamp << sequenceBits;
+            }
 
-        //如果是同一时间生成的，则进行毫秒内序列
-        if (lastTimestamp == timestamp) {
-            sequence = (sequence + 1) & sequenceMask;
-            //毫秒内序列溢出
-            if (sequence == 0) {
-                //阻塞到下一个毫秒,获得新的时间戳
-                timestamp = tilNextMillis(lastTimestamp);
+            if (state.compareAndSet(current, next)) {
+                return assemble(next);
             }
         }
-        //时间戳改变，毫秒内序列重置
-        else {
-            sequence = 0L;
+    }
+
+    /**
+     * 一次生成n个ID, 同一毫秒内的序列通过一次CAS整段预留
+     * @param n 要生成的ID个数
+     * @return 按生成顺序递增的ID数组
+     */
+    public long[] nextIds(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n can't be less than 0");
+        }
+        long[] ids = new long[n];
+        nextIds(ids);
+        return ids;
+    }
+
+    /**
+     * 生成dst.length个ID填充到dst中, 同一毫秒内的序列通过一次CAS整段预留,
+     * 当前毫秒剩余序列不够时才推进到下一毫秒继续预留
+     * @param dst 存放ID的数组
+     */
+    public void nextIds(long[] dst) {
+        int filled = 0;
+        while (filled < dst.length) {
+            filled += reserve(dst, filled, dst.length - filled);
         }
+    }
+
+    /**
+     * 预留最多n个连续序列并写入dst, 返回实际预留的个数(至少1个)<br>
+     * 预留的序列都在同一毫秒内, 所以写入dst的ID是连续的
+     * @param dst 存放ID的数组
+     * @param offset 从dst的哪个位置开始写
+     * @param n 最多预留多少个
+     * @return 实际预留的个数
+     */
+    int reserve(long[] dst, int offset, int n) {
+        for (;;) {
+            long current = state.get();
+            long lastTimestamp = current >>> sequenceBits;
+            long sequence = current & sequenceMask;
+            long timestamp = timestampSince(lastTimestamp);
+
+            long first;
+            long available;
+            if (lastTimestamp == timestamp && sequence < sequenceMask) {
+                first = current + 1;
+                available = sequenceMask - sequence;
+            } else {
+                if (lastTimestamp == timestamp) {
+                    timestamp = nextTimestamp(lastTimestamp);
+                }
+                first = timestamp << sequenceBits;
+                available = sequenceMask + 1;
+            }
 
-        //上次生成ID的时间截
-        lastTimestamp = timestamp;
+            int count = (int) Math.min(n, available);
+            if (state.compareAndSet(current, first + count - 1)) {
+                for (int i = 0; i < count; i++) {
+                    dst[offset + i] = assemble(first + i);
+                }
+                return count;
+            }
+        }
+    }
 
+    /**
+     * 把状态(相对时间截+序列)和数据中心ID、机器ID拼成64位的ID
+     * @param state 相对时间截左移12位后与毫秒内序列相或的值
+     * @return SnowflakeId
+     */
+    private long assemble(long state) {
+        long timestamp = state >>> sequenceBits;
+        long sequence = state & sequenceMask;
         //移位并通过或运算拼到一起组成64位的ID
-        return ((timestamp - twepoch) << timestampLeftShift) //
+        return (timestamp << timestampLeftShift) //
                 | (datacenterId << datacenterIdShift) //
                 | (workerId << workerIdShift) //
                 | sequence;
     }
 
+    // ==============================Decode===========================================
+    /**
+     * 取出ID中的时间截, 换算成1970-1-1 00:00:00以来的毫秒数; 秒级时间截返回的是那一秒开始的毫秒数
+     * @param id SnowflakeId
+     * @return 生成这个ID时的时间截(毫秒)
+     */
+    public long timestampOf(long id) {
+        return (id >>> timestampLeftShift) * tickMillis + twepoch;
+    }
+
+    /**
+     * 取出ID中的数据中心ID
+     * @param id SnowflakeId
+     * @return 数据中心ID
+     */
+    public long datacenterIdOf(long id) {
+        return (id >>> datacenterIdShift) & maxDatacenterId;
+    }
+
+    /**
+     * 取出ID中的机器ID
+     * @param id SnowflakeId
+     * @return 机器ID
+     */
+    public long workerIdOf(long id) {
+        return (id >>> workerIdShift) & maxWorkerId;
+    }
+
+    /**
+     * 取出ID中的毫秒内序列
+     * @param id SnowflakeId
+     * @return 毫秒内序列
+     */
+    public long sequenceOf(long id) {
+        return id & sequenceMask;
+    }
+
+    /**
+     * 把ID拆成时间截、数据中心ID、机器ID、序列写到调用方传入的parts里, parts可以重复使用, 不产生新对象
+     * @param id SnowflakeId
+     * @param parts 存放拆出来的各部分
+     * @return 传入的parts
+     */
+    public Parts decode(long id, Parts parts) {
+        parts.setTimestamp(timestampOf(id));
+        parts.setDatacenterId(datacenterIdOf(id));
+        parts.setWorkerId(workerIdOf(id));
+        parts.setSequence(sequenceOf(id));
+        return parts;
+    }
+
+    /**
+     * 时间截的单位换算成毫秒, 毫秒级是1, 秒级是1000
+     */
+    long tickMillis() {
+        return tickMillis;
+    }
+
+    // ==============================Clock============================================
     /**
-     * 阻塞到下一个毫秒，直到获得新的时间戳
+     * 返回相对twepoch的当前时间截, 保证不小于lastTimestamp<br>
+     * 如果当前时间小于上一次ID生成的时间戳，说明系统时钟回退过, 回退在maxBackwardsMillis以内时:
+     * <ul>
+     *     <li>BORROW: 继续沿用lastTimestamp, 相当于向未来借时间</li>
+     *     <li>WAIT: park等待时钟追上lastTimestamp</li>
+     * </ul>
+     * 其他情况抛异常
+     * @param lastTimestamp 上次生成ID的时间截(相对twepoch)
+     * @return 当前时间截(相对twepoch)
+     */
+    private long timestampSince(long lastTimestamp) {
+        long timestamp = toTimestamp(timeGen());
+        if (timestamp >= lastTimestamp) {
+            return timestamp;
+        }
+
+        long backwards = lastTimestamp - timestamp;
+        if (clockBackwardsPolicy == ClockBackwardsPolicy.REJECT || backwards > maxBackwardsTicks) {
+            throw new RuntimeException(
+                    String.format("Clock moved backwards.  Refusing to generate id for %d milliseconds", backwards * tickMillis));
+        }
+        if (clockBackwardsPolicy == ClockBackwardsPolicy.WAIT) {
+            return toTimestamp(waitUntil(toMillis(lastTimestamp)));
+        }
+        return lastTimestamp;
+    }
+
+    /**
+     * 毫秒内序列用完后推进到的下一个时间截(相对twepoch)<br>
+     * BORROW模式下直接借用lastTimestamp + 1, 只要借出的时间领先时钟不超过maxBackwardsMillis; 否则等到时钟走到下一毫秒
+     * @param lastTimestamp 上次生成ID的时间截(相对twepoch)
+     * @return 大于lastTimestamp的时间截(相对twepoch)
+     */
+    private long nextTimestamp(long lastTimestamp) {
+        if (clockBackwardsPolicy == ClockBackwardsPolicy.BORROW) {
+            long borrowed = lastTimestamp + 1;
+            waitUntil(toMillis(borrowed - maxBackwardsTicks));
+            return Math.max(borrowed, toTimestamp(timeGen()));
+        }
+        if (tickMillis == 1) {
+            return toTimestamp(tilNextMillis(toMillis(lastTimestamp)));
+        }
+        return toTimestamp(waitUntil(toMillis(lastTimestamp + 1)));
+    }
+
+    /**
+     * 阻塞到下一个毫秒，直到获得新的时间戳; 用park代替忙等, 不占用CPU
      * @param lastTimestamp 上次生成ID的时间截
      * @return 当前时间戳
      */
     protected long tilNextMillis(long lastTimestamp) {
+        return waitUntil(lastTimestamp + 1);
+    }
+
+    /**
+     * park当前线程直到时钟走到targetTimestamp
+     * @param targetTimestamp 目标时间(毫秒)
+     * @return 不小于targetTimestamp的当前时间(毫秒)
+     */
+    private long waitUntil(long targetTimestamp) {
         long timestamp = timeGen();
-        while (timestamp <= lastTimestamp) {
+        while (timestamp < targetTimestamp) {
+            long remaining = targetTimestamp - timestamp;
+            //差得多就一次park到差不多的位置, 最后一毫秒以内再小步park
+            LockSupport.parkNanos(remaining > 1 ? TimeUnit.MILLISECONDS.toNanos(remaining - 1) : PARK_NANOS);
             timestamp = timeGen();
         }
         return timestamp;
     }
 
+    /**
+     * 毫秒数换算成相对twepoch的时间截
+     */
+    private long toTimestamp(long millis) {
+        return (millis - twepoch) / tickMillis;
+    }
+
+    /**
+     * 相对twepoch的时间截换算成毫秒数
+     */
+    private long toMillis(long timestamp) {
+        return timestamp * tickMillis + twepoch;
+    }
+
     /**
      * 返回以毫秒为单位的当前时间
      * @return 当前时间(毫秒)
      */
     protected long timeGen() {
-        return System.currentTimeMillis();
+        return clock == null ? System.currentTimeMillis() : clock.millis();
+    }
+
+    /**
+     * 时钟回退时的处理策略
+     */
+    public enum ClockBackwardsPolicy {
+
+        /** 直接抛异常, 拒绝生成ID */
+        REJECT,
+
+        /** 回退不超过maxBackwardsMillis时继续使用上次的时间截生成ID, 毫秒内序列用完后借用未来的时间截 */
+        BORROW,
+
+        /** 回退不超过maxBackwardsMillis时park等待时钟追上 */
+        WAIT
+    }
+
+    /**
+     * 一个ID拆出来的各个部分, 见{@link #decode(long, Parts)}
+     */
+    @Data
+    public static class Parts {
+
+        /** 生成ID时的时间截(毫秒) */
+        private long timestamp;
+
+        /** 数据中心ID */
+        private long datacenterId;
+
+        /** 机器ID */
+        private long workerId;
+
+        /** 毫秒内序列 */
+        private long sequence;
+    }
+
+    /**
+     * 构建自定义位分布的SnowflakeId
+     */
+    public static class Builder {
+
+        private long twepoch = DEFAULT_TWEPOCH;
+
+        private TimeUnit timeUnit = TimeUnit.MILLISECONDS;
+
+        private long workerIdBits = 5L;
+
+        private long datacenterIdBits = 5L;
+
+        private long sequenceBits = 12L;
+
+        private long workerId;
+
+        private long datacenterId;
+
+        private ClockBackwardsPolicy clockBackwardsPolicy = ClockBackwardsPolicy.REJECT;
+
+        private long maxBackwardsMillis;
+
+        private Clock clock;
+
+        private Builder() {
+        }
+
+        /**
+         * 开始时间截(毫秒), 默认2015-01-01
+         * @param twepoch
+         * @return Builder
+         */
+        public Builder twepoch(long twepoch) {
+            this.twepoch = twepoch;
+            return this;
+        }
+
+        /**
+         * 时间截的单位, 只支持毫秒和秒, 默认毫秒
+         * @param timeUnit
+         * @return Builder
+         */
+        public Builder timeUnit(TimeUnit timeUnit) {
+            if (timeUnit != TimeUnit.MILLISECONDS && timeUnit != TimeUnit.SECONDS) {
+                throw new IllegalArgumentException("Only MILLISECONDS and SECONDS are supported, but got " + timeUnit);
+            }
+            this.timeUnit = timeUnit;
+            return this;
+        }
+
+        /**
+         * 机器id所占的位数, 默认5
+         * @param workerIdBits
+         * @return Builder
+         */
+        public Builder workerIdBits(long workerIdBits) {
+            this.workerIdBits = workerIdBits;
+            return this;
+        }
+
+        /**
+         * 数据标识id所占的位数, 默认5
+         * @param datacenterIdBits
+         * @return Builder
+         */
+        public Builder datacenterIdBits(long datacenterIdBits) {
+            this.datacenterIdBits = datacenterIdBits;
+            return this;
+        }
+
+        /**
+         * 序列所占的位数, 默认12
+         * @param sequenceBits
+         * @return Builder
+         */
+        public Builder sequenceBits(long sequenceBits) {
+            this.sequenceBits = sequenceBits;
+            return this;
+        }
+
+        public Builder workerId(long workerId) {
+            this.workerId = workerId;
+            return this;
+        }
+
+        public Builder datacenterId(long datacenterId) {
+            this.datacenterId = datacenterId;
+            return this;
+        }
+
+        /**
+         * 时钟回退时的处理策略, 默认直接抛异常
+         * @param clockBackwardsPolicy
+         * @param maxBackwardsMillis 能容忍的最大时钟回退毫秒数
+         * @return Builder
+         */
+        public Builder clockBackwardsPolicy(ClockBackwardsPolicy clockBackwardsPolicy, long maxBackwardsMillis) {
+            this.clockBackwardsPolicy = clockBackwardsPolicy;
+            this.maxBackwardsMillis = maxBackwardsMillis;
+            return this;
+        }
+
+        /**
+         * 读当前时间用的时钟, 默认直接用System.currentTimeMillis();
+         * 发号量很大时可以传CoarseClock.systemDefault(), 每次只读一个volatile long
+         * @param clock
+         * @return Builder
+         */
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public SnowflakeId build() {
+            return new SnowflakeId(this);
+        }
     }
 
     //==============================Test=============================================
@@ -142,4 +606,4 @@ public class SnowflakeId {
             System.out.println(id);
         }
     }
-}
\ No newline at end of file
+}
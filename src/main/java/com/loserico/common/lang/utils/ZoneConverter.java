@@ -0,0 +1,256 @@
+package com.loserico.common.lang.utils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按时区预先算好偏移量切换表的时区换算器, 在毫秒数和本地时间之间换算只需要一次二分查找加一次加减法,
+ * 不经过DateTimeFormatter、ZonedDateTime, 不产生任何对象
+ * <p>
+ * 文中的"本地毫秒数"是把某个时区的本地时间当成UTC时间算出来的毫秒数, 比如东8区的2020-05-12 08:00:00对应的本地毫秒数
+ * 就是UTC 2020-05-12 08:00:00的毫秒数。没有夏令时规则的时区(比如Asia/Shanghai)最后一次切换之后偏移量是常数,
+ * 直接加减不用查表; 有夏令时规则的时区表算到2100年, 再往后交给ZoneRules
+ * <p>
+ * 夏令时切换附近的本地时间和LocalDateTime.atZone()的处理方式一样: 跳过的那段时间往后挪, 重复的那段时间取较早的那个偏移量;
+ * {@link #toEpochMillisLaterOffset(long)}在重复的那段时间取较晚的偏移量(标准时间), 和SimpleDateFormat、Calendar一样
+ * <p>
+ * 实例不可变、线程安全, 每个ZoneId缓存一个
+ * <p>
+ * Copyright: (C), 2020/5/14 10:20
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+public final class ZoneConverter {
+
+	/** 有夏令时规则的时区, 切换表算到这个时刻为止(2101-01-01T00:00:00Z) */
+	private static final long TABLE_END_MILLIS = 4133980800000L;
+
+	/** 没有历史切换记录的时区从这个时刻(1900-01-01T00:00:00Z)开始按规则算 */
+	private static final Instant TABLE_START = Instant.ofEpochSecond(-2208988800L);
+
+	/** 任意两个偏移量相差不超过36小时, 离表尾两天以内的本地时间交给ZoneRules */
+	private static final long SAFE_MARGIN = 2 * 24 * 3600_000L;
+
+	private static final ConcurrentHashMap<ZoneId, ZoneConverter> CONVERTERS = new ConcurrentHashMap<>();
+
+	private final ZoneId zoneId;
+
+	private final ZoneRules rules;
+
+	/** 每次切换的时刻(毫秒数), 升序 */
+	private final long[] transitions;
+
+	/** 每次切换之前的偏移量下, 本地时间走到哪个本地毫秒数就切换了 */
+	private final long[] localBoundaries;
+
+	/** offsets[i]是第i次切换之前的偏移量(毫秒), offsets[transitions.length]是最后一次切换之后的 */
+	private final int[] offsets;
+
+	/** 切换表覆盖到哪个时刻为止, 表是完整的就是Long.MAX_VALUE */
+	private final long tableEnd;
+
+	/** 本地毫秒数不小于这个值时直接用最后一个偏移量 */
+	private final long tailLocalStart;
+
+	/** localBoundaries是升序的才能二分查找, 极端的时区规则下不是的话本地时间换算交给ZoneRules */
+	private final boolean localSearchable;
+
+	private ZoneConverter(ZoneId zoneId) {
+		this.zoneId = zoneId;
+		this.rules = zoneId.getRules();
+		List<ZoneOffsetTransition> list = new ArrayList<>(rules.getTransitions());
+		boolean complete = rules.getTransitionRules().isEmpty();
+		if (!complete) {
+			ZoneOffsetTransition transition =
+					rules.nextTransition(list.isEmpty() ? TABLE_START : list.get(list.size() - 1).getInstant());
+			while (transition != null && transition.toEpochSecond() * 1000L < TABLE_END_MILLIS) {
+				list.add(transition);
+				transition = rules.nextTransition(transition.getInstant());
+			}
+		}
+
+		int n = list.size();
+		transitions = new long[n];
+		localBoundaries = new long[n];
+		offsets = new int[n + 1];
+		offsets[0] = (n == 0 ? rules.getOffset(Instant.EPOCH) : list.get(0).getOffsetBefore()).getTotalSeconds() * 1000;
+		boolean sorted = true;
+		for (int i = 0; i < n; i++) {
+			ZoneOffsetTransition transition = list.get(i);
+			transitions[i] = transition.toEpochSecond() * 1000L;
+			offsets[i + 1] = transition.getOffsetAfter().getTotalSeconds() * 1000;
+			localBoundaries[i] = transitions[i] + offsets[i];
+			if (i > 0 && localBoundaries[i] < localBoundaries[i - 1]) {
+				sorted = false;
+			}
+		}
+		tableEnd = complete ? Long.MAX_VALUE : TABLE_END_MILLIS;
+		tailLocalStart = n == 0 ? Long.MIN_VALUE : transitions[n - 1] + Math.max(offsets[n - 1], offsets[n]);
+		localSearchable = sorted;
+	}
+
+	/**
+	 * 取zoneId对应的换算器, ZoneOffset每次现建(不用查表, 很便宜), 其他时区每个缓存一个
+	 *
+	 * @param zoneId
+	 * @return ZoneConverter
+	 */
+	public static ZoneConverter of(ZoneId zoneId) {
+		Objects.requireNonNull(zoneId, "zoneId can't be null");
+		if (zoneId instanceof ZoneOffset) {
+			return new ZoneConverter(zoneId);
+		}
+		ZoneConverter converter = CONVERTERS.get(zoneId);
+		if (converter == null) {
+			converter = new ZoneConverter(zoneId);
+			ZoneConverter previous = CONVERTERS.putIfAbsent(zoneId, converter);
+			if (previous != null) {
+				converter = previous;
+			}
+		}
+		return converter;
+	}
+
+	public ZoneId zoneId() {
+		return zoneId;
+	}
+
+	/**
+	 * 这个时区是不是一直都是同一个偏移量
+	 *
+	 * @return boolean
+	 */
+	public boolean isFixedOffset() {
+		return offsets.length == 1;
+	}
+
+	/**
+	 * epochMillis这个时刻的偏移量, 单位毫秒
+	 *
+	 * @param epochMillis
+	 * @return int
+	 */
+	public int offsetMillisAt(long epochMillis) {
+		int n = transitions.length;
+		if (n == 0) {
+			return offsets[0];
+		}
+		if (epochMillis >= transitions[n - 1]) {
+			if (epochMillis < tableEnd) {
+				return offsets[n];
+			}
+			return rules.getOffset(Instant.ofEpochMilli(epochMillis)).getTotalSeconds() * 1000;
+		}
+		return offsets[upperBound(transitions, epochMillis)];
+	}
+
+	/**
+	 * 毫秒数转成这个时区的本地毫秒数
+	 *
+	 * @param epochMillis
+	 * @return long
+	 */
+	public long toLocalMillis(long epochMillis) {
+		return epochMillis + offsetMillisAt(epochMillis);
+	}
+
+	/**
+	 * 这个时区的本地毫秒数转成毫秒数
+	 *
+	 * @param localMillis
+	 * @return long
+	 */
+	public long toEpochMillis(long localMillis) {
+		return toEpochMillis(localMillis, false);
+	}
+
+	/**
+	 * 这个时区的本地毫秒数转成毫秒数, 夏令时结束时重复的那段本地时间取较晚的偏移量(标准时间), 其他和{@link #toEpochMillis(long)}一样
+	 *
+	 * @param localMillis
+	 * @return long
+	 */
+	public long toEpochMillisLaterOffset(long localMillis) {
+		return toEpochMillis(localMillis, true);
+	}
+
+	private long toEpochMillis(long localMillis, boolean laterOffsetAtOverlap) {
+		int n = transitions.length;
+		if (n == 0) {
+			return localMillis - offsets[0];
+		}
+		if ((tableEnd != Long.MAX_VALUE && localMillis >= tableEnd - SAFE_MARGIN) || !localSearchable) {
+			ZonedDateTime dateTime = LocalDateTime.ofEpochSecond(Math.floorDiv(localMillis, 1000L), 0, ZoneOffset.UTC)
+					.atZone(zoneId);
+			if (laterOffsetAtOverlap) {
+				dateTime = dateTime.withLaterOffsetAtOverlap();
+			}
+			return dateTime.toEpochSecond() * 1000L + Math.floorMod(localMillis, 1000L);
+		}
+		if (localMillis >= tailLocalStart) {
+			return localMillis - offsets[n];
+		}
+		int k = upperBound(localBoundaries, localMillis);
+		// 落在往回拨表重复的那段时间里, 要较晚的偏移量就按切换后的偏移量算
+		if (laterOffsetAtOverlap && k < n && offsets[k + 1] < offsets[k]
+				&& localMillis >= transitions[k] + offsets[k + 1]) {
+			return localMillis - offsets[k + 1];
+		}
+		if (k == 0) {
+			return localMillis - offsets[0];
+		}
+		int before = offsets[k - 1];
+		int after = offsets[k];
+		// 落在往前拨表跳过的那段时间里, 按切换前的偏移量算, 相当于往后挪了一段
+		if (after > before && localMillis < transitions[k - 1] + after) {
+			return localMillis - before;
+		}
+		return localMillis - after;
+	}
+
+	/**
+	 * 这个时区的本地毫秒数换算成target时区的本地毫秒数
+	 *
+	 * @param localMillis
+	 * @param target
+	 * @return long
+	 */
+	public long convert(long localMillis, ZoneConverter target) {
+		return target.toLocalMillis(toEpochMillis(localMillis));
+	}
+
+	/**
+	 * sorted里不大于value的元素个数
+	 */
+	private static int upperBound(long[] sorted, long value) {
+		int low = 0;
+		int high = sorted.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (sorted[middle] <= value) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	@Override
+	public String toString() {
+		return "ZoneConverter[" + zoneId + ", " + transitions.length + " transitions]";
+	}
+}
@@ -0,0 +1,387 @@
+package com.loserico.common.lang;
+
+import com.loserico.common.lang.utils.BeanCopier;
+import com.loserico.common.lang.utils.BeanUtils;
+import com.loserico.common.lang.utils.DateUtils;
+import lombok.Data;
+import org.junit.Test;
+import org.springframework.beans.FatalBeanException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Copyright: (C), 2020/5/15 15:10
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+public class BeanUtilsTest {
+
+	@Test
+	public void testCopyProperties() {
+		UserEntity source = user();
+		UserVO target = BeanUtils.copyProperties(source, UserVO.class);
+		assertEquals(Long.valueOf(1L), target.getId());
+		assertEquals("rico", target.getUsername());
+		assertEquals("123456", target.getPassword());
+		assertEquals(Integer.valueOf(18), target.getAge());
+		assertEquals(source.getCreateTime(), target.getCreateTime());
+		// 类型不兼容的属性不拷贝
+		assertNull(target.getScore());
+
+		UserVO ignored = BeanUtils.copyProperties(source, UserVO.class, "password", "age");
+		assertNull(ignored.getPassword());
+		assertNull(ignored.getAge());
+		assertEquals("rico", ignored.getUsername());
+
+		UserVO existing = new UserVO();
+		existing.setEmail("ricoyu520@gmail.com");
+		BeanUtils.copyProperties(source, existing, true);
+		assertEquals("ricoyu520@gmail.com", existing.getEmail());
+		BeanUtils.copyProperties(source, existing, false);
+		assertNull(existing.getEmail());
+	}
+
+	@Test
+	public void testNonPublicBean() {
+		HiddenBean source = new HiddenBean();
+		source.setName("hidden");
+		source.setCount(3);
+		HiddenBean target = new HiddenBean();
+		BeanUtils.copyProperties(source, target);
+		assertEquals("hidden", target.getName());
+		assertEquals(3, target.getCount());
+	}
+
+	@Test
+	public void testCopierCache() {
+		BeanCopier copier = BeanCopier.of(UserEntity.class, UserVO.class, false, "age", "password");
+		assertSame(copier, BeanCopier.of(UserEntity.class, UserVO.class, false, "password", "age", "age"));
+		assertTrue(copier != BeanCopier.of(UserEntity.class, UserVO.class, true, "age", "password"));
+		assertTrue(copier != BeanCopier.of(UserEntity.class, UserVO.class, false, "age"));
+		assertArrayEquals(new String[]{"createTime", "email", "id", "username"}, copier.getPropertyNames());
+	}
+
+	@Test
+	public void testCopyFailure() {
+		UserVO source = new UserVO();
+		try {
+			BeanUtils.copyProperties(source, new UserEntity());
+			fail();
+		} catch (FatalBeanException e) {
+			// null拷贝到int属性
+			assertTrue(e.getMessage().contains("'age'"));
+		}
+
+		try {
+			BeanUtils.copyProperties(new FailingBean(), new HiddenBean());
+			fail();
+		} catch (FatalBeanException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void testCopyList() {
+		List<UserEntity> sources = new ArrayList<>();
+		for (int i = 0; i < 10000; i++) {
+			UserEntity user = user();
+			user.setId((long) i);
+			sources.add(user);
+		}
+
+		List<UserVO> copied = BeanUtils.copyProperties(sources, UserVO.class, "password");
+		List<UserVO> parallel = BeanUtils.copyPropertiesParallel(sources, UserVO.class, "password");
+		assertEquals(sources.size(), copied.size());
+		assertEquals(copied, parallel);
+		for (int i = 0; i < sources.size(); i++) {
+			assertEquals(Long.valueOf(i), parallel.get(i).getId());
+			assertNull(parallel.get(i).getPassword());
+		}
+
+		List<UserVO> lazily = BeanUtils.<UserVO>copyPropertiesLazily(sources.stream(), UserVO.class, "password")
+				.limit(10)
+				.collect(Collectors.toList());
+		assertEquals(copied.subList(0, 10), lazily);
+
+		Iterator<UserVO> iterator = BeanUtils.copyPropertiesLazily(sources.iterator(), UserVO.class, "password");
+		assertEquals(copied.get(0), iterator.next());
+		assertEquals(copied.get(1), iterator.next());
+
+		// 构造函数访问不到的和原来一样返回null
+		assertNull(BeanUtils.copyProperties(user(), HiddenBean.class));
+	}
+
+	@Test
+	public void testConvertProperties() {
+		LocalDateTime createTime = LocalDateTime.of(2020, 5, 16, 10, 30);
+		OrderEntity source = new OrderEntity();
+		source.setId(1024L);
+		source.setCreateTime(new Date(DateUtils.toEpochMilis(createTime)));
+		source.setStatus("PAID");
+		source.setType(0);
+		source.setPayDate(LocalDate.of(2020, 5, 16));
+		source.setPrice("12.50");
+		source.setExpireTime(DateUtils.toEpochMilis(createTime.plusDays(1)));
+
+		OrderVO copied = BeanUtils.copyProperties(source, OrderVO.class);
+		assertNull(copied.getId());
+		assertNull(copied.getStatus());
+
+		OrderVO target = BeanUtils.convertProperties(source, OrderVO.class);
+		assertEquals("1024", target.getId());
+		assertEquals(createTime, target.getCreateTime());
+		assertEquals(OrderStatus.PAID, target.getStatus());
+		assertEquals(OrderStatus.CREATED, target.getType());
+		assertEquals("2020-05-16", target.getPayDate());
+		assertEquals(new BigDecimal("12.50"), target.getPrice());
+		// Long -> Date -> LocalDateTime
+		assertEquals(createTime.plusDays(1), target.getExpireTime());
+
+		// 反过来转
+		OrderEntity back = BeanUtils.convertProperties(target, OrderEntity.class, "type");
+		assertEquals(Long.valueOf(1024L), back.getId());
+		assertEquals(source.getCreateTime(), back.getCreateTime());
+		assertEquals("PAID", back.getStatus());
+		assertNull(back.getType());
+		assertEquals(source.getPayDate(), back.getPayDate());
+		assertEquals(source.getExpireTime(), back.getExpireTime());
+
+		// null不转换, ignoreNull照常生效
+		OrderVO existing = new OrderVO();
+		existing.setStatus(OrderStatus.CREATED);
+		BeanUtils.convertProperties(new OrderEntity(), existing, true);
+		assertEquals(OrderStatus.CREATED, existing.getStatus());
+		BeanUtils.convertProperties(new OrderEntity(), existing);
+		assertNull(existing.getStatus());
+
+		BeanCopier converting = BeanCopier.converting(OrderEntity.class, OrderVO.class, false);
+		assertTrue(converting.isConverting());
+		assertSame(converting, BeanCopier.converting(OrderEntity.class, OrderVO.class, false));
+		assertTrue(converting != BeanCopier.of(OrderEntity.class, OrderVO.class, false));
+		assertEquals(7, converting.getPropertyNames().length);
+	}
+
+	@Test
+	public void testConvertNumbers() {
+		MetricEntity source = new MetricEntity();
+		source.setRatio(3.0);
+		source.setRate(2.5f);
+		source.setBig(3_000_000_000L);
+		source.setSize(3_000_000_000L);
+		source.setPrice("abc");
+		source.setScore(Double.NaN);
+		source.setCount((short) 7);
+		source.setTotal(BigInteger.TEN);
+		source.setHits(new AtomicLong(42L));
+		source.setLevel(" ");
+		source.setWeight("abc");
+		MetricVO target = new MetricVO();
+		target.setLevel(5);
+		target.setSize(1);
+		BeanUtils.convertProperties(source, target);
+		assertEquals(Integer.valueOf(3), target.getRatio());
+		// 有小数部分、超出范围的转换不了
+		assertNull(target.getRate());
+		assertNull(target.getBig());
+		assertEquals(1, target.getSize());
+		// 不是数字的字符串、NaN转BigDecimal也是null, 不会中断整个拷贝
+		assertNull(target.getPrice());
+		assertNull(target.getScore());
+		assertEquals(Integer.valueOf(7), target.getCount());
+		assertEquals("10", target.getTotal());
+		assertEquals("42", target.getHits());
+		// 转不了的不拷贝, 基本类型属性保持原值
+		assertEquals(5, target.getLevel());
+		assertEquals(0L, target.getWeight());
+
+		source.setLevel("8");
+		source.setWeight(null);
+		source.setSize(2_000_000_000L);
+		source.setPrice(" 12.50 ");
+		source.setScore(99.5);
+		BeanUtils.convertProperties(source, target);
+		assertEquals(8, target.getLevel());
+		assertEquals(2_000_000_000, target.getSize());
+		assertEquals(new BigDecimal("12.50"), target.getPrice());
+		assertEquals(new BigDecimal("99.5"), target.getScore());
+		assertEquals(0L, target.getWeight());
+	}
+
+	private static UserEntity user() {
+		UserEntity user = new UserEntity();
+		user.setId(1L);
+		user.setUsername("rico");
+		user.setPassword("123456");
+		user.setAge(18);
+		user.setScore(99.5);
+		user.setCreateTime(LocalDateTime.of(2020, 5, 15, 8, 0));
+		return user;
+	}
+
+	@Data
+	public static class UserEntity {
+
+		private Long id;
+
+		private String username;
+
+		private String password;
+
+		private int age;
+
+		private String email;
+
+		private double score;
+
+		private LocalDateTime createTime;
+	}
+
+	@Data
+	public static class UserVO {
+
+		private Long id;
+
+		private String username;
+
+		private String password;
+
+		private Integer age;
+
+		private String email;
+
+		private String score;
+
+		private LocalDateTime createTime;
+	}
+
+	@Data
+	private static class HiddenBean {
+
+		private String name;
+
+		private int count;
+	}
+
+	public static class FailingBean {
+
+		public String getName() {
+			throw new IllegalStateException("boom");
+		}
+	}
+
+	@Data
+	public static class OrderEntity {
+
+		private Long id;
+
+		private Date createTime;
+
+		private String status;
+
+		private Integer type;
+
+		private LocalDate payDate;
+
+		private String price;
+
+		private Long expireTime;
+	}
+
+	@Data
+	public static class OrderVO {
+
+		private String id;
+
+		private LocalDateTime createTime;
+
+		private OrderStatus status;
+
+		private OrderStatus type;
+
+		private String payDate;
+
+		private BigDecimal price;
+
+		private LocalDateTime expireTime;
+	}
+
+	@Data
+	public static class MetricEntity {
+
+		private Double ratio;
+
+		private Float rate;
+
+		private Short count;
+
+		private BigInteger total;
+
+		private AtomicLong hits;
+
+		private String level;
+
+		private String weight;
+
+		private Long big;
+
+		private Long size;
+
+		private String price;
+
+		private Double score;
+	}
+
+	@Data
+	public static class MetricVO {
+
+		private Integer ratio;
+
+		private Integer rate;
+
+		private Integer count;
+
+		private String total;
+
+		private String hits;
+
+		private int level;
+
+		private long weight;
+
+		private Integer big;
+
+		private int size;
+
+		private BigDecimal price;
+
+		private BigDecimal score;
+	}
+
+	public enum OrderStatus {
+
+		CREATED,
+
+		PAID
+	}
+}
@@ -1,8 +1,36 @@
 package com.loserico.common.lang;
 
+import com.loserico.common.lang.clock.CoarseClock;
+import com.loserico.common.lang.utils.DateParser;
+import com.loserico.common.lang.utils.DateTimeFormatterRegistry;
+import com.loserico.common.lang.utils.DatePattern;
+import com.loserico.common.lang.utils.DateUtils;
+import com.loserico.common.lang.utils.ZoneConverter;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.Test;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.regex.Pattern;
+
+import static com.loserico.common.lang.constants.DateConstants.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
 /**
  * <p>
  * Copyright: (C), 2019/11/7 9:52
@@ -24,4 +52,314 @@ public class DateUtilsTest {
 		System.out.println("初始化DateUtils需要: " + (end - begin) / 1000000 + "毫秒");
 		log.info("初始化DateUtils需要: " + (end - begin) / 1000000 + "毫秒");
 	}
+	
+	@Test
+	public void testClassifyAgreesWithRegex() {
+		Object[][] regexes = {
+				{PT_ISO_DATE, DatePattern.ISO_DATE}, {PT_ISO_DATE_1, DatePattern.ISO_DATE_1},
+				{PT_ISO_DATE_2, DatePattern.ISO_DATE_2}, {PT_ISO_DATE_3, DatePattern.ISO_DATE_3},
+				{PT_DATE_EN_4, DatePattern.DATE_EN_4}, {PT_DATE_EN_5, DatePattern.DATE_EN_5},
+				{PT_DATE_EN_6, DatePattern.DATE_EN_6}, {PT_DATE_EN_7, DatePattern.DATE_EN_7},
+				{PT_ISO_DATETIME, DatePattern.ISO_DATETIME}, {PT_ISO_DATETIME_1, DatePattern.ISO_DATETIME_1},
+				{PT_ISO_DATETIME_2, DatePattern.ISO_DATETIME_2}, {PT_ISO_DATETIME_3, DatePattern.ISO_DATETIME_3},
+				{PT_ISO_DATETIME_4, DatePattern.ISO_DATETIME_4}, {PT_ISO_DATETIME_5, DatePattern.ISO_DATETIME_5},
+				{PT_ISO_DATETIME_SHORT, DatePattern.ISO_DATETIME_SHORT},
+				{PT_ISO_DATETIME_SHORT_1, DatePattern.ISO_DATETIME_SHORT_1},
+				{PT_ISO_DATETIME_SHORT_2, DatePattern.ISO_DATETIME_SHORT_2},
+				{PT_ISO_DATETIME_SHORT_3, DatePattern.ISO_DATETIME_SHORT_3},
+				{PT_ISO_DATETIME_SHORT_4, DatePattern.ISO_DATETIME_SHORT_4},
+				{PT_ISO_DATETIME_SHORT_5, DatePattern.ISO_DATETIME_SHORT_5},
+				{PT_ISO_DATETIME_SHORT_6, DatePattern.ISO_DATETIME_SHORT_6},
+				{PT_ISO_DATETIME_SHORT_7, DatePattern.ISO_DATETIME_SHORT_7},
+				{PT_DATETIME_FORMAT_EN, DatePattern.DATETIME_FORMAT_EN},
+				{PT_DATETIME_FORMAT_EN_1, DatePattern.DATETIME_FORMAT_EN_1},
+				{PT_DATETIME_FORMAT_EN_2, DatePattern.DATETIME_FORMAT_EN_2},
+				{PT_DATETIME_FORMAT_EN_3, DatePattern.DATETIME_FORMAT_EN_3},
+				{PT_DATETIME_FORMAT_EN_4, DatePattern.DATETIME_FORMAT_EN_4},
+				{PT_TIME_FORMAT, DatePattern.TIME_FORMAT}, {PT_TIME_FORMAT1, DatePattern.TIME_FORMAT1},
+				{PT_TIME_FORMAT2, DatePattern.TIME_FORMAT2}, {PT_TIME_FORMAT3, DatePattern.TIME_FORMAT3}};
+		String[] dates = {"", "2020", "202", "20200", "2020-1", "2020-01-5", "2020-1-05", "2020-01-15", "2020-1-5",
+				"2020/01/15", "2020/1/5", "2020/01/5", "2020/1/15", "01/15/2020", "1/15/2020", "2020-01/15",
+				"2020-001-15", "2020-01-150", "x2020-01-15"};
+		String[] separators = {"", " ", "  ", "\t", "T", ":"};
+		String[] times = {"", "08:30:59", "8:30:59", "08:30", "8:30", "08:3", "080:30", "08:30:5", "08:30:599",
+				"08:30:59.123", "08-30"};
+		int checked = 0;
+		for (String date : dates) {
+			for (String separator : separators) {
+				for (String time : times) {
+					String source = date + separator + time;
+					DatePattern expected = null;
+					for (Object[] regex : regexes) {
+						if (((Pattern) regex[0]).matcher(source).matches()) {
+							expected = (DatePattern) regex[1];
+							break;
+						}
+					}
+					assertEquals(source, expected, DatePattern.classify(source));
+					for (DatePattern pattern : DatePattern.values()) {
+						assertEquals(source + " " + pattern, pattern == expected, pattern.matches(source));
+					}
+					checked++;
+				}
+			}
+		}
+		log.info("Checked {} strings", checked);
+	}
+	
+	@Test
+	public void testAutoDetectParse() {
+		assertEquals(LocalDateTime.of(2020, 1, 5, 8, 30, 59), DateUtils.toLocalDateTime("2020-01-5 08:30:59"));
+		assertEquals(LocalDateTime.of(2020, 1, 5, 8, 30), DateUtils.toLocalDateTime("2020/1/05 08:30:00"));
+		assertEquals(LocalDateTime.of(2020, 12, 31, 23, 59, 1), DateUtils.toLocalDateTime("12/31/2020 23:59:01"));
+		assertEquals(LocalDateTime.of(2020, 1, 5, 8, 30), DateUtils.toLocalDateTime("2020-1-5 8:30"));
+		assertNull(DateUtils.toLocalDateTime("2020-01-05"));
+		assertEquals(LocalDate.of(2020, 1, 5), DateUtils.toLocalDate("2020-01-05"));
+		assertEquals(LocalDate.of(2020, 1, 5), DateUtils.toLocalDate("2020/1/5"));
+		assertNull(DateUtils.toLocalDate("2020-01-05 08:30"));
+		assertEquals(LocalTime.of(8, 30, 59), DateUtils.toLocalTime("8:30:59"));
+		assertNull(DateUtils.toLocalTime("2020-01-05"));
+		
+		Date date = DateUtils.parse("2020-01-05 08:30:59");
+		assertEquals("2020-01-05 08:30:59", DateUtils.format(date));
+		assertEquals("2020-01-05 00:00:00", DateUtils.format(DateUtils.parse("2020/1/5")));
+		assertNull(DateUtils.parse("08:30:59"));
+	}
+	
+	@Test
+	public void testDateParserLearnsFormat() {
+		DateParser parser = new DateParser();
+		for (int day = 1; day <= 28; day++) {
+			String source = "2020/02/" + (day < 10 ? "0" + day : day) + " 10:00:00";
+			assertEquals(LocalDateTime.of(2020, 2, day, 10, 0), parser.toLocalDateTime(source));
+		}
+		assertEquals(1, parser.getMisses());
+		assertEquals(27, parser.getHits());
+		
+		//格式变了, 重新识别一次后又能命中
+		assertEquals(LocalDate.of(2020, 2, 1), parser.toLocalDate("2020-2-1"));
+		assertEquals(LocalDate.of(2020, 2, 2), parser.toLocalDate("2020-2-2"));
+		assertEquals(2, parser.getMisses());
+		assertEquals(28, parser.getHits());
+		
+		//Date可以是日期也可以是日期时间, 两类上次的格式都会先试
+		assertEquals("2020-02-03 00:00:00", DateUtils.format(parser.parse("2020-2-3")));
+		assertEquals("2020-02-03 10:00:00", DateUtils.format(parser.parse("2020/02/03 10:00:00")));
+		assertEquals(2, parser.getMisses());
+		
+		parser.reset();
+		assertEquals(0, parser.getHits());
+		assertNull(parser.toLocalTime("2020-2-3"));
+		assertEquals(1, parser.getMisses());
+	}
+	
+	@Test
+	public void testFixedLayoutParse() {
+		DateTimeFormatter withMillis = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+		ZoneOffset offset = ZoneOffset.ofHours(8);
+		Random random = new Random(3);
+		for (int i = 0; i < 10000; i++) {
+			LocalDateTime expected = LocalDateTime.of(1 + random.nextInt(9999), 1 + random.nextInt(12),
+					1 + random.nextInt(28), random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(1000) * 1_000_000);
+			String source = "[" + expected.format(withMillis) + "]";
+			assertEquals(expected, DateUtils.parseLocalDateTime(source, 1, 24));
+			assertEquals(expected.toInstant(offset).toEpochMilli(), DateUtils.parseEpochMillis(source, 1, 24, offset));
+			byte[] bytes = source.getBytes(StandardCharsets.US_ASCII);
+			assertEquals(expected, DateUtils.parseLocalDateTime(bytes, 1, 23));
+			
+			String seconds = expected.withNano(0).format(DTF_ISO_DATETIME);
+			assertEquals(expected.withNano(0), DateUtils.parseLocalDateTime(seconds));
+			String date = expected.toLocalDate().format(DTF_ISO_DATE);
+			assertEquals(expected.toLocalDate().atStartOfDay(), DateUtils.parseLocalDateTime(date));
+		}
+		assertEquals(LocalDateTime.of(2020, 2, 29, 0, 0), DateUtils.parseLocalDateTime("2020-02-29"));
+		assertEquals(0L, DateUtils.parseEpochMillis("1970-01-01 00:00:00", ZoneOffset.UTC));
+		
+		String[] invalid = {null, "", "2019-02-29", "2020-13-01", "2020-00-10", "2020-01-32", "2020-01-01 24:00:00",
+				"2020-01-01 23:60:00", "2020-01-01 23:00:60", "2020/01/01", "2020-01-01X10:00:00", "2020-1-01",
+				"2020-01-01 10:00:00,123", "2020-01-01 10:00:0a", "+020-01-01"};
+		for (String source : invalid) {
+			assertEquals(source, DateUtils.INVALID_EPOCH_MILLIS, DateUtils.parseEpochMillis(source, ZoneOffset.UTC));
+			assertNull(source, DateUtils.parseLocalDateTime(source));
+		}
+	}
+	
+	@Test
+	public void testFormatterRegistry() {
+		assertSame(DateTimeFormatterRegistry.formatterFor("yyyy/MM/dd HH:mm", GMT, Locale.ENGLISH),
+				DateTimeFormatterRegistry.formatterFor(new String("yyyy/MM/dd HH:mm"), GMT, Locale.ENGLISH));
+		
+		Date date = DateUtils.parse("2020-05-12 08:00:00", FMT_ISO_DATETIME, CHINA);
+		assertEquals(1589241600000L, date.getTime());
+		assertEquals("2020-05-12 00:00:00", DateUtils.format(date, GMT));
+		assertEquals("2020-05-12T00:00:00Z", DateUtils.format(date, UTC_DATETIME_FORMAT, GMT));
+		assertEquals("12-May-2020", DateUtils.format(date, "dd-MMM-yyyy", CHINA, Locale.ENGLISH));
+		assertEquals("2020-05-12 09:00:00", DateUtils.convert2TargetTimezone("2020-05-12 08:00:00", CHINA, JAPAN));
+		
+		//只有日期的按当天0点
+		assertEquals("2020-05-12 00:00:00", DateUtils.format(DateUtils.parse("2020-05-12", "yyyy-MM-dd")));
+		assertNull(DateUtils.parse("2020-05-12", FMT_ISO_DATETIME));
+		
+		//E、Z这类pattern: formatterFor()按DateTimeFormatter的语义, 一样缓存; DateUtils还是SimpleDateFormat的语义
+		String rfc = "EEE, dd MMM yyyy HH:mm:ss Z";
+		DateTimeFormatter formatter = DateTimeFormatterRegistry.formatterFor(rfc, GMT, Locale.ENGLISH);
+		assertSame(formatter, DateTimeFormatterRegistry.formatterFor(new String(rfc), GMT, Locale.ENGLISH));
+		assertEquals("Tue, 12 May 2020 00:00:00 +0000", formatter.format(date.toInstant()));
+		assertEquals(date, DateTimeFormatterRegistry.parseDate("Tue, 12 May 2020 08:00:00 +0800", formatter));
+		for (int i = 0; i < 2; i++) {
+			assertEquals("Tue, 12 May 2020 00:00:00 +0000", DateUtils.format(date, rfc, GMT, Locale.ENGLISH));
+			assertEquals(date, DateUtils.parse("Tue, 12 May 2020 08:00:00 +0800", rfc, GMT, Locale.ENGLISH));
+		}
+	}
+
+	@Test
+	public void testSimpleDateFormatSemantics() {
+		//缺的日取1号, 后面多出来的文本忽略, 2月30号顺延到3月1号
+		assertEquals("2020-05-01 00:00:00", DateUtils.format(DateUtils.parse("2020-05", "yyyy-MM")));
+		assertEquals("2020-01-01 00:00:00", DateUtils.format(DateUtils.parse("2020-01-01 10:00:00", "yyyy-MM-dd")));
+		assertEquals("2020-03-01 10:00:00",
+				DateUtils.format(DateUtils.parse("2020-02-30 10:00:00", FMT_ISO_DATETIME)));
+		assertEquals("2020-05-01 08:30:00", DateUtils.format(DateUtils.parse("2020-5-1 8:30", "yyyy-MM-dd HH:mm")));
+		assertEquals("1970-01-01 10:00:00", DateUtils.format(DateUtils.parse("10:00", "HH:mm")));
+		assertEquals("2020年05月12日", DateUtils.format(new Date(1589241600000L), "yyyy年MM月dd日"));
+
+		//S是毫秒数
+		Date millis = DateUtils.parse("2020-05-12 08:00:00.12", "yyyy-MM-dd HH:mm:ss.SSS");
+		assertEquals(1589241600012L, millis.getTime());
+		assertEquals("08:00:00.012", DateUtils.format(millis, "HH:mm:ss.SSS"));
+
+		//u是星期几, 不是年份
+		assertEquals("4", DateUtils.format(new Date(0), "u", GMT));
+		assertEquals("1970", DateUtils.format(new Date(0), "yyyy", GMT));
+		assertEquals("Thu 1970", DateUtils.format(new Date(0), "EEE YYYY", GMT, Locale.ENGLISH));
+	}
+	
+	@Test
+	public void testCachedSecondFormat() {
+		LocalDateTime time = LocalDateTime.of(2020, 12, 31, 23, 59, 58, 123);
+		for (int i = 0; i < 5000; i++) {
+			LocalDateTime current = time.plusNanos(i * 1_000_000L);
+			assertEquals(current.format(DTF_ISO_DATETIME), DateUtils.format(current));
+		}
+		LocalDateTime[] others = {LocalDateTime.of(1969, 12, 31, 23, 59, 59), LocalDateTime.of(1, 1, 1, 0, 0),
+				LocalDateTime.of(9999, 12, 31, 23, 59, 59), LocalDateTime.of(2020, 2, 29, 9, 5, 7)};
+		for (LocalDateTime other : others) {
+			assertEquals(other.format(DTF_ISO_DATETIME), DateUtils.format(other));
+			assertEquals(other.format(DTF_ISO_DATETIME), DateUtils.format(other.plusNanos(1), FMT_ISO_DATETIME));
+		}
+		assertEquals(LocalDateTime.of(10000, 1, 1, 0, 0).format(DTF_ISO_DATETIME),
+				DateUtils.format(LocalDateTime.of(10000, 1, 1, 0, 0)));
+		//0年是公元前1年, yyyy按公元纪年是0001
+		assertEquals("0001-01-01 00:00:00", DateUtils.format(LocalDateTime.of(0, 1, 1, 0, 0)));
+	}
+	
+	@Test
+	public void testClock() throws InterruptedException {
+		CoarseClock coarseClock = CoarseClock.of(ZONE_ID_SHANG_HAI);
+		long before = System.currentTimeMillis();
+		Thread.sleep(20);
+		long millis = coarseClock.millis();
+		assertTrue(millis > before && millis <= System.currentTimeMillis());
+		assertSame(coarseClock.localDate(), coarseClock.localDate());
+		assertEquals(LocalDate.now(ZONE_ID_SHANG_HAI), coarseClock.localDate());
+		
+		Clock original = DateUtils.clock();
+		try {
+			DateUtils.setClock(Clock.fixed(Instant.ofEpochMilli(1589241600000L), ZONE_ID_SHANG_HAI));
+			assertEquals(LocalDateTime.of(2020, 5, 12, 8, 0), DateUtils.now());
+			assertEquals(LocalDate.of(2020, 5, 12), DateUtils.today());
+			assertEquals(1589241600000L, DateUtils.currentTimeMillis());
+			
+			DateUtils.setClock(coarseClock);
+			assertSame(coarseClock.localDateTime(), DateUtils.now());
+		} finally {
+			DateUtils.setClock(original);
+		}
+	}
+	
+	@Test
+	public void testBulkConversion() {
+		ZoneId newYork = ZoneId.of("America/New_York");
+		long start = LocalDateTime.of(2019, 11, 3, 0, 0).atZone(newYork).toInstant().toEpochMilli();
+		long[] millis = new long[40000];
+		for (int i = 0; i < millis.length; i++) {
+			millis[i] = start + i * 997_001L;
+		}
+		millis[7] = DateUtils.INVALID_EPOCH_MILLIS;
+		
+		for (boolean parallel : new boolean[]{false, true}) {
+			LocalDateTime[] localDateTimes = DateUtils.toLocalDateTime(millis, newYork, parallel);
+			assertNull(localDateTimes[7]);
+			for (int i = 0; i < millis.length; i++) {
+				if (i != 7) {
+					assertEquals(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis[i]), newYork), localDateTimes[i]);
+				}
+			}
+			long[] back = DateUtils.toEpochMilis(localDateTimes, newYork, parallel);
+			for (int i = 0; i < millis.length; i++) {
+				long expected = i == 7 ? DateUtils.INVALID_EPOCH_MILLIS :
+						localDateTimes[i].atZone(newYork).toInstant().toEpochMilli();
+				assertEquals(expected, back[i]);
+			}
+		}
+		
+		Date[] dates = {new Date(1589241600000L), null};
+		assertArrayEquals(new long[]{1589241600000L, DateUtils.INVALID_EPOCH_MILLIS}, DateUtils.toEpochMilis(dates));
+		
+		String[] sources = {"2020-05-12 08:00:00", "2020/05/12 08:00:01", "2020/05/12 08:00:02", "  ", null, "2020-05-12",
+				"abc", "2020/5/12"};
+		long[] parsed = DateUtils.toEpochMilis(sources, ZONE_ID_SHANG_HAI);
+		assertArrayEquals(new long[]{1589241600000L, 1589241601000L, 1589241602000L, DateUtils.INVALID_EPOCH_MILLIS,
+				DateUtils.INVALID_EPOCH_MILLIS, 1589212800000L, DateUtils.INVALID_EPOCH_MILLIS, 1589212800000L}, parsed);
+	}
+	
+	@Test
+	public void testZoneConverter() {
+		Random random = new Random(42);
+		String[] zones = {"Asia/Shanghai", "America/New_York", "Australia/Lord_Howe", "Europe/London", "UTC", "+05:30"};
+		for (String zone : zones) {
+			ZoneId zoneId = ZoneId.of(zone);
+			ZoneConverter converter = ZoneConverter.of(zoneId);
+			for (int i = 0; i < 20000; i++) {
+				// 1850 ~ 2150年之间
+				long millis = -3786825600000L + (long) (random.nextDouble() * 9467280000000L);
+				LocalDateTime local = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zoneId);
+				long localMillis = local.toEpochSecond(ZoneOffset.UTC) * 1000L + local.getNano() / 1_000_000;
+				assertEquals(localMillis, converter.toLocalMillis(millis));
+				
+				// 本地时间随机取, 覆盖跳过和重复的那段时间
+				LocalDateTime wall = LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L), 0, ZoneOffset.UTC);
+				long wallMillis = wall.toEpochSecond(ZoneOffset.UTC) * 1000L;
+				assertEquals(wall.atZone(zoneId).toInstant().toEpochMilli(), converter.toEpochMillis(wallMillis));
+				assertEquals(wall.atZone(zoneId).withLaterOffsetAtOverlap().toInstant().toEpochMilli(),
+						converter.toEpochMillisLaterOffset(wallMillis));
+			}
+		}
+		assertTrue(ZoneConverter.of(ZoneOffset.UTC).isFixedOffset());
+		assertSame(ZoneConverter.of(ZONE_ID_SHANG_HAI), ZoneConverter.of(ZONE_ID_SHANG_HAI));
+		
+		// 夏令时开始那天跳过的02:30往后挪到03:30
+		ZoneId newYork = ZoneId.of("America/New_York");
+		long gap = LocalDateTime.of(2020, 3, 8, 2, 30).toEpochSecond(ZoneOffset.UTC) * 1000L;
+		assertEquals(LocalDateTime.of(2020, 3, 8, 2, 30).atZone(newYork).toInstant().toEpochMilli(),
+				ZoneConverter.of(newYork).toEpochMillis(gap));
+		
+		TimeZone shanghai = TimeZone.getTimeZone("Asia/Shanghai");
+		TimeZone ny = TimeZone.getTimeZone("America/New_York");
+		assertEquals("2020-05-11 20:00:00", DateUtils.convert2TargetTimezone("2020-05-12 08:00:00", shanghai, ny));
+		assertEquals("2020-01-11 11:00:00", DateUtils.convert2TargetTimezone("2020-01-12", shanghai, ny));
+		assertEquals("2020-01-11 11:00:00", DateUtils.convert2TargetTimezone("2020/01/12", shanghai, ny));
+		assertEquals("2020-05-11 20:00:00", DateUtils.convert2TargetTimezone("2020/05/12 08:00:00", shanghai, ny));
+		assertEquals("2020-05-11 20:00:00",
+				DateUtils.convert2TargetTimezone("2020-05-12 08:00:00", FMT_ISO_DATETIME, shanghai, ny));
+		assertEquals("2020-05-11 20:00",
+				DateUtils.convert2TargetTimezone("2020-05-12 08:00:00", FMT_ISO_DATETIME, FMT_ISO_DATETIME_SHORT, shanghai, ny));
+		
+		// 夏令时结束那天重复的01:30和原来一样按标准时间(-05:00)算
+		TimeZone utc = TimeZone.getTimeZone("UTC");
+		assertEquals("2020-11-01 06:30:00", DateUtils.convert2TargetTimezone("2020-11-01 01:30:00", ny, utc));
+		assertEquals("2020-11-01 06:30:00",
+				DateUtils.convert2TargetTimezone("2020-11-01 01:30:00", FMT_ISO_DATETIME, ny, utc));
+		assertEquals("2020-11-01 06:30:00", DateUtils.format(DateUtils.parse("2020/11/01 01:30:00", ny), utc));
+	}
 }
@@ -0,0 +1,128 @@
+package com.loserico.common.lang;
+
+import com.loserico.common.lang.utils.EnumUtils;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>
+ * Copyright: (C), 2020/5/16 15:40
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+public class EnumUtilsTest {
+
+	@Test
+	public void testLookupByOrdinalAndName() {
+		assertEquals(AuditStatus.TO_AUDIT, EnumUtils.lookupEnum(AuditStatus.class, 0));
+		assertEquals(AuditStatus.REJECTED, EnumUtils.lookupEnum(AuditStatus.class, 2L));
+		assertEquals(AuditStatus.PASSED, EnumUtils.lookupEnum(AuditStatus.class, BigInteger.ONE));
+		assertNull(EnumUtils.lookupEnum(AuditStatus.class, 3));
+		assertNull(EnumUtils.lookupEnum(AuditStatus.class, -1));
+		try {
+			EnumUtils.lookupEnum(AuditStatus.class, BigInteger.TEN);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+
+		assertEquals(AuditStatus.PASSED, EnumUtils.lookupEnum(AuditStatus.class, "passed"));
+		// 不是name的话按ordinal解析
+		assertEquals(AuditStatus.REJECTED, EnumUtils.lookupEnum(AuditStatus.class, "2"));
+		assertNull(EnumUtils.lookupEnum(AuditStatus.class, "unknown"));
+	}
+
+	@Test
+	public void testLookupByProperty() {
+		assertEquals(AuditStatus.PASSED, EnumUtils.toEnum(AuditStatus.class, 102, "code"));
+		assertEquals(AuditStatus.PASSED, EnumUtils.toEnum(AuditStatus.class, "102", "code"));
+		assertEquals(AuditStatus.REJECTED, EnumUtils.toEnum(AuditStatus.class, 20000000003L, "serial"));
+		assertEquals(AuditStatus.TO_AUDIT, EnumUtils.toEnum(AuditStatus.class, BigInteger.valueOf(7), "weight"));
+		assertNull(EnumUtils.toEnum(AuditStatus.class, 102L, "code"));
+
+		// 大小写不敏感, 忽略前后空白
+		assertEquals(AuditStatus.REJECTED, EnumUtils.toEnum(AuditStatus.class, " Not Passed ", "desc"));
+		assertEquals(AuditStatus.TO_AUDIT, EnumUtils.toEnum(AuditStatus.class, "未审核", "desc", "alias"));
+		assertEquals(AuditStatus.PASSED,
+				EnumUtils.toEnum(AuditStatus.class, "ok", Arrays.asList("desc", "alias")));
+		assertNull(EnumUtils.toEnum(AuditStatus.class, "whatever", "desc"));
+		assertNull(EnumUtils.toEnum(AuditStatus.class, "passed", "noSuchField"));
+		try {
+			EnumUtils.toEnum(AuditStatus.class, " ", "desc");
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testToEnumByIntCode() {
+		// 码值连续, 走数组
+		assertEquals(AuditStatus.TO_AUDIT, EnumUtils.toEnum(AuditStatus.class, 101, "code"));
+		assertEquals(AuditStatus.REJECTED, EnumUtils.toEnum(AuditStatus.class, 103, "code"));
+		assertNull(EnumUtils.toEnum(AuditStatus.class, 100, "code"));
+		assertNull(EnumUtils.toEnum(AuditStatus.class, Integer.MIN_VALUE, "code"));
+		assertNull(EnumUtils.toEnum(AuditStatus.class, Integer.MAX_VALUE, "code"));
+
+		// 码值稀疏, 走开放寻址
+		assertEquals(Level.LOW, EnumUtils.toEnum(Level.class, -100000, "code"));
+		assertEquals(Level.MIDDLE, EnumUtils.toEnum(Level.class, 0, "code"));
+		assertEquals(Level.HIGH, EnumUtils.toEnum(Level.class, 100000, "code"));
+		assertNull(EnumUtils.toEnum(Level.class, 1, "code"));
+
+		// 不指定属性按ordinal查
+		assertEquals(Level.HIGH, EnumUtils.toEnum(Level.class, 2));
+		assertNull(EnumUtils.toEnum(Level.class, 3));
+		assertNull(EnumUtils.toEnum(Level.class, 1, "noSuchField"));
+	}
+
+	public enum Level {
+
+		LOW(-100000),
+
+		MIDDLE(0),
+
+		HIGH(100000);
+
+		private final int code;
+
+		Level(int code) {
+			this.code = code;
+		}
+	}
+
+	public enum AuditStatus {
+
+		TO_AUDIT(101, 20000000001L, BigInteger.valueOf(7), "待审核", "未审核"),
+
+		PASSED(102, 20000000002L, BigInteger.valueOf(8), "passed", "OK"),
+
+		REJECTED(103, 20000000003L, BigInteger.valueOf(9), "not passed", "failed");
+
+		private final int code;
+
+		private final long serial;
+
+		private final BigInteger weight;
+
+		private final String desc;
+
+		private final String alias;
+
+		AuditStatus(int code, long serial, BigInteger weight, String desc, String alias) {
+			this.code = code;
+			this.serial = serial;
+			this.weight = weight;
+			this.desc = desc;
+			this.alias = alias;
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package com.loserico.common.lang;
+
+import com.loserico.common.lang.utils.HexDecodingChannel;
+import com.loserico.common.lang.utils.HexDecodingInputStream;
+import com.loserico.common.lang.utils.HexEncodingChannel;
+import com.loserico.common.lang.utils.HexEncodingOutputStream;
+import com.loserico.common.lang.utils.RedixUtils;
+import com.loserico.common.lang.utils.SnowflakeId;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * Copyright: (C), 2020/5/9 11:20
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+public class RedixUtilsTest {
+
+	private static final long[] EDGES = {0L, 1L, 61L, 62L, Long.MAX_VALUE, Long.MIN_VALUE, -1L};
+
+	@Test
+	public void testBase62RoundTrip() {
+		Random random = new Random(42);
+		for (int i = 0; i < 10000; i++) {
+			long value = i < EDGES.length ? EDGES[i] : random.nextLong();
+			String encoded = RedixUtils.toBase62(value);
+			assertEquals(RedixUtils.BASE62_LENGTH, encoded.length());
+			assertEquals(value, RedixUtils.fromBase62(encoded));
+
+			byte[] bytes = new byte[RedixUtils.BASE62_LENGTH + 2];
+			RedixUtils.encodeBase62(value, bytes, 2);
+			assertEquals(value, RedixUtils.decodeBase62(bytes, 2));
+
+			StringBuilder sb = new StringBuilder("key:");
+			RedixUtils.appendBase62(value, sb);
+			assertEquals("key:" + encoded, sb.toString());
+		}
+	}
+
+	@Test
+	public void testBase32RoundTrip() {
+		Random random = new Random(42);
+		for (int i = 0; i < 10000; i++) {
+			long value = i < EDGES.length ? EDGES[i] : random.nextLong();
+			String encoded = RedixUtils.toBase32(value);
+			assertEquals(RedixUtils.BASE32_LENGTH, encoded.length());
+			assertEquals(value, RedixUtils.fromBase32(encoded));
+			assertEquals(value, RedixUtils.fromBase32(encoded.toLowerCase()));
+
+			char[] chars = new char[RedixUtils.BASE32_LENGTH];
+			RedixUtils.encodeBase32(value, chars, 0);
+			assertEquals(value, RedixUtils.decodeBase32(chars, 0));
+			assertEquals(encoded, RedixUtils.appendBase32(value, new StringBuilder()).toString());
+		}
+	}
+
+	@Test
+	public void testOrderPreserving() {
+		SnowflakeId idWorker = new SnowflakeId(1, 1);
+		long[] ids = idWorker.nextIds(5000);
+		for (int i = 1; i < ids.length; i++) {
+			assertTrue(RedixUtils.toBase62(ids[i]).compareTo(RedixUtils.toBase62(ids[i - 1])) > 0);
+			assertTrue(RedixUtils.toBase32(ids[i]).compareTo(RedixUtils.toBase32(ids[i - 1])) > 0);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBase62Overflow() {
+		RedixUtils.fromBase62("zzzzzzzzzzz");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBase62IllegalCharacter() {
+		RedixUtils.fromBase62("0000000000-");
+	}
+
+	@Test
+	public void testHexRoundTrip() {
+		byte[] data = new byte[257];
+		new Random(7).nextBytes(data);
+		String hex = RedixUtils.bytesToHex(data);
+		assertEquals(data.length * 2, hex.length());
+
+		byte[] decoded = new byte[data.length];
+		assertEquals(data.length, RedixUtils.decodeHex(hex.toUpperCase(), decoded));
+		assertArrayEquals(data, decoded);
+
+		ByteBuffer encoded = ByteBuffer.allocate(data.length * 2);
+		RedixUtils.encodeHex(ByteBuffer.wrap(data), encoded);
+		assertEquals(hex, new String(encoded.array(), StandardCharsets.US_ASCII));
+
+		encoded.flip();
+		ByteBuffer bytes = ByteBuffer.allocateDirect(data.length);
+		RedixUtils.decodeHex(encoded, bytes);
+		bytes.flip();
+		byte[] fromBuffer = new byte[data.length];
+		bytes.get(fromBuffer);
+		assertArrayEquals(data, fromBuffer);
+	}
+
+	@Test
+	public void testParseHex() {
+		assertEquals(255L, RedixUtils.hexToDecimal(" 0xFf "));
+		assertEquals(0x7fffffffffffffffL, RedixUtils.parseHexLong("7FFFFFFFFFFFFFFF"));
+		assertEquals(-1L, RedixUtils.parseHexLong("ffffffffffffffff"));
+		assertEquals(0xCAFEBABE, RedixUtils.parseHexInt("CAFEBABE"));
+		String traceId = "4bf92f3577b34da6a3ce929d0e0e4736";
+		assertEquals(0x4bf92f3577b34da6L, RedixUtils.parseHexLong(traceId, 0, 16));
+		assertEquals(0xa3ce929d0e0e4736L, RedixUtils.parseHexLong(traceId, 16, 32));
+		assertEquals("11111111", RedixUtils.hexToBinary("0xff"));
+		assertEquals("1" + "0000000000000000000000000000000000000000000000000000000000000000",
+				RedixUtils.hexToBinary("10000000000000000"));
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testParseHexIllegalCharacter() {
+		RedixUtils.parseHexLong("12G4");
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testHexToDecimalPrefixOnly() {
+		RedixUtils.hexToDecimal("0x");
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testHexToDecimalTooLong() {
+		RedixUtils.hexToDecimal("10000000000000000");
+	}
+
+	@Test
+	public void testHexStreams() throws IOException {
+		byte[] data = new byte[100003];
+		new Random(11).nextBytes(data);
+		String hex = RedixUtils.bytesToHex(data);
+
+		ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+		try (OutputStream out = new HexEncodingOutputStream(encoded, 1000)) {
+			out.write(data[0]);
+			out.write(data, 1, 4999);
+			out.write(data, 5000, data.length - 5000);
+		}
+		assertEquals(hex, new String(encoded.toByteArray(), StandardCharsets.US_ASCII));
+
+		ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+		try (InputStream in = new HexDecodingInputStream(new ByteArrayInputStream(encoded.toByteArray()), 777)) {
+			decoded.write(in.read());
+			byte[] buf = new byte[333];
+			int n;
+			while ((n = in.read(buf)) != -1) {
+				decoded.write(buf, 0, n);
+			}
+		}
+		assertArrayEquals(data, decoded.toByteArray());
+
+		ByteArrayOutputStream channelEncoded = new ByteArrayOutputStream();
+		try (WritableByteChannel channel = new HexEncodingChannel(Channels.newChannel(channelEncoded), 512)) {
+			channel.write(ByteBuffer.wrap(data));
+		}
+		assertEquals(hex, new String(channelEncoded.toByteArray(), StandardCharsets.US_ASCII));
+
+		ByteArrayOutputStream channelDecoded = new ByteArrayOutputStream();
+		byte[] hexBytes = hex.toUpperCase().getBytes(StandardCharsets.US_ASCII);
+		try (WritableByteChannel channel = new HexDecodingChannel(Channels.newChannel(channelDecoded), 512)) {
+			//故意按奇数长度切开写
+			for (int i = 0; i < hexBytes.length; i += 1001) {
+				channel.write(ByteBuffer.wrap(hexBytes, i, Math.min(1001, hexBytes.length - i)));
+			}
+		}
+		assertArrayEquals(data, channelDecoded.toByteArray());
+	}
+
+	@Test(expected = IOException.class)
+	public void testHexStreamTruncated() throws IOException {
+		InputStream in = new HexDecodingInputStream(new ByteArrayInputStream("abc".getBytes(StandardCharsets.US_ASCII)));
+		while (in.read() != -1) {
+		}
+	}
+}
@@ -1,9 +1,17 @@
 package com.loserico.common.lang;
 
+import com.loserico.common.lang.utils.FieldAccessor;
+import com.loserico.common.lang.utils.MethodAccessor;
 import com.loserico.common.lang.utils.ReflectionUtils;
 import org.junit.Test;
 import org.springframework.context.annotation.Bean;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
 /**
  * <p>
  * Copyright: (C), 2020/4/21 12:40
@@ -22,6 +30,228 @@ public class ReflectionTest {
 		System.out.println(exists);
 	}
 	
+	@Test
+	public void testFieldAccessor() {
+		Child child = new Child();
+		assertEquals(0, ReflectionUtils.getField(child, "count"));
+		ReflectionUtils.setField("count", child, 3);
+		ReflectionUtils.setField("name", child, "rico");
+		ReflectionUtils.setField(child, null, "serial", 10L, long.class);
+		ReflectionUtils.setField("version", child, 2);
+		assertEquals(3, ReflectionUtils.getField(child, "count"));
+		assertEquals("rico", ReflectionUtils.<String>getFieldValue("name", child));
+		assertEquals(10L, ReflectionUtils.getFieldValue(child, null, "serial"));
+		assertEquals(2, ReflectionUtils.getField(child, "version"));
+		assertNull(ReflectionUtils.getField(child, "noSuchField"));
+		try {
+			ReflectionUtils.getFieldValue(child, null, "noSuchField");
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+
+		// 子类的字段优先
+		ReflectionUtils.setField("shadowed", child, "child");
+		assertEquals("child", child.shadowed);
+		assertEquals("parent", ((Parent) child).shadowed);
+
+		// 静态字段、final字段
+		ReflectionUtils.setField(Child.class, "counter", 5);
+		assertEquals(5, ReflectionUtils.getField(Child.class, "counter"));
+		ReflectionUtils.setField("id", child, "changed");
+		assertEquals("changed", ReflectionUtils.getField(child, "id"));
+
+		FieldAccessor count = FieldAccessor.of(Child.class, "count");
+		assertSame(count, FieldAccessor.of(Child.class, "count"));
+		count.setInt(child, 7);
+		assertEquals(7, count.getInt(child));
+		assertEquals(7L, count.getLong(child));
+		FieldAccessor version = FieldAccessor.of(Child.class, "version");
+		version.setInt(child, 9);
+		assertEquals(9, version.getInt(child));
+		FieldAccessor serial = FieldAccessor.of(Child.class, "serial");
+		serial.setLong(child, 11L);
+		assertEquals(11L, serial.getLong(child));
+		// 拓宽转换和Field一样
+		FieldAccessor level = FieldAccessor.of(Child.class, "level");
+		level.set(child, (short) 4);
+		assertEquals(4, level.getInt(child));
+		serial.set(child, 12);
+		assertEquals(12L, serial.getObject(child));
+
+		// 类型不对和Field一样抛IllegalArgumentException
+		try {
+			count.set(child, "3");
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			count.getInt(new MyClass());
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			count.set(child, null);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testMethodAccessor() {
+		Account account = new Account();
+		ReflectionUtils.invokeSetterMethod(account, "name", "rico");
+		ReflectionUtils.invokeSetterMethod(account, "setBalance", 100L);
+		ReflectionUtils.invokeSetterMethod(account, "level", 3, int.class);
+		assertEquals("rico", ReflectionUtils.invokeGetterMethod(account, "name"));
+		assertEquals(100L, ReflectionUtils.invokeGetterMethod(account, "getBalance"));
+		assertEquals(3, ReflectionUtils.invokeGetterMethod(account, "level"));
+		assertEquals("rico:100", ReflectionUtils.invokeMethod(account, "describe"));
+		assertEquals("rico-3", ReflectionUtils.invokeMethod(account, "join", "-", 3));
+		assertEquals("rico+x", ReflectionUtils.invokeMethod(account, "join", "+", "x"));
+		// 非public类的方法走MethodHandle
+		Hidden hidden = new Hidden();
+		ReflectionUtils.invokeSetterMethod(hidden, "value", "hidden");
+		assertEquals("hidden", ReflectionUtils.invokeGetterMethod(hidden, "value"));
+
+		MethodAccessor balance = MethodAccessor.find(Account.class, "getBalance");
+		assertSame(balance, MethodAccessor.find(Account.class, "getBalance"));
+		assertEquals(100L, balance.invokeLong(account));
+		assertEquals(3L, MethodAccessor.find(Account.class, "getLevel").invokeLong(account));
+		assertNull(MethodAccessor.find(Account.class, "getNothing"));
+
+		// 参数类型不对和反射调用一样抛IllegalArgumentException
+		try {
+			ReflectionUtils.invokeSetterMethod(account, "balance", "100");
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			ReflectionUtils.invokeSetterMethod(account, "level", null, int.class);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			ReflectionUtils.invokeGetterMethod(account, "nothing");
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			ReflectionUtils.invokeMethod(account, "nothing");
+			fail();
+		} catch (IllegalStateException e) {
+			assertTrue(e.getMessage().startsWith("Method not found"));
+		}
+		// 方法本身抛的异常原样抛出
+		try {
+			ReflectionUtils.invokeMethod(account, "fail");
+			fail();
+		} catch (UnsupportedOperationException e) {
+		}
+	}
+
+	@Test
+	public void testFindMember() throws NoSuchMethodException {
+		// 子类的字段遮住父类的同名字段
+		assertEquals(Child.class, ReflectionUtils.findField(Child.class, "shadowed").getDeclaringClass());
+		assertEquals(Parent.class, ReflectionUtils.findField(Child.class, "serial").getDeclaringClass());
+		assertEquals("serial", ReflectionUtils.findField(Child.class, null, long.class).getName());
+		assertEquals(Child.class, ReflectionUtils.findField(Child.class, "count", int.class).getDeclaringClass());
+		assertNull(ReflectionUtils.findField(Child.class, "name", int.class));
+		assertNull(ReflectionUtils.findField(Child.class, "nothing"));
+		assertTrue(ReflectionUtils.existsField(new Child(), "name"));
+		assertTrue(!ReflectionUtils.existsField(new Child(), "nothing"));
+
+		assertEquals(Account.class.getMethod("join", String.class, Object.class),
+				ReflectionUtils.findMethod(Account.class, "join", String.class, Object.class));
+		assertNull(ReflectionUtils.findMethod(Account.class, "join", String.class));
+		assertEquals(Object.class.getMethod("wait", long.class),
+				ReflectionUtils.findMethod(Account.class, "wait", long.class));
+		assertEquals(Object.class, ReflectionUtils.findMethod(Account.class, "hashCode").getDeclaringClass());
+		assertNull(ReflectionUtils.findMethod(Account.class, "nothing"));
+	}
+
+	public static class Account {
+
+		private String name;
+
+		private long balance;
+
+		private int level;
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public long getBalance() {
+			return balance;
+		}
+
+		public void setBalance(long balance) {
+			this.balance = balance;
+		}
+
+		public int getLevel() {
+			return level;
+		}
+
+		public void setLevel(int level) {
+			this.level = level;
+		}
+
+		public String describe() {
+			return name + ":" + balance;
+		}
+
+		public String join(String separator, Object value) {
+			return name + separator + value;
+		}
+
+		public void fail() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	static class Hidden {
+
+		private String value;
+
+		public String getValue() {
+			return value;
+		}
+
+		public void setValue(String value) {
+			this.value = value;
+		}
+	}
+
+	static class Parent {
+
+		private String name;
+
+		private long serial;
+
+		String shadowed = "parent";
+	}
+
+	static class Child extends Parent {
+
+		private static int counter;
+
+		private final String id = new String("id");
+
+		private int count;
+
+		private short level;
+
+		private volatile int version;
+
+		String shadowed;
+	}
+
 	static class MyClass {
 		
 		@Bean
@@ -0,0 +1,249 @@
+package com.loserico.common.lang;
+
+import com.loserico.common.lang.clock.CoarseClock;
+import com.loserico.common.lang.utils.SegmentedSnowflakeId;
+import com.loserico.common.lang.utils.SnowflakeId;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.loserico.common.lang.utils.SnowflakeId.ClockBackwardsPolicy.BORROW;
+import static com.loserico.common.lang.utils.SnowflakeId.ClockBackwardsPolicy.WAIT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * Copyright: (C), 2020/5/6 10:12
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+public class SnowflakeIdTest {
+
+	@Test
+	public void testNextIdMonotonic() {
+		SnowflakeId idWorker = new SnowflakeId(0, 31);
+		long previous = idWorker.nextId();
+		for (int i = 0; i < 100000; i++) {
+			long id = idWorker.nextId();
+			assertTrue(id > previous);
+			previous = id;
+		}
+	}
+
+	@Test
+	public void testNextIds() {
+		SnowflakeId idWorker = new SnowflakeId(1, 1);
+		long[] ids = idWorker.nextIds(10000);
+		assertEquals(10000, ids.length);
+		for (int i = 1; i < ids.length; i++) {
+			assertTrue(ids[i] > ids[i - 1]);
+		}
+		assertTrue(idWorker.nextId() > ids[ids.length - 1]);
+	}
+
+	@Test
+	public void testConcurrentUnique() throws InterruptedException {
+		SnowflakeId idWorker = new SnowflakeId(2, 3);
+		int threads = 8;
+		int perThread = 20000;
+		Set<Long> ids = ConcurrentHashMap.newKeySet();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		CountDownLatch latch = new CountDownLatch(threads);
+		for (int t = 0; t < threads; t++) {
+			final boolean batch = t % 2 == 0;
+			pool.execute(() -> {
+				if (batch) {
+					for (long id : idWorker.nextIds(perThread)) {
+						ids.add(id);
+					}
+				} else {
+					for (int i = 0; i < perThread; i++) {
+						ids.add(idWorker.nextId());
+					}
+				}
+				latch.countDown();
+			});
+		}
+		latch.await();
+		pool.shutdown();
+		assertEquals(threads * perThread, ids.size());
+	}
+
+	@Test
+	public void testSegmentedConcurrentUnique() throws InterruptedException {
+		SnowflakeId shared = new SnowflakeId(4, 5);
+		SegmentedSnowflakeId idWorker = new SegmentedSnowflakeId(shared, 32);
+		int threads = 8;
+		int perThread = 20000;
+		Set<Long> ids = ConcurrentHashMap.newKeySet();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		CountDownLatch latch = new CountDownLatch(threads);
+		for (int t = 0; t < threads; t++) {
+			pool.execute(() -> {
+				try {
+					long previous = 0L;
+					for (int i = 0; i < perThread; i++) {
+						long id = idWorker.nextId();
+						if (id <= previous) {
+							return;
+						}
+						previous = id;
+						ids.add(id);
+					}
+					//和直接用共享的SnowflakeId发号混在一起也不会重复
+					ids.add(shared.nextId());
+				} finally {
+					latch.countDown();
+				}
+			});
+		}
+		latch.await();
+		pool.shutdown();
+		assertEquals(threads * (perThread + 1), ids.size());
+	}
+
+	@Test
+	public void testDecode() {
+		SnowflakeId idWorker = new SnowflakeId(7, 21);
+		long before = System.currentTimeMillis();
+		long id = idWorker.nextId();
+		long after = System.currentTimeMillis();
+		SnowflakeId.Parts parts = idWorker.decode(id, new SnowflakeId.Parts());
+		assertEquals(7, parts.getWorkerId());
+		assertEquals(21, parts.getDatacenterId());
+		assertTrue(parts.getTimestamp() >= before && parts.getTimestamp() <= after);
+		assertEquals(parts.getSequence(), idWorker.sequenceOf(id));
+	}
+
+	@Test
+	public void testCustomLayout() {
+		SnowflakeId idWorker = SnowflakeId.builder()
+				.twepoch(1577808000000L)
+				.datacenterIdBits(0)
+				.workerIdBits(4)
+				.sequenceBits(16)
+				.workerId(15)
+				.build();
+		long[] ids = idWorker.nextIds(70000);
+		for (int i = 1; i < ids.length; i++) {
+			assertTrue(ids[i] > ids[i - 1]);
+		}
+		assertEquals(15, idWorker.workerIdOf(ids[0]));
+		assertEquals(0, idWorker.datacenterIdOf(ids[0]));
+		//16位序列, 一毫秒内最多65536个
+		assertTrue(idWorker.sequenceOf(ids[65535]) <= 65535);
+	}
+
+	@Test
+	public void testSecondsLayout() {
+		SnowflakeId idWorker = SnowflakeId.builder()
+				.timeUnit(TimeUnit.SECONDS)
+				.sequenceBits(20)
+				.workerIdBits(2)
+				.datacenterIdBits(0)
+				.workerId(1)
+				.build();
+		long before = System.currentTimeMillis();
+		long id = idWorker.nextId();
+		long after = System.currentTimeMillis();
+		//按秒截断, 可能落在before所在的那一秒
+		long timestamp = idWorker.timestampOf(id);
+		assertTrue(before / 1000 * 1000 <= timestamp && timestamp <= after);
+		assertEquals(0, timestamp % 1000);
+		assertEquals(1, idWorker.workerIdOf(id));
+	}
+
+	@Test
+	public void testCoarseClock() {
+		SnowflakeId idWorker = SnowflakeId.builder().clock(CoarseClock.systemDefault()).workerId(3).build();
+		long[] ids = idWorker.nextIds(50000);
+		for (int i = 1; i < ids.length; i++) {
+			assertTrue(ids[i] > ids[i - 1]);
+		}
+		assertTrue(Math.abs(idWorker.timestampOf(ids[0]) - System.currentTimeMillis()) < 1000);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testLayoutTooWide() {
+		SnowflakeId.builder().sequenceBits(22).workerIdBits(5).datacenterIdBits(5).build();
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testRejectClockBackwards() {
+		AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+		SnowflakeId idWorker = new ManualClockSnowflakeId(clock, SnowflakeId.ClockBackwardsPolicy.REJECT, 0L);
+		idWorker.nextId();
+		clock.addAndGet(-5);
+		idWorker.nextId();
+	}
+
+	@Test
+	public void testBorrowClockBackwards() {
+		AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+		SnowflakeId idWorker = new ManualClockSnowflakeId(clock, BORROW, 10L);
+		long previous = idWorker.nextId();
+		clock.addAndGet(-5);
+		//时钟停在回退后的时间, 借用未来的时间截也能一直递增, 最多领先时钟10毫秒
+		for (int i = 0; i < 4096 * 5; i++) {
+			long id = idWorker.nextId();
+			assertTrue(id > previous);
+			previous = id;
+		}
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testBorrowTooFarBackwards() {
+		AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+		SnowflakeId idWorker = new ManualClockSnowflakeId(clock, BORROW, 10L);
+		idWorker.nextId();
+		clock.addAndGet(-11);
+		idWorker.nextId();
+	}
+
+	@Test
+	public void testWaitClockBackwards() throws InterruptedException {
+		AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+		SnowflakeId idWorker = new ManualClockSnowflakeId(clock, WAIT, 10L);
+		long previous = idWorker.nextId();
+		clock.addAndGet(-3);
+		Thread ticker = new Thread(() -> {
+			for (int i = 0; i < 5; i++) {
+				try {
+					Thread.sleep(2);
+				} catch (InterruptedException e) {
+					return;
+				}
+				clock.incrementAndGet();
+			}
+		});
+		ticker.start();
+		assertTrue(idWorker.nextId() > previous);
+		ticker.join();
+	}
+
+	private static class ManualClockSnowflakeId extends SnowflakeId {
+
+		private final AtomicLong clock;
+
+		ManualClockSnowflakeId(AtomicLong clock, ClockBackwardsPolicy policy, long maxBackwardsMillis) {
+			super(0, 0, policy, maxBackwardsMillis);
+			this.clock = clock;
+		}
+
+		@Override
+		protected long timeGen() {
+			return clock.get();
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.loserico.common.lang.clock;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * shutdown()在同一个JVM里不可逆, 会影响其它用到CoarseClock的测试, 所以每个用例结束都reset()回到还没启动的状态
+ * <p>
+ * Copyright: (C), 2020/5/13 10:20
+ * <p>
+ * <p>
+ * Company: Sexy Uncle Inc.
+ *
+ * @author Rico Yu ricoyu520@gmail.com
+ * @version 1.0
+ */
+public class CoarseClockTest {
+	
+	@After
+	public void reset() throws InterruptedException {
+		CoarseClock.reset();
+	}
+	
+	@Test
+	public void testShutdown() throws InterruptedException {
+		long before = System.currentTimeMillis();
+		Thread.sleep(20);
+		long millis = CoarseClock.currentTimeMillis();
+		assertTrue(CoarseClock.isTicking());
+		assertTrue(millis > before && millis <= System.currentTimeMillis());
+		
+		//停掉后台线程后直接读系统时钟, 不会再起线程
+		CoarseClock.shutdown();
+		assertTrue(!CoarseClock.isTicking());
+		long after = CoarseClock.systemDefault().millis();
+		assertTrue(after >= millis && after <= System.currentTimeMillis());
+		assertTrue(!CoarseClock.isTicking());
+	}
+	
+	@Test
+	public void testRestartAfterReset() throws InterruptedException {
+		CoarseClock.shutdown();
+		CoarseClock.reset();
+		assertTrue(!CoarseClock.isTicking());
+		long before = System.currentTimeMillis();
+		long millis = CoarseClock.currentTimeMillis();
+		assertTrue(CoarseClock.isTicking());
+		assertTrue(millis >= before && millis <= System.currentTimeMillis());
+	}
+}